@@ -0,0 +1,210 @@
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code ActivityIndex} class answers aggregate questions about when journal
+ * entries were written. It is maintained incrementally by {@link JournalManager}
+ * and consists of two structures:
+ * <ul>
+ *   <li>a {@link FenwickTree} of entry counts over epoch days, so the number of
+ *       entries in any date range is an O(log n) query;</li>
+ *   <li>one bitset per year with a bit set for every day that has an entry, so
+ *       writing streaks are found by scanning 64 days at a time.</li>
+ * </ul>
+ * The tree covers a window of days that grows, by rebuilding, when an entry falls
+ * outside it.
+ */
+public class ActivityIndex {
+    private static final int INITIAL_DAYS = 1024;
+    private static final int WORDS_PER_YEAR = (DayIndex.DAYS_PER_YEAR + 63) / 64;
+
+    private final FenwickTree tree = new FenwickTree(INITIAL_DAYS);
+    // Epoch day stored at tree position 0; unset until the first entry arrives.
+    private long origin = Long.MIN_VALUE;
+    private final TreeMap<Integer, long[]> dayBits = new TreeMap<>();
+    private int total;
+
+    /**
+     * Records one more entry on a date.
+     *
+     * @param date the entry date
+     */
+    public void add(LocalDate date) {
+        int position = positionOf(date.toEpochDay());
+        tree.add(position, 1);
+        total++;
+        if (tree.get(position) == 1) {
+            int bit = date.getDayOfYear() - 1;
+            dayBits.computeIfAbsent(date.getYear(), y -> new long[WORDS_PER_YEAR])[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Records one fewer entry on a date.
+     *
+     * @param date the entry date
+     */
+    public void remove(LocalDate date) {
+        long day = date.toEpochDay();
+        if (origin == Long.MIN_VALUE || day < origin || day >= origin + tree.size()) {
+            return;
+        }
+        int position = (int) (day - origin);
+        if (tree.get(position) == 0) {
+            return;
+        }
+        tree.add(position, -1);
+        total--;
+        if (tree.get(position) == 0) {
+            int bit = date.getDayOfYear() - 1;
+            long[] bits = dayBits.get(date.getYear());
+            bits[bit >>> 6] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Returns the number of entries dated between two days, both inclusive.
+     *
+     * @param from the first day
+     * @param to   the last day
+     * @return the number of entries in the range
+     */
+    public int count(LocalDate from, LocalDate to) {
+        if (origin == Long.MIN_VALUE) {
+            return 0;
+        }
+        long first = Math.max(from.toEpochDay() - origin, -1);
+        long last = Math.min(to.toEpochDay() - origin, tree.size());
+        return tree.rangeSum((int) first, (int) last);
+    }
+
+    /**
+     * Returns the number of entries in the journal.
+     *
+     * @return the total entry count
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Tells whether any entry is dated on a day.
+     *
+     * @param date the day
+     * @return {@code true} if the day has an entry
+     */
+    public boolean hasEntry(LocalDate date) {
+        long[] bits = dayBits.get(date.getYear());
+        int bit = date.getDayOfYear() - 1;
+        return bits != null && (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns the longest run of consecutive days with at least one entry.
+     *
+     * @return the longest streak in days
+     */
+    public int longestStreak() {
+        int longest = 0;
+        int run = 0;
+        Integer previousYear = null;
+        for (Map.Entry<Integer, long[]> year : dayBits.entrySet()) {
+            if (previousYear != null && year.getKey() != previousYear + 1) {
+                run = 0;
+            }
+            previousYear = year.getKey();
+            long[] bits = year.getValue();
+            int days = LocalDate.of(year.getKey(), 1, 1).lengthOfYear();
+            for (int word = 0; word < bits.length; word++) {
+                int valid = Math.min(64, days - word * 64);
+                long w = bits[word];
+                long mask = valid == 64 ? -1L : (1L << valid) - 1;
+                if (w == mask) {
+                    run += valid;
+                    continue;
+                }
+                // Ones at the bottom of the word extend the run from the previous word.
+                run += Long.numberOfTrailingZeros(~w);
+                longest = Math.max(longest, Math.max(run, longestRun(w)));
+                // Ones at the top of the word start the run carried into the next word.
+                run = Long.numberOfLeadingZeros(~(w << (64 - valid)));
+            }
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /**
+     * Returns the length of the streak that is still going on {@code today}. A
+     * streak counts as current if it ends today or, when nothing has been written
+     * yet today, yesterday.
+     *
+     * @param today the current date
+     * @return the current streak in days
+     */
+    public int currentStreak(LocalDate today) {
+        LocalDate day = hasEntry(today) ? today : today.minusDays(1);
+        int streak = 0;
+        while (true) {
+            long[] bits = dayBits.get(day.getYear());
+            if (bits == null) {
+                return streak;
+            }
+            int bit = day.getDayOfYear() - 1;
+            // Count set bits downward from this day to the start of its word.
+            long below = bits[bit >>> 6] << (63 - (bit & 63));
+            int ones = Long.numberOfLeadingZeros(~below);
+            streak += Math.min(ones, (bit & 63) + 1);
+            if (ones <= (bit & 63)) {
+                return streak;
+            }
+            day = day.minusDays((bit & 63) + 1L);
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        tree.clear();
+        dayBits.clear();
+        total = 0;
+    }
+
+    /**
+     * Returns the tree position of an epoch day, growing the tree to cover it.
+     */
+    private int positionOf(long day) {
+        if (origin == Long.MIN_VALUE) {
+            origin = day - INITIAL_DAYS / 2;
+        }
+        long position = day - origin;
+        if (position < 0 || position >= tree.size()) {
+            long first = Math.min(origin, day);
+            long last = Math.max(origin + tree.size() - 1, day);
+            int size = tree.size();
+            while (size < last - first + 1 + INITIAL_DAYS) {
+                size *= 2;
+            }
+            // Leave room on the side that grew so repeated growth stays amortized.
+            long newOrigin = day < origin ? last + 1 - size : first;
+            tree.rebuild(size, (int) (origin - newOrigin));
+            origin = newOrigin;
+            position = day - origin;
+        }
+        return (int) position;
+    }
+
+    /**
+     * Returns the longest run of set bits in a word.
+     */
+    private static int longestRun(long w) {
+        int length = 0;
+        while (w != 0) {
+            w &= w << 1;
+            length++;
+        }
+        return length;
+    }
+}
@@ -3,6 +3,7 @@ import java.time.LocalDate;
 import java.util.Collections;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.text.PlainDocument;
 
 /**
  * The {@code AddEntryDialog} class provides a dialog for adding new journal entries.
@@ -17,6 +18,7 @@ public class AddEntryDialog extends JDialog {
     private JTextField tagField;
     private DefaultListModel<String> entryTagsModel;
     private JTextArea contentArea;
+    private transient RopeContent contentText;
     private transient JournalEntry journalEntry;
     
     /**
@@ -54,6 +56,7 @@ public class AddEntryDialog extends JDialog {
         
         // New Tag input
         tagField = new JTextField();
+        TagAutocomplete.install(tagField, tagsManager);
         entryTagsModel = new DefaultListModel<>();
         JButton addTagButton = new JButton("Add Tag");
         addTagButton.addActionListener(e -> {
@@ -106,7 +109,8 @@ public class AddEntryDialog extends JDialog {
         panel.add(topPanel, BorderLayout.NORTH);
         
         // Large content area for the journal entry.
-        contentArea = new JTextArea();
+        contentText = new RopeContent();
+        contentArea = new JTextArea(new PlainDocument(contentText));
         contentArea.setLineWrap(true);
         contentArea.setWrapStyleWord(true);
         JScrollPane contentScroll = new JScrollPane(contentArea);
@@ -124,7 +128,7 @@ public class AddEntryDialog extends JDialog {
             String title = titleField.getText().trim();
             String location = locationField.getText().trim();
             java.util.List<String> tags = Collections.list(entryTagsModel.elements());
-            String content = contentArea.getText().trim();
+            String content = contentText.snapshot().trim().toString();
             
             // Parse the date from the dateField.
             LocalDate date;
@@ -0,0 +1,270 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.management.NotificationEmitter;
+
+/**
+ * The {@code CacheManager} class is the registry that keeps every
+ * {@link ManagedCache} of the application within one byte budget. Each cache is
+ * registered with a weight saying how costly its entries are to rebuild; when the
+ * budget is exceeded, the lightest caches give up their least recently used
+ * entries first.
+ * <p>
+ * Caches call {@link #checkBudget()} after growing. The check itself is cheap,
+ * and shedding runs on the manager's executor, so a cache never evicts from
+ * another cache while holding its own lock. The default manager also watches the
+ * heap pools through {@link MemoryPoolMXBean} thresholds and sheds half of
+ * everything cached when the old generation fills up, so caches can use spare
+ * memory freely and back off before an {@link OutOfMemoryError}.
+ * <p>
+ * Caches are held weakly: one that is no longer used elsewhere drops out of the
+ * registry by itself.
+ */
+public class CacheManager {
+    private static final Logger logger = Logger.getLogger(CacheManager.class.getName());
+    /** Share of the maximum heap the default manager lets caches use. */
+    private static final double DEFAULT_BUDGET_SHARE = 0.25;
+    /** Share of a heap pool's maximum at which the default manager starts shedding. */
+    private static final double PRESSURE_THRESHOLD = 0.8;
+    private static final CacheManager DEFAULT = createDefault();
+
+    /** A registered cache and its weight. */
+    private static final class Registration {
+        private final WeakReference<ManagedCache> cache;
+        private final int weight;
+
+        Registration(ManagedCache cache, int weight) {
+            this.cache = new WeakReference<>(cache);
+            this.weight = weight;
+        }
+    }
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+    private final AtomicBoolean shedScheduled = new AtomicBoolean();
+    private final AtomicLong shedBytes = new AtomicLong();
+    private volatile long budget;
+
+    /**
+     * Constructs a manager with the given budget.
+     *
+     * @param budget   the number of bytes all caches together may hold
+     * @param executor runs the shedding triggered by {@link #checkBudget()}
+     */
+    public CacheManager(long budget, Executor executor) {
+        this.budget = budget;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the application-wide manager, whose budget is a quarter of the
+     * maximum heap and which sheds under heap pressure.
+     *
+     * @return the default manager
+     */
+    public static CacheManager getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Adds a cache to the budget.
+     *
+     * @param cache  the cache
+     * @param weight how valuable its entries are; lower weights are shed first
+     */
+    public void register(ManagedCache cache, int weight) {
+        registrations.add(new Registration(cache, weight));
+    }
+
+    /**
+     * Removes a cache from the budget.
+     *
+     * @param cache the cache
+     */
+    public void unregister(ManagedCache cache) {
+        registrations.removeIf(r -> {
+            ManagedCache registered = r.cache.get();
+            return registered == null || registered == cache;
+        });
+    }
+
+    /**
+     * Returns the number of bytes all caches together may hold.
+     *
+     * @return the budget
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Changes the budget; caches over it are trimmed on the next check.
+     *
+     * @param budget the number of bytes all caches together may hold
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        checkBudget();
+    }
+
+    /**
+     * Returns the estimated bytes held by every registered cache.
+     *
+     * @return the total
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (ManagedCache cache : liveCaches()) {
+            total += cache.getEstimatedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Reports the estimated bytes held per cache name; caches sharing a name
+     * are summed.
+     *
+     * @return cache name to bytes, in registration order
+     */
+    public Map<String, Long> getUsage() {
+        Map<String, Long> usage = new LinkedHashMap<>();
+        for (ManagedCache cache : liveCaches()) {
+            usage.merge(cache.getCacheName(), cache.getEstimatedBytes(), Long::sum);
+        }
+        return usage;
+    }
+
+    /**
+     * Returns the bytes evicted by shedding since the manager was created.
+     *
+     * @return the shed byte count
+     */
+    public long getShedBytes() {
+        return shedBytes.get();
+    }
+
+    /**
+     * Schedules shedding if the caches are over budget. Called by caches after
+     * they grow; returns at once.
+     */
+    public void checkBudget() {
+        if (getTotalBytes() > budget && shedScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                shedScheduled.set(false);
+                long excess = getTotalBytes() - budget;
+                if (excess > 0) {
+                    shed(excess);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evicts about {@code bytes} from the caches, lightest weight first.
+     *
+     * @param bytes the number of bytes to free
+     * @return the estimated number of bytes freed
+     */
+    public long shed(long bytes) {
+        List<Registration> order = new ArrayList<>(registrations);
+        order.sort(Comparator.comparingInt(r -> r.weight));
+        long freed = 0;
+        for (Registration registration : order) {
+            ManagedCache cache = registration.cache.get();
+            if (cache != null && freed < bytes) {
+                freed += cache.shrink(bytes - freed);
+            }
+        }
+        shedBytes.addAndGet(freed);
+        return freed;
+    }
+
+    /**
+     * Asks the JVM to notify this manager when a heap pool crosses
+     * {@code fraction} of its maximum, after a collection where supported, and
+     * sheds half of everything cached when it does.
+     *
+     * @param fraction the share of each pool's maximum that counts as pressure
+     */
+    public void watchMemoryPools(double fraction) {
+        boolean watching = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            // Of the heap pools only the old generation supports usage thresholds.
+            if (pool.getType() != MemoryType.HEAP || max <= 0 || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            // Usage after a collection ignores garbage that is about to go anyway.
+            if (pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold((long) (max * fraction));
+            } else {
+                pool.setUsageThreshold((long) (max * fraction));
+            }
+            watching = true;
+        }
+        if (!watching) {
+            return;
+        }
+        NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emitter.addNotificationListener((notification, handback) -> {
+            String type = notification.getType();
+            if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+                    || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+                long freed = shed(getTotalBytes() / 2);
+                logger.warning(String.format("Heap pressure: shed %d bytes of cached data", freed));
+            }
+        }, null, null);
+    }
+
+    /**
+     * Returns the registered caches that are still alive, dropping the rest.
+     */
+    private List<ManagedCache> liveCaches() {
+        List<ManagedCache> live = new ArrayList<>(registrations.size());
+        boolean stale = false;
+        for (Registration registration : registrations) {
+            ManagedCache cache = registration.cache.get();
+            if (cache != null) {
+                live.add(cache);
+            } else {
+                stale = true;
+            }
+        }
+        if (stale) {
+            registrations.removeIf(r -> r.cache.get() == null);
+        }
+        return live;
+    }
+
+    /**
+     * Creates the application-wide manager.
+     */
+    private static CacheManager createDefault() {
+        CacheManager manager = new CacheManager(
+                (long) (Runtime.getRuntime().maxMemory() * DEFAULT_BUDGET_SHARE),
+                Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "cache-shedder");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        try {
+            manager.watchMemoryPools(PRESSURE_THRESHOLD);
+        } catch (RuntimeException e) {
+            logger.warning(String.format("Memory pool thresholds unavailable: %s", e.getMessage()));
+        }
+        return manager;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * The {@code ContentSource} interface gives page-wise read access to the text of
+ * a journal entry, so viewers can display very large content without holding it
+ * in a single Swing document. Implementations must allow reads from any thread.
+ */
+public interface ContentSource {
+
+    /**
+     * Returns the number of characters in the content.
+     *
+     * @return the content length
+     */
+    int length();
+
+    /**
+     * Reads a range of the content.
+     *
+     * @param offset the index of the first character
+     * @param count  the number of characters; reads past the end are truncated
+     * @return the characters in the range
+     */
+    CharSequence read(int offset, int count);
+
+    /**
+     * Returns a source over an in-memory string.
+     *
+     * @param text the content
+     * @return a source reading from {@code text}
+     */
+    static ContentSource of(String text) {
+        String content = text != null ? text : "";
+        return new ContentSource() {
+            @Override
+            public int length() {
+                return content.length();
+            }
+
+            @Override
+            public CharSequence read(int offset, int count) {
+                int start = Math.max(0, Math.min(offset, content.length()));
+                return content.subSequence(start, Math.min(content.length(), start + Math.max(0, count)));
+            }
+        };
+    }
+}
@@ -0,0 +1,356 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * The {@code ContentStore} class keeps entry content off the Java heap, in
+ * append-only segment files under a spill directory that are memory-mapped for
+ * reading. {@link #append(String)} writes a body as UTF-8 to the active segment
+ * and returns a {@link Ref} holding only the segment, offset and length; reading
+ * it back decodes from the mapping, with a small least-recently-used cache of
+ * decoded strings held through soft references and counted against the budget
+ * of the default {@link CacheManager}.
+ * <p>
+ * The journal file stays the source of truth: segment files are scratch space.
+ * Several running instances may share a spill directory, so each store writes
+ * to a subdirectory of its own and holds a lock on a file in it for as long as
+ * the process lives. Opening a store deletes only the subdirectories whose lock
+ * can be taken, that is, those whose owner has exited.
+ * {@link #startGeneration()} retires every segment written so far. A retired
+ * segment is reachable only through the refs that point into it, and once the
+ * last of them becomes garbage its file is deleted.
+ */
+public class ContentStore {
+    private static final Logger logger = Logger.getLogger(ContentStore.class.getName());
+    private static final Cleaner CLEANER = Cleaner.create();
+    /** Default size of a segment file. */
+    public static final int DEFAULT_SEGMENT_SIZE = 8 << 20;
+    private static final int CACHE_CAPACITY = 64;
+    /** Shedding weight; decoding from a mapped segment is cheap but not free. */
+    private static final int CACHE_WEIGHT = 2;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String OWNER_PREFIX = "store-";
+    private static final String LOCK_FILE = "owner.lock";
+
+    private final File directory;
+    // Held for the life of the store; other stores leave a locked subdirectory alone.
+    private final FileLock ownerLock;
+    private final int segmentSize;
+    private final SizedLruCache<Ref, String> cache;
+    private Segment active;
+    private int nextSegment;
+    private long storedBytes;
+
+    /** The location of one stored body. Refs are immutable and keep their segment alive. */
+    public static final class Ref {
+        private final ContentStore store;
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Ref(ContentStore store, Segment segment, int offset, int length) {
+            this.store = store;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Returns the encoded size of the body.
+         *
+         * @return the length in bytes
+         */
+        public int getByteLength() {
+            return length;
+        }
+
+        /**
+         * Returns the body, from the cache or decoded from its segment.
+         *
+         * @return the content
+         */
+        public String read() {
+            return store.read(this);
+        }
+
+        /**
+         * Returns a source that decodes the body a page at a time, so a viewer can
+         * show a large body without decoding all of it into one string.
+         *
+         * @return a page-wise source over the body
+         */
+        public ContentSource openSource() {
+            return store.source(this);
+        }
+    }
+
+    /**
+     * Reads a stored body page by page. One pass over the bytes, without decoding,
+     * finds the length and where each page of characters starts; a read decodes
+     * only the pages it covers.
+     */
+    private static final class StoredSource implements ContentSource {
+        private static final int PAGE_CHARS = 16 * 1024;
+
+        private final ByteBuffer body;
+        // Character offset and byte offset of the first code point of each page.
+        private int[] pageChars = new int[16];
+        private int[] pageBytes = new int[16];
+        private int pageCount;
+        private final int length;
+
+        StoredSource(ByteBuffer body) {
+            this.body = body;
+            int chars = 0;
+            for (int i = 0; i < body.limit(); i++) {
+                byte b = body.get(i);
+                if ((b & 0xC0) == 0x80) {
+                    continue;
+                }
+                if (chars >= pageCount * PAGE_CHARS) {
+                    addPage(chars, i);
+                }
+                // A four-byte sequence decodes to a surrogate pair.
+                chars += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+            if (pageCount == 0) {
+                addPage(0, 0);
+            }
+            this.length = chars;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public CharSequence read(int offset, int count) {
+            int start = Math.max(0, Math.min(offset, length));
+            int end = Math.min(length, start + Math.max(0, count));
+            if (start == end) {
+                return "";
+            }
+            int found = Arrays.binarySearch(pageChars, 0, pageCount, start);
+            int first = found >= 0 ? found : -found - 2;
+            found = Arrays.binarySearch(pageChars, 0, pageCount, end);
+            int last = found >= 0 ? found : -found - 1;
+            ByteBuffer pages = body.duplicate();
+            pages.position(pageBytes[first]).limit(last < pageCount ? pageBytes[last] : body.limit());
+            String text = StandardCharsets.UTF_8.decode(pages).toString();
+            return text.substring(start - pageChars[first], end - pageChars[first]);
+        }
+
+        /**
+         * Records where a page starts.
+         */
+        private void addPage(int chars, int bytes) {
+            if (pageCount == pageChars.length) {
+                pageChars = Arrays.copyOf(pageChars, pageCount * 2);
+                pageBytes = Arrays.copyOf(pageBytes, pageCount * 2);
+            }
+            pageChars[pageCount] = chars;
+            pageBytes[pageCount] = bytes;
+            pageCount++;
+        }
+    }
+
+    /** One mapped segment file; its file is deleted once nothing refers to it. */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private int used;
+
+        Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /** Deletes a segment's file; must not refer to the segment itself. */
+    private static final class SegmentCleanup implements Runnable {
+        private final File file;
+
+        SegmentCleanup(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            if (!file.delete() && file.exists()) {
+                logger.severe(String.format("Error deleting content segment: %s", file));
+            }
+        }
+    }
+
+    /**
+     * Opens a store in the given directory with the default segment size,
+     * clearing out segments left by stores that are no longer running.
+     *
+     * @param directory the spill directory, created if missing
+     */
+    public ContentStore(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a store in the given directory, clearing out segments left by stores
+     * that are no longer running.
+     *
+     * @param directory   the spill directory, created if missing
+     * @param segmentSize the size of each segment file; larger bodies get a segment of their own
+     */
+    public ContentStore(File directory, int segmentSize) {
+        this.segmentSize = segmentSize;
+        this.cache = new SizedLruCache<>("Decoded content", CACHE_CAPACITY, CACHE_WEIGHT, true,
+                text -> 2L * text.length());
+        directory.mkdirs();
+        clearAbandoned(directory);
+        this.directory = new File(directory, OWNER_PREFIX + UUID.randomUUID());
+        this.directory.mkdirs();
+        this.ownerLock = lockOwnership(this.directory);
+    }
+
+    /**
+     * Writes a body to the active segment, opening a new segment when it is full.
+     *
+     * @param content the text to store
+     * @return a reference to the stored text
+     * @throws IOException if a segment file cannot be created or mapped
+     */
+    public synchronized Ref append(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (active == null || active.used + bytes.length > active.buffer.capacity()) {
+            active = openSegment(Math.max(segmentSize, bytes.length));
+        }
+        ByteBuffer target = active.buffer.duplicate();
+        target.position(active.used);
+        target.put(bytes);
+        Ref ref = new Ref(this, active, active.used, bytes.length);
+        active.used += bytes.length;
+        storedBytes += bytes.length;
+        cache.put(ref, content);
+        return ref;
+    }
+
+    /**
+     * Retires every segment written so far, so that later appends go to new
+     * files and the old ones are deleted once no ref points into them. Used when
+     * compacting: the live bodies are appended again and the rest is dropped.
+     */
+    public synchronized void startGeneration() {
+        active = null;
+        storedBytes = 0;
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of bytes appended since the last generation started,
+     * live or not.
+     *
+     * @return the stored byte count
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Returns the text behind a ref.
+     */
+    private String read(Ref ref) {
+        String text = cache.get(ref);
+        if (text == null) {
+            ByteBuffer source = ref.segment.buffer.duplicate();
+            source.position(ref.offset).limit(ref.offset + ref.length);
+            text = StandardCharsets.UTF_8.decode(source).toString();
+            cache.put(ref, text);
+        }
+        return text;
+    }
+
+    /**
+     * Returns a page-wise source over the text behind a ref, or a source over the
+     * cached string if it has already been decoded.
+     */
+    private ContentSource source(Ref ref) {
+        String text = cache.get(ref);
+        if (text != null) {
+            return ContentSource.of(text);
+        }
+        ByteBuffer body = ref.segment.buffer.duplicate();
+        body.position(ref.offset).limit(ref.offset + ref.length);
+        return new StoredSource(body.slice());
+    }
+
+    /**
+     * Deletes the store subdirectories of a spill directory whose owners have
+     * exited. A subdirectory whose lock is held, by another process or by another
+     * store in this one, is in use and left alone.
+     */
+    private static void clearAbandoned(File spillDirectory) {
+        File[] owners = spillDirectory.listFiles(file -> file.isDirectory() && file.getName().startsWith(OWNER_PREFIX));
+        if (owners == null) {
+            return;
+        }
+        for (File owner : owners) {
+            File lockFile = new File(owner, LOCK_FILE);
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (channel.tryLock() == null) {
+                    continue;
+                }
+                File[] segments = owner.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+                if (segments != null) {
+                    for (File segment : segments) {
+                        segment.delete();
+                    }
+                }
+            } catch (OverlappingFileLockException e) {
+                continue;
+            } catch (IOException e) {
+                logger.warning(String.format("Could not check content store: %s - %s", owner, e.getMessage()));
+                continue;
+            }
+            // The channel is closed and the lock released; nothing refers to the directory any more.
+            lockFile.delete();
+            owner.delete();
+        }
+    }
+
+    /**
+     * Locks the lock file of this store's subdirectory for the life of the process.
+     */
+    private static FileLock lockOwnership(File owner) {
+        try {
+            // The channel stays open with the lock; it is closed when the JVM exits.
+            FileChannel channel = FileChannel.open(new File(owner, LOCK_FILE).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return channel.lock();
+        } catch (IOException e) {
+            logger.severe(String.format("Error locking content store: %s - %s", owner, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Creates and maps the next segment file.
+     */
+    private Segment openSegment(int size) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + (nextSegment++));
+        // A mapping stays valid after its channel is closed.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            Segment segment = new Segment(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+            CLEANER.register(segment, new SegmentCleanup(file));
+            return segment;
+        }
+    }
+}
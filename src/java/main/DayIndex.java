@@ -0,0 +1,268 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code DayIndex} class keeps, for every day, the ordinals of the journal
+ * entries written on it, their number, and the words they contain. Counts and
+ * word totals are stored as one {@code int[]} each per year indexed by day of
+ * year, next to a bucket of ordinals per day. It is maintained incrementally by
+ * {@link JournalManager} as entries are added, edited, moved, and removed, so views
+ * such as the heatmap can read a year's values or a day's entries directly instead
+ * of scanning the journal.
+ * <p>
+ * Each year also carries a stamp that changes whenever any of its counts change,
+ * letting callers detect which years need redrawing.
+ */
+public class DayIndex {
+    /** Days in the longest year; arrays are always this long. */
+    public static final int DAYS_PER_YEAR = 366;
+    private static final int[] NO_COUNTS = new int[DAYS_PER_YEAR];
+    private static final int[] EMPTY_BUCKET = new int[0];
+
+    /** A per-day quantity the index can report. */
+    public enum Metric {
+        /** Number of entries written on the day. */
+        ENTRIES,
+        /** Number of words written on the day. */
+        WORDS
+    }
+
+    /** Counts, word totals and ordinal buckets of one year; counts double as bucket sizes. */
+    private static final class YearData {
+        private final int[] counts = new int[DAYS_PER_YEAR];
+        private final int[] words = new int[DAYS_PER_YEAR];
+        private final int[][] buckets = new int[DAYS_PER_YEAR][];
+    }
+
+    private final TreeMap<Integer, YearData> years = new TreeMap<>();
+    private final Map<Integer, Long> stamps = new HashMap<>();
+    private long stampCounter;
+
+    /**
+     * Records the entry at {@code ordinal} under its date.
+     *
+     * @param entry   the entry
+     * @param ordinal the entry's position in the journal
+     */
+    public void add(JournalEntry entry, int ordinal) {
+        LocalDate date = entry.getDate();
+        YearData year = years.computeIfAbsent(date.getYear(), y -> new YearData());
+        int day = date.getDayOfYear() - 1;
+        int[] bucket = year.buckets[day];
+        int size = year.counts[day];
+        if (bucket == null) {
+            bucket = new int[2];
+        } else if (size == bucket.length) {
+            bucket = Arrays.copyOf(bucket, size * 2);
+        }
+        bucket[size] = ordinal;
+        year.buckets[day] = bucket;
+        year.counts[day] = size + 1;
+        year.words[day] += entry.getWordCount();
+        touch(date.getYear());
+    }
+
+    /**
+     * Forgets the entry at {@code ordinal}.
+     *
+     * @param entry   the entry, as it was added
+     * @param ordinal the entry's position in the journal
+     */
+    public void remove(JournalEntry entry, int ordinal) {
+        LocalDate date = entry.getDate();
+        YearData year = years.get(date.getYear());
+        int day = date.getDayOfYear() - 1;
+        int slot = year == null ? -1 : find(year, day, ordinal);
+        if (slot != -1) {
+            int last = --year.counts[day];
+            year.buckets[day][slot] = year.buckets[day][last];
+            year.words[day] -= entry.getWordCount();
+            touch(date.getYear());
+        }
+    }
+
+    /**
+     * Updates the ordinal of an entry that moved within the journal. Counts do
+     * not change, so the year's stamp is kept.
+     *
+     * @param entry the entry that moved
+     * @param from  the entry's previous ordinal
+     * @param to    the entry's new ordinal
+     */
+    public void move(JournalEntry entry, int from, int to) {
+        LocalDate date = entry.getDate();
+        YearData year = years.get(date.getYear());
+        int day = date.getDayOfYear() - 1;
+        int slot = year == null ? -1 : find(year, day, from);
+        if (slot != -1) {
+            year.buckets[day][slot] = to;
+        }
+    }
+
+    /**
+     * Returns the number of entries on a date.
+     *
+     * @param date the date to look up
+     * @return the entry count
+     */
+    public int count(LocalDate date) {
+        return yearCounts(date.getYear())[date.getDayOfYear() - 1];
+    }
+
+    /**
+     * Copies the ordinals of the entries on a date into {@code into}, up to its
+     * length, in the order they were recorded.
+     *
+     * @param date the date to look up
+     * @param into the array to fill
+     * @return the total number of entries on the date, which may exceed the number copied
+     */
+    public int ordinalsOn(LocalDate date, int[] into) {
+        YearData year = years.get(date.getYear());
+        int day = date.getDayOfYear() - 1;
+        if (year == null || year.counts[day] == 0) {
+            return 0;
+        }
+        int count = year.counts[day];
+        System.arraycopy(year.buckets[day], 0, into, 0, Math.min(count, into.length));
+        return count;
+    }
+
+    /**
+     * Returns the ordinals of the entries on a date.
+     *
+     * @param date the date to look up
+     * @return a new array of ordinals, empty if there are none
+     */
+    public int[] ordinalsOn(LocalDate date) {
+        int count = count(date);
+        if (count == 0) {
+            return EMPTY_BUCKET;
+        }
+        int[] ordinals = new int[count];
+        ordinalsOn(date, ordinals);
+        return ordinals;
+    }
+
+    /**
+     * Returns the per-day counts of a year, indexed by day of year minus one.
+     * The array is live and must not be modified by the caller.
+     *
+     * @param year the calendar year
+     * @return the year's counts; all zero for a year without entries
+     */
+    public int[] yearCounts(int year) {
+        YearData data = years.get(year);
+        return data == null ? NO_COUNTS : data.counts;
+    }
+
+    /**
+     * Returns the per-day values of a metric for a year, indexed by day of year
+     * minus one. The array is live and must not be modified by the caller.
+     *
+     * @param year   the calendar year
+     * @param metric the quantity to report
+     * @return the year's values; all zero for a year without entries
+     */
+    public int[] yearValues(int year, Metric metric) {
+        YearData data = years.get(year);
+        if (data == null) {
+            return NO_COUNTS;
+        }
+        return metric == Metric.WORDS ? data.words : data.counts;
+    }
+
+    /**
+     * Returns the value of a metric for every day that has any, across all years.
+     *
+     * @param metric the quantity to report
+     * @return a new array of the non-zero day values, in no particular order
+     */
+    public int[] nonZeroValues(Metric metric) {
+        int[] values = new int[years.size() * DAYS_PER_YEAR];
+        int size = 0;
+        for (YearData data : years.values()) {
+            int[] source = metric == Metric.WORDS ? data.words : data.counts;
+            for (int day = 0; day < DAYS_PER_YEAR; day++) {
+                if (data.counts[day] > 0 && source[day] > 0) {
+                    values[size++] = source[day];
+                }
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns a stamp that changes whenever any count in the year changes.
+     *
+     * @param year the calendar year
+     * @return the year's modification stamp; 0 if it has never had entries
+     */
+    public long yearStamp(int year) {
+        return stamps.getOrDefault(year, 0L);
+    }
+
+    /**
+     * Returns a stamp that changes whenever any count in any year changes.
+     *
+     * @return the index's modification stamp
+     */
+    public long getStamp() {
+        return stampCounter;
+    }
+
+    /**
+     * Returns the earliest year that has held an entry since the last clear, or
+     * {@code latest} if that is earlier.
+     *
+     * @param latest the year to return when the index is empty, usually this year
+     * @return the earlier of the first indexed year and {@code latest}
+     */
+    public int firstYear(int latest) {
+        return years.isEmpty() ? latest : Math.min(years.firstKey(), latest);
+    }
+
+    /**
+     * Returns the latest year that has held an entry since the last clear, or
+     * {@code earliest} if that is later.
+     *
+     * @param earliest the year to return when the index is empty
+     * @return the later of the last indexed year and {@code earliest}
+     */
+    public int lastYear(int earliest) {
+        return years.isEmpty() ? earliest : Math.max(years.lastKey(), earliest);
+    }
+
+    /**
+     * Removes every count.
+     */
+    public void clear() {
+        years.clear();
+        for (Map.Entry<Integer, Long> stamp : stamps.entrySet()) {
+            stamp.setValue(++stampCounter);
+        }
+    }
+
+    /**
+     * Returns the slot of {@code ordinal} in a day's bucket, or -1.
+     */
+    private static int find(YearData year, int day, int ordinal) {
+        int[] bucket = year.buckets[day];
+        for (int i = 0; i < year.counts[day]; i++) {
+            if (bucket[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a year a new modification stamp.
+     */
+    private void touch(int year) {
+        stamps.put(year, ++stampCounter);
+    }
+}
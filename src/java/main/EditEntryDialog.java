@@ -3,6 +3,7 @@ import java.time.LocalDate;
 import java.util.Collections;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.text.PlainDocument;
 
 /**
  * The {@code EditEntryDialog} class provides a graphical user interface for editing a journal entry.
@@ -17,6 +18,7 @@ public class EditEntryDialog extends JDialog {
     private JTextField tagField;
     private DefaultListModel<String> entryTagsModel;
     private JTextArea contentArea;
+    private transient RopeContent contentText;
     private transient JournalEntry journalEntry;
 
     /**
@@ -55,6 +57,7 @@ public class EditEntryDialog extends JDialog {
 
         // New Tag input
         tagField = new JTextField();
+        TagAutocomplete.install(tagField, tagsManager);
         entryTagsModel = new DefaultListModel<>();
         for (String tag : entry.getTags()) {
             entryTagsModel.addElement(tag);
@@ -111,7 +114,10 @@ public class EditEntryDialog extends JDialog {
         panel.add(topPanel, BorderLayout.NORTH);
 
         // Large content area pre-populated with entry content
-        contentArea = new JTextArea(entry.getContent());
+        contentText = new RopeContent();
+        contentArea = new JTextArea(new PlainDocument(contentText));
+        contentArea.setText(entry.getContent());
+        contentArea.setCaretPosition(0);
         contentArea.setLineWrap(true);
         contentArea.setWrapStyleWord(true);
         JScrollPane contentScroll = new JScrollPane(contentArea);
@@ -129,7 +135,7 @@ public class EditEntryDialog extends JDialog {
             String title = titleField.getText().trim();
             String location = locationField.getText().trim();
             java.util.List<String> tags = Collections.list(entryTagsModel.elements());
-            String content = contentArea.getText().trim();
+            String content = contentText.snapshot().trim().toString();
 
             // Parse the date field
             LocalDate date;
@@ -140,8 +146,8 @@ public class EditEntryDialog extends JDialog {
                 return;
             }
 
-            // Retain the original date only if parsing fails
-            journalEntry = new JournalEntry(title, date, location, tags, content);
+            // Keep the original identifier so the edit replaces the stored record.
+            journalEntry = new JournalEntry(entry.getId(), title, date, location, tags, content);
             succeeded = true;
             dispose();
         });
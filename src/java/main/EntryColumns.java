@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code EntryColumns} class keeps the filterable metadata of the journal as
+ * primitive columns indexed by entry ordinal: the epoch day, a location id, and
+ * tag ids packed into one shared array with a start and length per row. Locations
+ * and tags are turned into ids through a dictionary that only grows until the
+ * columns are cleared.
+ * <p>
+ * A {@link JournalQuery} is first {@linkplain #compile compiled} into a
+ * {@link Filter} of ids and day bounds, after which testing a row reads a few
+ * array slots instead of following an entry to its date, location string and tag
+ * list. Like {@link DayIndex}, the columns are maintained in place by
+ * {@link JournalManager} and must be read on the event dispatch thread or while
+ * holding the manager's lock.
+ */
+public class EntryColumns {
+    /** Id of a missing location, and of a filter field that accepts anything. */
+    private static final int NONE = -1;
+    private static final int ANY = -2;
+    private static final int INITIAL_ROWS = 16;
+
+    /** A query compiled against the current dictionary. */
+    public static final class Filter {
+        private final int fromDay;
+        private final int toDay;
+        private final int location;
+        private final int tag;
+        // Set when the query names a location or tag no entry has.
+        private final boolean empty;
+
+        private Filter(int fromDay, int toDay, int location, int tag, boolean empty) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.location = location;
+            this.tag = tag;
+            this.empty = empty;
+        }
+    }
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private int size;
+    private int[] epochDay = new int[INITIAL_ROWS];
+    private int[] locationId = new int[INITIAL_ROWS];
+    private int[] tagStart = new int[INITIAL_ROWS];
+    private int[] tagCount = new int[INITIAL_ROWS];
+    // Tag ids of every row back to back; replaced rows leave gaps until compaction.
+    private int[] tagPool = new int[INITIAL_ROWS * 2];
+    private int poolSize;
+    private int liveTags;
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count, equal to the journal's entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Stores the metadata of an entry at {@code ordinal}, which may be one past
+     * the last row to append.
+     *
+     * @param ordinal the entry's position in the journal
+     * @param entry   the entry
+     */
+    public void set(int ordinal, JournalEntry entry) {
+        if (ordinal == size) {
+            if (size == epochDay.length) {
+                grow();
+            }
+            size++;
+        } else {
+            liveTags -= tagCount[ordinal];
+        }
+        // The row's old tags become a gap; compaction must not carry them along.
+        tagCount[ordinal] = 0;
+        epochDay[ordinal] = (int) entry.getDate().toEpochDay();
+        locationId[ordinal] = entry.getLocation() == null ? NONE : symbol(entry.getLocation());
+        List<String> tags = entry.getTags();
+        if (poolSize + tags.size() > tagPool.length) {
+            compact(tags.size());
+        }
+        tagStart[ordinal] = poolSize;
+        tagCount[ordinal] = tags.size();
+        for (String tag : tags) {
+            tagPool[poolSize++] = symbol(tag);
+        }
+        liveTags += tags.size();
+    }
+
+    /**
+     * Removes the row at {@code ordinal} by moving the last row into its place,
+     * mirroring how the journal removes entries.
+     *
+     * @param ordinal the position to remove
+     */
+    public void remove(int ordinal) {
+        liveTags -= tagCount[ordinal];
+        int last = size - 1;
+        if (ordinal != last) {
+            epochDay[ordinal] = epochDay[last];
+            locationId[ordinal] = locationId[last];
+            tagStart[ordinal] = tagStart[last];
+            tagCount[ordinal] = tagCount[last];
+        }
+        size = last;
+    }
+
+    /**
+     * Removes every row and forgets the dictionary.
+     */
+    public void clear() {
+        size = 0;
+        poolSize = 0;
+        liveTags = 0;
+        symbols.clear();
+    }
+
+    /**
+     * Returns the epoch day of a row.
+     *
+     * @param ordinal the entry's position in the journal
+     * @return the entry's date as an epoch day
+     */
+    public int getEpochDay(int ordinal) {
+        return epochDay[ordinal];
+    }
+
+    /**
+     * Returns the key that orders a row in query results; see
+     * {@link JournalManager#sortKey(long, int)}.
+     *
+     * @param ordinal the entry's position in the journal
+     * @return the sort key
+     */
+    public long sortKey(int ordinal) {
+        return JournalManager.sortKey(epochDay[ordinal], ordinal);
+    }
+
+    /**
+     * Translates a query into ids and day bounds. The filter is valid until the
+     * columns next change.
+     *
+     * @param query the query to compile
+     * @return the compiled filter
+     */
+    public Filter compile(JournalQuery query) {
+        int fromDay = query.getFrom() == null ? Integer.MIN_VALUE : (int) query.getFrom().toEpochDay();
+        int toDay = query.getTo() == null ? Integer.MAX_VALUE : (int) query.getTo().toEpochDay();
+        Integer location = query.getLocation() == null ? Integer.valueOf(ANY) : symbols.get(query.getLocation());
+        Integer tag = query.getTag() == null ? Integer.valueOf(ANY) : symbols.get(query.getTag());
+        boolean empty = location == null || tag == null;
+        return new Filter(fromDay, toDay, empty ? ANY : location, empty ? ANY : tag, empty);
+    }
+
+    /**
+     * Tells whether a row satisfies a compiled filter; the result equals
+     * {@link JournalQuery#matches(JournalEntry)} for the entry at that ordinal.
+     *
+     * @param ordinal the entry's position in the journal
+     * @param filter  the compiled query
+     * @return {@code true} if the row matches
+     */
+    public boolean matches(int ordinal, Filter filter) {
+        int day = epochDay[ordinal];
+        if (filter.empty || day < filter.fromDay || day > filter.toDay) {
+            return false;
+        }
+        if (filter.location != ANY && locationId[ordinal] != filter.location) {
+            return false;
+        }
+        if (filter.tag == ANY) {
+            return true;
+        }
+        for (int i = tagStart[ordinal], end = i + tagCount[ordinal]; i < end; i++) {
+            if (tagPool[i] == filter.tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans every row and writes the sort keys of the matching ones.
+     *
+     * @param filter the compiled query
+     * @param into   an array with room for {@link #size()} keys
+     * @return the number of keys written
+     */
+    public int select(Filter filter, long[] into) {
+        if (filter.empty) {
+            return 0;
+        }
+        int count = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (matches(ordinal, filter)) {
+                into[count++] = sortKey(ordinal);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the id of a location or tag, assigning the next one if it is new.
+     */
+    private int symbol(String name) {
+        Integer id = symbols.get(name);
+        if (id == null) {
+            id = symbols.size();
+            symbols.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the capacity of the per-row columns.
+     */
+    private void grow() {
+        int capacity = epochDay.length * 2;
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        locationId = Arrays.copyOf(locationId, capacity);
+        tagStart = Arrays.copyOf(tagStart, capacity);
+        tagCount = Arrays.copyOf(tagCount, capacity);
+    }
+
+    /**
+     * Makes room for {@code needed} more tag ids, dropping the gaps left by
+     * replaced and removed rows and growing the pool if that is not enough.
+     */
+    private void compact(int needed) {
+        int capacity = tagPool.length;
+        while (capacity < 2 * (liveTags + needed)) {
+            capacity *= 2;
+        }
+        int[] packed = new int[capacity];
+        int next = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            System.arraycopy(tagPool, tagStart[ordinal], packed, next, tagCount[ordinal]);
+            tagStart[ordinal] = next;
+            next += tagCount[ordinal];
+        }
+        tagPool = packed;
+        poolSize = next;
+    }
+}
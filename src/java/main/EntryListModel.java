@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+
+/**
+ * The {@code EntryListModel} class is a list model that presents a view of the
+ * journal as an array of entry ordinals, such as the result of
+ * {@link JournalManager#query(JournalQuery)}. Rows are resolved to entries only
+ * when the list asks for them, so a refresh never copies entry references and
+ * painting only touches the rows that are visible.
+ * <p>
+ * Replacing the view diffs the old and new ordinal arrays and publishes at most
+ * one removed and one added interval for the part that differs, plus a single
+ * contents-changed event when the journal changed underneath rows that kept
+ * their ordinal.
+ * <p>
+ * Between replacements the view is patched from {@link JournalChangeEvent}s by
+ * {@link #apply(JournalChangeEvent, JournalQuery)}. Each row is kept with the
+ * sort key {@code JournalManager.query} orders by, so an added, edited or removed
+ * entry is located by binary search and reported as a single-row event.
+ */
+public class EntryListModel extends AbstractListModel<JournalEntry> {
+    private static final long[] EMPTY = new long[0];
+
+    private final transient JournalManager journalManager;
+    // Sort keys of the rows (see JournalManager.sortKey); the low 32 bits are the ordinal.
+    private long[] keys = EMPTY;
+    private int size;
+    // The array last passed to setView, while the rows still match it.
+    private int[] view;
+    private long journalVersion = -1;
+
+    /**
+     * Constructs an empty {@code EntryListModel} over the given journal.
+     *
+     * @param journalManager the journal the ordinals refer to
+     */
+    public EntryListModel(JournalManager journalManager) {
+        this.journalManager = journalManager;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public JournalEntry getElementAt(int index) {
+        int ordinal = getOrdinalAt(index);
+        // A view can briefly outlive a removal; show nothing rather than fail.
+        return ordinal < journalManager.getEntryCount() ? journalManager.getEntryAt(ordinal) : null;
+    }
+
+    /**
+     * Returns the ordinal shown at a row.
+     *
+     * @param index the row index
+     * @return the entry ordinal at that row
+     */
+    public int getOrdinalAt(int index) {
+        if (index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (int) keys[index];
+    }
+
+    /**
+     * Replaces the current view and notifies listeners of the minimal change.
+     *
+     * @param newOrdinals the new view; the array is kept and must not be modified
+     */
+    public void setView(int[] newOrdinals) {
+        long version = journalManager.getVersion();
+        if (view == newOrdinals) {
+            if (version != journalVersion && size > 0) {
+                fireContentsChanged(this, 0, size - 1);
+            }
+            journalVersion = version;
+            return;
+        }
+        long[] newKeys = new long[newOrdinals.length];
+        for (int i = 0; i < newOrdinals.length; i++) {
+            int ordinal = newOrdinals[i];
+            newKeys[i] = JournalManager.sortKey(journalManager.getEntryAt(ordinal).getDate(), ordinal);
+        }
+        replaceRows(newKeys, version);
+        view = newOrdinals;
+    }
+
+    /**
+     * Shows one page of a view that is being streamed, as produced by
+     * {@link QueryStream#nextPage(int)}. The first page replaces the current rows,
+     * reporting only the rows that differ; later pages are appended.
+     *
+     * @param page    sort keys of the rows, in order
+     * @param first   whether this is the first page of a new view
+     * @param version the journal version the view describes
+     */
+    public void showPage(long[] page, boolean first, long version) {
+        if (first) {
+            replaceRows(page.clone(), version);
+            return;
+        }
+        journalVersion = version;
+        if (page.length == 0) {
+            return;
+        }
+        if (size + page.length > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(size + page.length, keys.length * 2));
+        }
+        System.arraycopy(page, 0, keys, size, page.length);
+        size += page.length;
+        view = null;
+        fireIntervalAdded(this, size - page.length, size - 1);
+    }
+
+    /**
+     * Completes a streamed view. If the pages shown add up to the whole result
+     * nothing changes on screen; the ordinal array is only remembered so setting
+     * the same cached view again is free.
+     *
+     * @param allKeys  sort keys of every row, in order
+     * @param ordinals the same rows as ordinals; the array is kept and must not be modified
+     * @param version  the journal version the view describes
+     */
+    public void finishView(long[] allKeys, int[] ordinals, long version) {
+        if (allKeys.length != size) {
+            // Not every page was shown, for example when the result is empty.
+            replaceRows(allKeys.clone(), version);
+        }
+        journalVersion = version;
+        view = ordinals;
+    }
+
+    /**
+     * Replaces the rows with new keys and notifies listeners of the minimal change.
+     */
+    private void replaceRows(long[] newKeys, long version) {
+        boolean journalChanged = version != journalVersion;
+        journalVersion = version;
+        long[] old = keys;
+        int oldSize = size;
+        keys = newKeys;
+        size = newKeys.length;
+        view = null;
+
+        int prefix = 0;
+        int max = Math.min(oldSize, size);
+        while (prefix < max && old[prefix] == newKeys[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && old[oldSize - 1 - suffix] == newKeys[size - 1 - suffix]) {
+            suffix++;
+        }
+        int removedEnd = oldSize - suffix - 1;
+        int addedEnd = size - suffix - 1;
+        if (removedEnd >= prefix) {
+            fireIntervalRemoved(this, prefix, removedEnd);
+        }
+        if (addedEnd >= prefix) {
+            fireIntervalAdded(this, prefix, addedEnd);
+        }
+        // Rows that kept their ordinal may still show an edited entry.
+        if (journalChanged && size > 0) {
+            fireContentsChanged(this, 0, size - 1);
+        }
+    }
+
+    /**
+     * Patches the view for one journal change. The view must hold the result of
+     * {@code query}, in query order. Events no newer than the view are ignored.
+     * Tag renames and bulk changes cannot be patched; the caller should set a
+     * fresh view for those.
+     *
+     * @param event the change
+     * @param query the query the view was built from
+     */
+    public void apply(JournalChangeEvent event, JournalQuery query) {
+        if (event.getVersion() <= journalVersion) {
+            return;
+        }
+        journalVersion = event.getVersion();
+        int ordinal = event.getOrdinal();
+        switch (event.getType()) {
+            case ADDED:
+                insert(event.getNewEntry(), ordinal, query);
+                break;
+            case UPDATED:
+                update(event.getOldEntry(), event.getNewEntry(), ordinal, query);
+                break;
+            case REMOVED:
+                remove(event.getOldEntry(), ordinal, query);
+                JournalEntry moved = event.getMovedEntry();
+                if (moved != null && query.matches(moved)) {
+                    // Same date, new ordinal: the row may move among entries of that day.
+                    remove(moved, event.getMovedFrom(), query);
+                    insert(moved, ordinal, query);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Replaces an entry's row, or adds or removes it if the edit changed whether
+     * the query matches.
+     */
+    private void update(JournalEntry previous, JournalEntry replacement, int ordinal, JournalQuery query) {
+        int row = query.matches(previous) ? rowOf(previous, ordinal) : -1;
+        boolean matches = query.matches(replacement);
+        if (row >= 0 && matches && keys[row] == JournalManager.sortKey(replacement.getDate(), ordinal)) {
+            fireContentsChanged(this, row, row);
+            return;
+        }
+        if (row >= 0) {
+            removeRow(row);
+        }
+        if (matches) {
+            insert(replacement, ordinal, query);
+        }
+    }
+
+    /**
+     * Adds a row for an entry if the query matches it.
+     */
+    private void insert(JournalEntry entry, int ordinal, JournalQuery query) {
+        if (!query.matches(entry)) {
+            return;
+        }
+        long key = JournalManager.sortKey(entry.getDate(), ordinal);
+        int row = Arrays.binarySearch(keys, 0, size, key);
+        if (row >= 0) {
+            return;
+        }
+        row = -row - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+        }
+        System.arraycopy(keys, row, keys, row + 1, size - row);
+        keys[row] = key;
+        size++;
+        view = null;
+        fireIntervalAdded(this, row, row);
+    }
+
+    /**
+     * Removes an entry's row if the query matched it.
+     */
+    private void remove(JournalEntry entry, int ordinal, JournalQuery query) {
+        if (query.matches(entry)) {
+            int row = rowOf(entry, ordinal);
+            if (row >= 0) {
+                removeRow(row);
+            }
+        }
+    }
+
+    /**
+     * Finds the row of an entry at an ordinal, or returns -1.
+     */
+    private int rowOf(JournalEntry entry, int ordinal) {
+        int row = Arrays.binarySearch(keys, 0, size, JournalManager.sortKey(entry.getDate(), ordinal));
+        return Math.max(-1, row);
+    }
+
+    /**
+     * Deletes a row and notifies listeners.
+     */
+    private void removeRow(int row) {
+        System.arraycopy(keys, row + 1, keys, row, size - row - 1);
+        size--;
+        view = null;
+        fireIntervalRemoved(this, row, row);
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * The {@code FenwickTree} class is a binary indexed tree of {@code int} values
+ * over the positions {@code 0} to {@code size() - 1}. Updating a position and
+ * summing any range both take O(log n).
+ * <p>
+ * The point values are kept alongside the tree, so single values can be read in
+ * O(1) and the tree can be rebuilt at a new size in O(n).
+ */
+public class FenwickTree {
+    private int[] tree;
+    private int[] values;
+
+    /**
+     * Constructs a tree of {@code size} zero values.
+     *
+     * @param size the number of positions
+     */
+    public FenwickTree(int size) {
+        this.tree = new int[size + 1];
+        this.values = new int[size];
+    }
+
+    /**
+     * Returns the number of positions.
+     *
+     * @return the tree size
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Adds {@code delta} to the value at a position.
+     *
+     * @param index the position
+     * @param delta the amount to add
+     */
+    public void add(int index, int delta) {
+        values[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the value at a position.
+     *
+     * @param index the position
+     * @return the point value
+     */
+    public int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the sum of the values at positions {@code 0} to {@code index}.
+     *
+     * @param index the last position included; negative for an empty prefix
+     * @return the prefix sum
+     */
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int i = Math.min(index, values.length - 1) + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the values at positions {@code from} to {@code to}, both
+     * inclusive. Positions outside the tree count as zero.
+     *
+     * @param from the first position
+     * @param to   the last position
+     * @return the range sum
+     */
+    public int rangeSum(int from, int to) {
+        if (to < from) {
+            return 0;
+        }
+        return prefixSum(to) - prefixSum(from - 1);
+    }
+
+    /**
+     * Resizes the tree, moving every value {@code shift} positions up.
+     *
+     * @param newSize the new number of positions; must hold every shifted value
+     * @param shift   how far to move existing values
+     */
+    public void rebuild(int newSize, int shift) {
+        int[] moved = new int[newSize];
+        System.arraycopy(values, 0, moved, shift, values.length);
+        values = moved;
+        tree = new int[newSize + 1];
+        // Linear-time construction: push each node's total into its parent.
+        for (int i = 1; i <= newSize; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= newSize) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Sets every value to zero.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0);
+        Arrays.fill(values, 0);
+    }
+}
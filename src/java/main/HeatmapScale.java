@@ -0,0 +1,84 @@
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * The {@code HeatmapScale} class maps a per-day value to one of a fixed set of
+ * heatmap colors. Zero is always blank; non-zero values are split into levels at
+ * the quartiles of the values actually present in the journal, so the scale
+ * adapts to someone who writes once a week as well as to someone who writes ten
+ * times a day.
+ * <p>
+ * The colors are allocated once. Each scale precomputes a lookup table from value
+ * to color up to its highest cut point, so {@link #colorFor(int)} is a bounds
+ * check and an array read.
+ */
+public final class HeatmapScale {
+    private static final Color[] PALETTE = {
+        Color.WHITE,
+        new Color(198, 228, 139),
+        new Color(123, 201, 111),
+        new Color(35, 154, 59),
+        new Color(25, 97, 39)
+    };
+
+    /** The scale used before anything is known about the journal: 1, 2, 3, 4 and more. */
+    public static final HeatmapScale DEFAULT = new HeatmapScale(new int[] {1, 2, 3});
+
+    // Upper bounds of levels 1 to 3; anything above the last is level 4.
+    private final int[] cuts;
+    private final Color[] lut;
+
+    /**
+     * Constructs a scale from its cut points.
+     */
+    private HeatmapScale(int[] cuts) {
+        this.cuts = cuts;
+        this.lut = new Color[cuts[cuts.length - 1] + 2];
+        int level = 1;
+        lut[0] = PALETTE[0];
+        for (int value = 1; value < lut.length; value++) {
+            while (level <= cuts.length && value > cuts[level - 1]) {
+                level++;
+            }
+            lut[value] = PALETTE[level];
+        }
+    }
+
+    /**
+     * Builds a scale whose levels split the given values at their quartiles.
+     *
+     * @param values the non-zero day values; sorted in place
+     * @return the scale, or {@link #DEFAULT} if there are no values
+     */
+    public static HeatmapScale fromValues(int[] values) {
+        if (values.length == 0) {
+            return DEFAULT;
+        }
+        Arrays.sort(values);
+        int[] cuts = new int[PALETTE.length - 2];
+        for (int i = 0; i < cuts.length; i++) {
+            cuts[i] = values[(values.length - 1) * (i + 1) / (cuts.length + 1)];
+        }
+        return new HeatmapScale(cuts);
+    }
+
+    /**
+     * Returns the color of a day with the given value.
+     *
+     * @param value the day's value
+     * @return the cell color
+     */
+    public Color colorFor(int value) {
+        return lut[Math.min(Math.max(value, 0), lut.length - 1)];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HeatmapScale && Arrays.equals(cuts, ((HeatmapScale) o).cuts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cuts);
+    }
+}
@@ -1,4 +1,7 @@
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
@@ -13,25 +16,19 @@ public class JournalApp extends JFrame {
     private JournalEntryListPanel entryListPanel;
 
     /**
-     * Constructs the {@code JournalApp} and initializes the GUI components.
+     * Constructs the {@code JournalApp} over loaded managers and initializes the
+     * GUI components. Must be called on the event dispatch thread.
+     *
+     * @param journalManager the journal, with its entries loaded and tags manager attached
+     * @param tagsManager    the global tags
      */
-    public JournalApp() {
-        initializeManagers();
+    public JournalApp(JournalManager journalManager, TagsManager tagsManager) {
+        this.journalManager = journalManager;
+        this.tagsManager = tagsManager;
         initializeFrame();
         initializeComponents();
     }
 
-    /**
-     * Initializes the data managers.
-     */
-    private void initializeManagers() {
-        journalManager = new JournalManager("journal_entries.json");
-        journalManager.loadEntries();
-
-        tagsManager = new TagsManager("tags.json");
-        tagsManager.loadTags();
-    }
-
     /**
      * Initializes the main frame properties.
      */
@@ -40,6 +37,13 @@ public class JournalApp extends JFrame {
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         setSize(980, 600);
         setLocationRelativeTo(null);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Write out any batched tag changes before the application exits.
+                tagsManager.flush();
+            }
+        });
     }
 
     /**
@@ -53,6 +57,12 @@ public class JournalApp extends JFrame {
         mainPanel.add(createGraphPanel(), BorderLayout.NORTH);
         mainPanel.add(createEntryListPanel(), BorderLayout.CENTER);
         mainPanel.add(createButtonPanel(), BorderLayout.SOUTH);
+
+        // Clicking a heatmap cell filters the list to that day or week.
+        graphPanel.setDateRangeListener((from, to) -> {
+            entryListPanel.setDateRange(from, to);
+            entryListPanel.updateEntries();
+        });
     }
 
     /**
@@ -65,12 +75,13 @@ public class JournalApp extends JFrame {
     }
 
     /**
-     * Creates the graph panel for year overview.
+     * Creates the scrollable graph panel for the multi-year overview.
      */
-    private JournalGraphPanel createGraphPanel() {
+    private JScrollPane createGraphPanel() {
         graphPanel = new JournalGraphPanel(journalManager);
-        graphPanel.setPreferredSize(new Dimension(800, 200));
-        return graphPanel;
+        JScrollPane scrollPane = new JScrollPane(graphPanel);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        return scrollPane;
     }
 
     /**
@@ -85,25 +96,19 @@ public class JournalApp extends JFrame {
      * Creates the button panel with all action buttons.
      */
     private JournalButtonPanel createButtonPanel() {
-        return new JournalButtonPanel(this, journalManager, tagsManager, entryListPanel, graphPanel);
+        return new JournalButtonPanel(this, journalManager, tagsManager, entryListPanel);
     }
 
     /**
      * The main method to launch the application.
-     * It initializes the password manager and prompts the user for authentication.
+     * It starts loading the journal in the background and prompts the user for
+     * authentication meanwhile.
      *
      * @param args Command-line arguments (not used).
      */
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            PasswordManager passwordManager = new PasswordManager("password.json");
-            
-            if (JournalAuthentication.authenticate(passwordManager)) {
-                JournalApp app = new JournalApp();
-                app.setVisible(true);
-            } else {
-                System.exit(0);
-            }
-        });
+        StartupPipeline pipeline = new StartupPipeline(
+                "journal_entries.json", "tags.json", "password.json", new File("journal_content")).start();
+        SwingUtilities.invokeLater(pipeline::launch);
     }
 }
\ No newline at end of file
@@ -1,9 +1,27 @@
+import java.awt.BorderLayout;
+import java.awt.Frame;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import javax.crypto.SecretKey;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+import javax.swing.WindowConstants;
+import javax.swing.border.EmptyBorder;
 
 /**
  * Handles password setup and authentication for the journal application.
+ * Key derivation is deliberately slow, so it runs on a background worker while a
+ * progress dialog keeps the event dispatch thread responsive.
  */
 public class JournalAuthentication {
+    private static final Logger logger = Logger.getLogger(JournalAuthentication.class.getName());
     private static final int MAX_ATTEMPTS = 3;
 
     /**
@@ -15,12 +33,16 @@ public class JournalAuthentication {
 
     /**
      * Handles the complete authentication process including setup and login.
+     * The data key is handed over on the worker thread as soon as the password
+     * has been verified, so the journal can start loading while the progress
+     * dialog is still up.
      *
      * @param passwordManager The password manager instance
+     * @param onUnlock        receives the unwrapped data key, at most once
      * @return true if authentication was successful, false otherwise
      */
-    public static boolean authenticate(PasswordManager passwordManager) {
-        return handlePasswordSetup(passwordManager) && authenticateUser(passwordManager);
+    public static boolean authenticate(PasswordManager passwordManager, Consumer<SecretKey> onUnlock) {
+        return handlePasswordSetup(passwordManager) && authenticateUser(passwordManager, onUnlock);
     }
 
     /**
@@ -34,7 +56,11 @@ public class JournalAuthentication {
             PasswordDialog setDialog = new PasswordDialog(null, true);
             setDialog.setVisible(true);
             if (setDialog.isSucceeded()) {
-                passwordManager.setPassword(setDialog.getPassword());
+                String password = setDialog.getPassword();
+                runWithProgress("Securing password...", () -> {
+                    passwordManager.setPassword(password);
+                    return null;
+                });
                 return true;
             } else {
                 return false;
@@ -47,14 +73,17 @@ public class JournalAuthentication {
      * Authenticates the user with up to 3 password attempts.
      *
      * @param passwordManager The password manager instance
+     * @param onUnlock        receives the unwrapped data key
      * @return true if authentication was successful, false otherwise
      */
-    private static boolean authenticateUser(PasswordManager passwordManager) {
+    private static boolean authenticateUser(PasswordManager passwordManager, Consumer<SecretKey> onUnlock) {
         int attempts = 0;
         while (attempts < MAX_ATTEMPTS) {
             PasswordDialog loginDialog = new PasswordDialog(null, false);
             loginDialog.setVisible(true);
-            if (loginDialog.isSucceeded() && passwordManager.verifyPassword(loginDialog.getPassword())) {
+            String password = loginDialog.getPassword();
+            if (loginDialog.isSucceeded()
+                    && runWithProgress("Unlocking journal...", () -> unlock(passwordManager, password, onUnlock))) {
                 return true;
             }
             attempts++;
@@ -67,4 +96,68 @@ public class JournalAuthentication {
         JOptionPane.showMessageDialog(null, "Too many incorrect attempts. Exiting.");
         return false;
     }
+
+    /**
+     * Verifies the password and, if it matches, hands over the data key at once.
+     * Raising the work factor, if it has fallen behind, is another key derivation
+     * and a file write, so it runs on a thread of its own rather than holding up
+     * the login. Runs on the background worker.
+     */
+    private static boolean unlock(PasswordManager passwordManager, String password, Consumer<SecretKey> onUnlock) {
+        if (!passwordManager.verifyPassword(password)) {
+            return false;
+        }
+        onUnlock.accept(passwordManager.getDataKey());
+        CompletableFuture.runAsync(() -> passwordManager.rehashIfNeeded(password))
+                .exceptionally(error -> {
+                    logger.severe(String.format("Error re-hashing the password: %s", error.getMessage()));
+                    return null;
+                });
+        return true;
+    }
+
+    /**
+     * Runs a task on a background worker while a modal progress dialog is shown,
+     * and returns its result. The dialog's event loop keeps other events, such as
+     * building the main window, flowing on the event dispatch thread meanwhile.
+     */
+    private static <T> T runWithProgress(String message, Supplier<T> task) {
+        JDialog dialog = new JDialog((Frame) null, "Daily Journal", true);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        JProgressBar spinner = new JProgressBar();
+        spinner.setIndeterminate(true);
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel(message), BorderLayout.NORTH);
+        panel.add(spinner, BorderLayout.CENTER);
+        dialog.setContentPane(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(null);
+
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return task.get();
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+            }
+        };
+        worker.execute();
+        // done() is delivered on this thread, so it cannot dispose the dialog before it is shown.
+        dialog.setVisible(true);
+        try {
+            return worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while deriving the key", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 }
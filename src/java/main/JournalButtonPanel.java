@@ -1,15 +1,25 @@
 import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import javax.swing.*;
 
 /**
  * Panel that contains all the action buttons for the journal application.
+ * Changes go through the {@link JournalManager}, whose change events keep the
+ * entry list and heatmap current, so the handlers never refresh views themselves.
+ * Undo and Redo, also bound to Ctrl+Z and Ctrl+Y, step through the journal's
+ * history and are enabled only when there is something to step to.
  */
 public class JournalButtonPanel extends JPanel {
+    private static final String UNREADABLE_ENTRY_MESSAGE = "This entry cannot be decrypted.";
+
     private final transient JournalManager journalManager;
     private final transient TagsManager tagsManager;
     private final JournalEntryListPanel entryListPanel;
-    private final JournalGraphPanel graphPanel;
     private final JFrame parentFrame;
+    private JButton undoButton;
+    private JButton redoButton;
 
     /**
      * Constructs a new JournalButtonPanel.
@@ -18,16 +28,13 @@ public class JournalButtonPanel extends JPanel {
      * @param journalManager The journal manager
      * @param tagsManager The tags manager
      * @param entryListPanel The entry list panel
-     * @param graphPanel The graph panel
      */
     public JournalButtonPanel(JFrame parentFrame, JournalManager journalManager, 
-                              TagsManager tagsManager, JournalEntryListPanel entryListPanel, 
-                              JournalGraphPanel graphPanel) {
+                              TagsManager tagsManager, JournalEntryListPanel entryListPanel) {
         this.parentFrame = parentFrame;
         this.journalManager = journalManager;
         this.tagsManager = tagsManager;
         this.entryListPanel = entryListPanel;
-        this.graphPanel = graphPanel;
         
         initializeButtons();
     }
@@ -40,10 +47,31 @@ public class JournalButtonPanel extends JPanel {
 
         add(createFilterButton());
         add(createManageTagsButton());
+        add(createStatisticsButton());
         add(createViewEntryButton());
         add(createAddEntryButton());
         add(createEditEntryButton());
         add(createDeleteEntryButton());
+        add(createUndoButton());
+        add(createRedoButton());
+
+        bindKey(KeyEvent.VK_Z, "undo", this::handleUndoAction);
+        bindKey(KeyEvent.VK_Y, "redo", this::handleRedoAction);
+        journalManager.addChangeListener(events -> updateHistoryButtons());
+        updateHistoryButtons();
+    }
+
+    /**
+     * Binds Ctrl plus a key, anywhere in the window, to an action.
+     */
+    private void bindKey(int keyCode, String name, Runnable action) {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyCode, InputEvent.CTRL_DOWN_MASK), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
     }
 
     /**
@@ -64,6 +92,15 @@ public class JournalButtonPanel extends JPanel {
         return manageTagsButton;
     }
 
+    /**
+     * Creates the statistics button.
+     */
+    private JButton createStatisticsButton() {
+        JButton statisticsButton = new JButton("Statistics");
+        statisticsButton.addActionListener(e -> handleStatisticsAction());
+        return statisticsButton;
+    }
+
     /**
      * Creates the view entry button.
      */
@@ -100,6 +137,32 @@ public class JournalButtonPanel extends JPanel {
         return deleteEntryButton;
     }
 
+    /**
+     * Creates the undo button.
+     */
+    private JButton createUndoButton() {
+        undoButton = new JButton("Undo");
+        undoButton.addActionListener(e -> handleUndoAction());
+        return undoButton;
+    }
+
+    /**
+     * Creates the redo button.
+     */
+    private JButton createRedoButton() {
+        redoButton = new JButton("Redo");
+        redoButton.addActionListener(e -> handleRedoAction());
+        return redoButton;
+    }
+
+    /**
+     * Enables the undo and redo buttons according to the journal's history.
+     */
+    private void updateHistoryButtons() {
+        undoButton.setEnabled(journalManager.canUndo());
+        redoButton.setEnabled(journalManager.canRedo());
+    }
+
     /**
      * Handles the filter button action.
      */
@@ -135,6 +198,14 @@ public class JournalButtonPanel extends JPanel {
         dialog.setVisible(true);
     }
 
+    /**
+     * Handles the statistics button action.
+     */
+    private void handleStatisticsAction() {
+        StatisticsDialog dialog = new StatisticsDialog(parentFrame, journalManager);
+        dialog.setVisible(true);
+    }
+
     /**
      * Handles the view entry button action.
      */
@@ -144,7 +215,13 @@ public class JournalButtonPanel extends JPanel {
             JOptionPane.showMessageDialog(parentFrame, "Please select an entry to view.");
             return;
         }
-        ViewEntryDialog dialog = new ViewEntryDialog(parentFrame, selectedEntry);
+        ViewEntryDialog dialog;
+        try {
+            dialog = new ViewEntryDialog(parentFrame, selectedEntry);
+        } catch (JournalCipher.DecryptionException e) {
+            JOptionPane.showMessageDialog(parentFrame, UNREADABLE_ENTRY_MESSAGE);
+            return;
+        }
         dialog.setVisible(true);
     }
 
@@ -157,8 +234,7 @@ public class JournalButtonPanel extends JPanel {
         if (dialog.isSucceeded()) {
             JournalEntry newEntry = dialog.getJournalEntry();
             journalManager.addEntry(newEntry);
-            journalManager.saveEntries();
-            refreshViews();
+            journalManager.saveChanges();
         }
     }
 
@@ -172,15 +248,18 @@ public class JournalButtonPanel extends JPanel {
             return;
         }
         
-        int index = journalManager.getEntries().indexOf(selectedEntry);
-        if (index != -1) {
-            EditEntryDialog dialog = new EditEntryDialog(parentFrame, selectedEntry, tagsManager);
-            dialog.setVisible(true);
-            if (dialog.isSucceeded()) {
-                JournalEntry editedEntry = dialog.getJournalEntry();
-                journalManager.getEntries().set(index, editedEntry);
-                journalManager.saveEntries();
-                refreshViews();
+        EditEntryDialog dialog;
+        try {
+            dialog = new EditEntryDialog(parentFrame, selectedEntry, tagsManager);
+        } catch (JournalCipher.DecryptionException e) {
+            JOptionPane.showMessageDialog(parentFrame, UNREADABLE_ENTRY_MESSAGE);
+            return;
+        }
+        dialog.setVisible(true);
+        if (dialog.isSucceeded()) {
+            JournalEntry editedEntry = dialog.getJournalEntry();
+            if (journalManager.updateEntry(selectedEntry, editedEntry)) {
+                journalManager.saveChanges();
             }
         }
     }
@@ -199,17 +278,27 @@ public class JournalButtonPanel extends JPanel {
             "Are you sure you want to delete this entry?",
             "Confirm Delete", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            journalManager.getEntries().remove(selectedEntry);
-            journalManager.saveEntries();
-            refreshViews();
+            if (journalManager.removeEntry(selectedEntry)) {
+                journalManager.saveChanges();
+            }
         }
     }
 
     /**
-     * Refreshes both the entry list and graph panel.
+     * Handles the undo button action.
      */
-    private void refreshViews() {
-        entryListPanel.updateEntries();
-        graphPanel.repaint();
+    private void handleUndoAction() {
+        if (journalManager.undo()) {
+            journalManager.saveChanges();
+        }
+    }
+
+    /**
+     * Handles the redo button action.
+     */
+    private void handleRedoAction() {
+        if (journalManager.redo()) {
+            journalManager.saveChanges();
+        }
     }
 }
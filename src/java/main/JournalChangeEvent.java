@@ -0,0 +1,185 @@
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The {@code JournalChangeEvent} class describes one mutation of a
+ * {@link JournalManager}, carrying enough of the old and new state that a view
+ * can patch itself without rescanning the journal.
+ * <p>
+ * Entries are identified by ordinal, their position in the journal at the time of
+ * the change. Removal moves the last entry into the vacated slot, so a
+ * {@link Type#REMOVED} event also names the moved entry and its former ordinal.
+ * Events are delivered after the fact, in order, and each is stamped with the
+ * journal version it produced, so a view that already reflects a later version
+ * can skip it.
+ */
+public final class JournalChangeEvent {
+    /** The kind of mutation. */
+    public enum Type {
+        /** An entry was appended at {@link #getOrdinal()}. */
+        ADDED,
+        /** The entry at {@link #getOrdinal()} was replaced by an edited version. */
+        UPDATED,
+        /** The entry at {@link #getOrdinal()} was removed, possibly moving another into its slot. */
+        REMOVED,
+        /** Tags were renamed or merged; the rewritten entries have their own {@link #UPDATED} events. */
+        TAG_RENAMED,
+        /** Too much changed to describe; views should rebuild from the journal. */
+        BULK
+    }
+
+    private final Type type;
+    private final long version;
+    private final int ordinal;
+    private final JournalEntry oldEntry;
+    private final JournalEntry newEntry;
+    private final JournalEntry movedEntry;
+    private final int movedFrom;
+    private final Set<String> sourceTags;
+    private final String targetTag;
+
+    private JournalChangeEvent(Type type, long version, int ordinal, JournalEntry oldEntry,
+                               JournalEntry newEntry, JournalEntry movedEntry, int movedFrom,
+                               Set<String> sourceTags, String targetTag) {
+        this.type = type;
+        this.version = version;
+        this.ordinal = ordinal;
+        this.oldEntry = oldEntry;
+        this.newEntry = newEntry;
+        this.movedEntry = movedEntry;
+        this.movedFrom = movedFrom;
+        this.sourceTags = sourceTags;
+        this.targetTag = targetTag;
+    }
+
+    /**
+     * Creates an event for an appended entry.
+     *
+     * @param version the journal version after the change
+     * @param entry   the new entry
+     * @param ordinal the entry's ordinal
+     * @return the event
+     */
+    public static JournalChangeEvent added(long version, JournalEntry entry, int ordinal) {
+        return new JournalChangeEvent(Type.ADDED, version, ordinal, null, entry, null, -1,
+                Collections.emptySet(), null);
+    }
+
+    /**
+     * Creates an event for an entry replaced in place.
+     *
+     * @param version     the journal version after the change
+     * @param previous    the entry before the change
+     * @param replacement the entry after the change
+     * @param ordinal     the ordinal both occupy
+     * @return the event
+     */
+    public static JournalChangeEvent updated(long version, JournalEntry previous,
+                                             JournalEntry replacement, int ordinal) {
+        return new JournalChangeEvent(Type.UPDATED, version, ordinal, previous, replacement, null, -1,
+                Collections.emptySet(), null);
+    }
+
+    /**
+     * Creates an event for a removed entry.
+     *
+     * @param version   the journal version after the change
+     * @param removed   the entry that was removed
+     * @param ordinal   the ordinal it occupied
+     * @param moved     the entry moved into that ordinal, or {@code null} if it was the last
+     * @param movedFrom the former ordinal of {@code moved}, or -1
+     * @return the event
+     */
+    public static JournalChangeEvent removed(long version, JournalEntry removed, int ordinal,
+                                             JournalEntry moved, int movedFrom) {
+        return new JournalChangeEvent(Type.REMOVED, version, ordinal, removed, null, moved, movedFrom,
+                Collections.emptySet(), null);
+    }
+
+    /**
+     * Creates an event for tags folded into another tag.
+     *
+     * @param version the journal version after the change
+     * @param sources the tags that no longer exist
+     * @param target  the tag that replaced them
+     * @return the event
+     */
+    public static JournalChangeEvent tagRenamed(long version, Set<String> sources, String target) {
+        return new JournalChangeEvent(Type.TAG_RENAMED, version, -1, null, null, null, -1,
+                Collections.unmodifiableSet(sources), target);
+    }
+
+    /**
+     * Creates an event for a wholesale change such as a reload.
+     *
+     * @param version the journal version after the change
+     * @return the event
+     */
+    public static JournalChangeEvent bulk(long version) {
+        return new JournalChangeEvent(Type.BULK, version, -1, null, null, null, -1,
+                Collections.emptySet(), null);
+    }
+
+    /**
+     * Gets the kind of mutation.
+     *
+     * @return the event type
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the journal version the mutation produced.
+     *
+     * @return the version
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Gets the ordinal of the added, updated or removed entry.
+     *
+     * @return the ordinal, or -1 for tag and bulk events
+     */
+    public int getOrdinal() { return ordinal; }
+
+    /**
+     * Gets the entry as it was before an update or removal.
+     *
+     * @return the old entry, or {@code null}
+     */
+    public JournalEntry getOldEntry() { return oldEntry; }
+
+    /**
+     * Gets the entry as it is after an addition or update.
+     *
+     * @return the new entry, or {@code null}
+     */
+    public JournalEntry getNewEntry() { return newEntry; }
+
+    /**
+     * Gets the entry a removal moved into the vacated ordinal.
+     *
+     * @return the moved entry, or {@code null}
+     */
+    public JournalEntry getMovedEntry() { return movedEntry; }
+
+    /**
+     * Gets the ordinal the moved entry had before the removal.
+     *
+     * @return the former ordinal, or -1
+     */
+    public int getMovedFrom() { return movedFrom; }
+
+    /**
+     * Gets the tags a rename folded away.
+     *
+     * @return the source tags, empty for other events
+     */
+    public Set<String> getSourceTags() { return sourceTags; }
+
+    /**
+     * Gets the tag a rename folded into.
+     *
+     * @return the target tag, or {@code null}
+     */
+    public String getTargetTag() { return targetTag; }
+}
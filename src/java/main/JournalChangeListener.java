@@ -0,0 +1,18 @@
+import java.util.List;
+
+/**
+ * The {@code JournalChangeListener} interface receives the changes made to a
+ * {@link JournalManager}. Changes are batched: everything published during one
+ * turn of the event dispatch thread arrives in a single call, on that thread.
+ */
+@FunctionalInterface
+public interface JournalChangeListener {
+
+    /**
+     * Called with the changes made since the previous call, oldest first.
+     *
+     * @param events the changes; a {@link JournalChangeEvent.Type#BULK} event
+     *               replaces anything published before it
+     */
+    void journalChanged(List<JournalChangeEvent> events);
+}
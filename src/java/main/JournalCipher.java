@@ -0,0 +1,243 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The {@code JournalCipher} class encrypts journal records at rest with AES-GCM
+ * under the journal's data key. Each block is sealed on its own with a fresh
+ * random nonce, and bound to a context string such as {@code "<id>/meta"} as
+ * additional authenticated data, so a block cannot be moved to another record or
+ * field without failing authentication. Sealed blocks are Base64 text holding the
+ * nonce followed by the ciphertext and tag.
+ * <p>
+ * Encryption goes through the JCE, so the platform's AES and GHASH intrinsics
+ * apply. {@code Cipher} objects are not thread-safe; each thread gets its own, so
+ * one {@code JournalCipher} can decrypt many blocks in parallel.
+ */
+public class JournalCipher {
+    private static final String KEY_ALGORITHM = "AES";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    /** Length of the data key, in bits. */
+    private static final int KEY_LENGTH = 256;
+    /** Length of the random per-block nonce, in bytes. */
+    private static final int NONCE_LENGTH = 12;
+    /** Length of the authentication tag, in bits. */
+    private static final int TAG_LENGTH = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKey key;
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(JournalCipher::newCipher);
+
+    /** Content kept sealed until it is read; immutable and safe to share between entries. */
+    public static final class SealedContent {
+        private final JournalCipher cipher;
+        private final String context;
+        // Exactly one of the two holds the sealed text.
+        private final String sealed;
+        private final ContentStore.Ref ref;
+
+        private SealedContent(JournalCipher cipher, String context, String sealed, ContentStore.Ref ref) {
+            this.cipher = cipher;
+            this.context = context;
+            this.sealed = sealed;
+            this.ref = ref;
+        }
+
+        /**
+         * Decrypts the content.
+         *
+         * @return the plaintext
+         * @throws DecryptionException if the block fails authentication
+         */
+        public String read() {
+            return cipher.open(getSealedText(), context);
+        }
+
+        /**
+         * Returns the sealed block, as it is written to disk.
+         *
+         * @return the Base64 text of the block
+         */
+        public String getSealedText() {
+            return ref != null ? ref.read() : sealed;
+        }
+
+        /**
+         * Tells whether the content was sealed under the given cipher's key, and
+         * so can be written again without re-encrypting.
+         *
+         * @param other the cipher a record is being written with
+         * @return {@code true} if the sealed text can be reused
+         */
+        public boolean isSealedBy(JournalCipher other) {
+            return cipher == other;
+        }
+
+        /**
+         * Returns the reference to the sealed text in a {@link ContentStore}.
+         *
+         * @return the reference, or {@code null} if the sealed text is on the heap
+         */
+        public ContentStore.Ref getRef() {
+            return ref;
+        }
+
+        /**
+         * Returns the same content with its sealed text kept in a store.
+         *
+         * @param storedRef where the sealed text was stored
+         * @return the stored copy
+         */
+        public SealedContent withRef(ContentStore.Ref storedRef) {
+            return new SealedContent(cipher, context, null, storedRef);
+        }
+    }
+
+    /**
+     * Thrown when a block cannot be decrypted: the key is wrong, or the block was
+     * altered, truncated or moved.
+     */
+    public static class DecryptionException extends RuntimeException {
+        public DecryptionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Constructs a cipher over a data key.
+     *
+     * @param key the AES data key
+     */
+    public JournalCipher(SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Generates a new random data key.
+     *
+     * @return the key
+     */
+    public static SecretKey generateKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance(KEY_ALGORITHM);
+            generator.init(KEY_LENGTH, RANDOM);
+            return generator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
+
+    /**
+     * Wraps raw key bytes, such as an unwrapped data key, as an AES key.
+     *
+     * @param encoded the key bytes
+     * @return the key
+     */
+    public static SecretKey keyOf(byte[] encoded) {
+        return new SecretKeySpec(encoded, KEY_ALGORITHM);
+    }
+
+    /**
+     * Encrypts text into a sealed block.
+     *
+     * @param plaintext the text to encrypt; {@code null} is sealed as empty
+     * @param context   the record and field the block belongs to
+     * @return the Base64 text of the block
+     */
+    public String seal(String plaintext, String context) {
+        byte[] data = (plaintext != null ? plaintext : "").getBytes(StandardCharsets.UTF_8);
+        return Base64.getEncoder().encodeToString(sealBytes(data, context));
+    }
+
+    /**
+     * Decrypts a sealed block.
+     *
+     * @param sealed  the Base64 text of the block
+     * @param context the record and field the block was sealed for
+     * @return the plaintext
+     * @throws DecryptionException if the block fails authentication
+     */
+    public String open(String sealed, String context) {
+        byte[] block;
+        try {
+            block = Base64.getDecoder().decode(sealed);
+        } catch (IllegalArgumentException e) {
+            throw new DecryptionException("Malformed block: " + context, e);
+        }
+        return new String(openBytes(block, context), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns content that is decrypted each time it is read.
+     *
+     * @param sealed  the Base64 text of the block
+     * @param context the record and field the block was sealed for
+     * @return the sealed content
+     */
+    public SealedContent sealedContent(String sealed, String context) {
+        return new SealedContent(this, context, sealed, null);
+    }
+
+    /**
+     * Encrypts bytes into a block of nonce, ciphertext and tag.
+     *
+     * @param data    the bytes to encrypt
+     * @param context the additional authenticated data
+     * @return the block
+     */
+    public byte[] sealBytes(byte[] data, String context) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        Cipher cipher = ciphers.get();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, nonce));
+            cipher.updateAAD(context.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer block = ByteBuffer.allocate(NONCE_LENGTH + cipher.getOutputSize(data.length));
+            block.put(nonce);
+            cipher.doFinal(ByteBuffer.wrap(data), block);
+            return block.array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error encrypting block: " + context, e);
+        }
+    }
+
+    /**
+     * Decrypts a block of nonce, ciphertext and tag.
+     *
+     * @param block   the block
+     * @param context the additional authenticated data it was sealed with
+     * @return the plaintext bytes
+     * @throws DecryptionException if the block fails authentication
+     */
+    public byte[] openBytes(byte[] block, String context) {
+        if (block.length < NONCE_LENGTH + TAG_LENGTH / 8) {
+            throw new DecryptionException("Truncated block: " + context, null);
+        }
+        Cipher cipher = ciphers.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, block, 0, NONCE_LENGTH));
+            cipher.updateAAD(context.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(block, NONCE_LENGTH, block.length - NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new DecryptionException("Error decrypting block: " + context, e);
+        }
+    }
+
+    /**
+     * Creates the per-thread JCE cipher.
+     */
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+        }
+    }
+}
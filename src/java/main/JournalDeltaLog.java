@@ -0,0 +1,127 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * The {@code JournalDeltaLog} class is the incremental storage path for journal
+ * entries. Instead of rewriting the whole journal file after every change, the
+ * records that changed are appended to a sidecar log, one compact JSON object per
+ * line: either a full entry (an insert or a new version of an existing id) or a
+ * tombstone of the form {@code {"id": "...", "deleted": "true"}}. How an entry is
+ * turned into a record and back, for instance sealed or in plaintext, is up to
+ * the caller.
+ * <p>
+ * On load the log is replayed over the base file; a full save folds it back in
+ * and deletes it.
+ */
+public class JournalDeltaLog {
+    private static final Logger logger = Logger.getLogger(JournalDeltaLog.class.getName());
+    private static final String DELETED_KEY = "deleted";
+
+    private final File file;
+    private int records;
+
+    /**
+     * Constructs a {@code JournalDeltaLog} stored alongside the given journal file.
+     *
+     * @param journalFilePath the path of the base journal file
+     */
+    public JournalDeltaLog(String journalFilePath) {
+        this.file = new File(journalFilePath + ".log");
+    }
+
+    /**
+     * Returns the number of records appended since the log was last cleared,
+     * including those found when it was last replayed.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Appends the given changes. A {@code null} value records a deletion of
+     * that id; any other value is the entry's latest version.
+     *
+     * @param changes the changed entries keyed by id
+     * @param encoder turns an entry into its record
+     * @return {@code true} if the records were written
+     */
+    public boolean append(Map<String, JournalEntry> changes, Function<JournalEntry, JSONObject> encoder) {
+        if (changes.isEmpty()) {
+            return true;
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, JournalEntry> change : changes.entrySet()) {
+                JSONObject record;
+                if (change.getValue() == null) {
+                    record = new JSONObject();
+                    record.put("id", change.getKey());
+                    record.put(DELETED_KEY, "true");
+                } else {
+                    record = encoder.apply(change.getValue());
+                }
+                writer.write(record.toString());
+                writer.write('\n');
+            }
+            records += changes.size();
+            return true;
+        } catch (IOException e) {
+            logger.severe(String.format("Error appending to journal log: %s - %s", file, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Reads every record in the log, in the order they were written, and hands
+     * each one to the matching callback.
+     *
+     * @param decoder turns an entry record back into an entry, or returns {@code null} to skip it
+     * @param upsert  receives every entry record
+     * @param delete  receives the id of every tombstone record
+     */
+    public void replay(Function<JSONObject, JournalEntry> decoder, Consumer<JournalEntry> upsert,
+                       Consumer<String> delete) {
+        records = 0;
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JSONObject record = new JSONObject(line);
+                if ("true".equals(record.getString(DELETED_KEY))) {
+                    delete.accept(record.getString("id"));
+                } else {
+                    JournalEntry entry = decoder.apply(record);
+                    if (entry != null) {
+                        upsert.accept(entry);
+                    }
+                }
+                records++;
+            }
+        } catch (Exception e) {
+            // A torn final line from an interrupted append is dropped; earlier records still apply.
+            logger.warning(String.format("Error replaying journal log: %s - %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Deletes the log once its records have been folded into the base file.
+     */
+    public void clear() {
+        records = 0;
+        if (file.exists() && !file.delete()) {
+            logger.warning(String.format("Could not delete journal log: %s", file));
+        }
+    }
+}
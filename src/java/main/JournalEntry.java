@@ -1,18 +1,36 @@
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * The {@code JournalEntry} class represents a single entry in the journal.
  * It includes details such as the title, date, location, tags, and content
  * of the journal entry, and provides methods for JSON serialization and deserialization.
+ * <p>
+ * Every entry carries a stable identifier that survives edits, so storage and
+ * indexes can refer to "the same entry" across its successive versions.
+ * Tags are held as a canonical {@link TagSet}, shared by every entry with the
+ * same tags and never modified in place.
+ * <p>
+ * An entry's content may live in a {@link ContentStore} instead of on the heap;
+ * see {@link #withStoredContent(ContentStore.Ref)}. In an encrypted journal it
+ * may instead stay sealed until read; see
+ * {@link #fromMetadataJson(JSONObject, JournalCipher.SealedContent)}.
+ * {@link #getContent()} reads it back transparently in both cases.
  */
 public class JournalEntry {
+    private final String id;
     private final String title;
     private final LocalDate date;
     private final String location;
-    private final List<String> tags;
+    private final TagSet tags;
+    // Null when the content lives in a ContentStore or is sealed.
     private final String content;
+    private final ContentStore.Ref contentRef;
+    private final JournalCipher.SealedContent sealedContent;
+    // Computed on first use; -1 until then.
+    private int wordCount = -1;
 
     /**
      * Constructs a new {@code JournalEntry}.
@@ -25,16 +43,58 @@ public class JournalEntry {
      * @throws IllegalArgumentException if date is null
      */
     public JournalEntry(String title, LocalDate date, String location, List<String> tags, String content) {
+        this(null, title, date, location, tags, content);
+    }
+
+    /**
+     * Constructs a {@code JournalEntry} with a known identifier, typically a new
+     * version of an existing entry.
+     *
+     * @param id       the stable identifier of the entry, or {@code null} to generate one
+     * @param title    the title of the journal entry
+     * @param date     the date of the journal entry
+     * @param location the location associated with the journal entry
+     * @param tags     a list of tags for the journal entry
+     * @param content  the content of the journal entry
+     * @throws IllegalArgumentException if date is null
+     */
+    public JournalEntry(String id, String title, LocalDate date, String location, List<String> tags, String content) {
         if (date == null) {
             throw new IllegalArgumentException("Date cannot be null");
         }
+        this.id = id != null && !id.isEmpty() ? id : UUID.randomUUID().toString();
         this.title = title;
         this.date = date;
         this.location = location;
-        this.tags = tags != null ? new ArrayList<>(tags) : new ArrayList<>();
+        this.tags = TagSet.of(tags);
+        this.content = content;
+        this.contentRef = null;
+        this.sealedContent = null;
+    }
+
+    /**
+     * Constructs a copy of {@code source} with different tags and content storage.
+     */
+    private JournalEntry(JournalEntry source, List<String> tags, String content, ContentStore.Ref contentRef,
+                         JournalCipher.SealedContent sealedContent) {
+        this.id = source.id;
+        this.title = source.title;
+        this.date = source.date;
+        this.location = source.location;
+        this.tags = TagSet.of(tags);
         this.content = content;
+        this.contentRef = contentRef;
+        this.sealedContent = sealedContent;
+        this.wordCount = source.wordCount;
     }
 
+    /**
+     * Gets the stable identifier of the journal entry.
+     *
+     * @return the entry identifier
+     */
+    public String getId() { return id; }
+
     /**
      * Gets the title of the journal entry.
      *
@@ -57,9 +117,9 @@ public class JournalEntry {
     public String getLocation() { return location; }
 
     /**
-     * Gets the tags associated with the journal entry.
+     * Gets the tags associated with the journal entry, as a shared read-only set.
      *
-     * @return a list of tags for the journal entry
+     * @return an unmodifiable list of the entry's distinct tags
      */
     public List<String> getTags() { return tags; }
 
@@ -68,7 +128,104 @@ public class JournalEntry {
      *
      * @return the content of the journal entry
      */
-    public String getContent() { return content; }
+    public String getContent() {
+        if (sealedContent != null) {
+            return sealedContent.read();
+        }
+        return contentRef != null ? contentRef.read() : content;
+    }
+
+    /**
+     * Tells whether the content lives in a {@link ContentStore}.
+     *
+     * @return {@code true} if the entry holds only a reference to its content
+     */
+    public boolean isContentStored() { return contentRef != null; }
+
+    /**
+     * Returns the reference to the stored content.
+     *
+     * @return the reference, or {@code null} if the content is held in memory
+     */
+    public ContentStore.Ref getContentRef() { return contentRef; }
+
+    /**
+     * Tells whether the content is kept encrypted and decrypted on each read.
+     *
+     * @return {@code true} if the entry holds only the sealed content
+     */
+    public boolean isContentSealed() { return sealedContent != null; }
+
+    /**
+     * Returns the sealed content.
+     *
+     * @return the sealed content, or {@code null} if the content is not sealed
+     */
+    public JournalCipher.SealedContent getSealedContent() { return sealedContent; }
+
+    /**
+     * Gets the number of whitespace-separated words in the content.
+     *
+     * @return the word count of the journal entry, or 0 if its content cannot be decrypted
+     */
+    public int getWordCount() {
+        if (wordCount == -1) {
+            String content;
+            try {
+                content = getContent();
+            } catch (JournalCipher.DecryptionException e) {
+                // An entry that cannot be decrypted counts as empty rather than breaking the statistics.
+                content = null;
+            }
+            int words = 0;
+            boolean inWord = false;
+            for (int i = 0; content != null && i < content.length(); i++) {
+                boolean space = Character.isWhitespace(content.charAt(i));
+                if (!space && !inWord) {
+                    words++;
+                }
+                inWord = !space;
+            }
+            wordCount = words;
+        }
+        return wordCount;
+    }
+
+    /**
+     * Returns a copy of this entry, with the same identifier, carrying the given tags.
+     *
+     * @param newTags the tags of the copy
+     * @return the re-tagged entry
+     */
+    public JournalEntry withTags(List<String> newTags) {
+        return new JournalEntry(this, newTags, content, contentRef, sealedContent);
+    }
+
+    /**
+     * Returns a copy of this entry, with the same identifier, whose content is
+     * read from a store. The word count is computed first, so indexing the copy
+     * does not read the content back.
+     *
+     * @param ref where the content of this entry was stored
+     * @return the copy holding only the reference
+     */
+    public JournalEntry withStoredContent(ContentStore.Ref ref) {
+        getWordCount();
+        return new JournalEntry(this, tags, null, ref, null);
+    }
+
+    /**
+     * Returns a copy of this entry, with the same identifier, whose content is
+     * kept sealed. The word count is computed first, so indexing the copy does
+     * not decrypt the content.
+     *
+     * @param sealed the sealed form of this entry's content
+     * @return the copy holding only the sealed content
+     */
+    public JournalEntry withSealedContent(JournalCipher.SealedContent sealed) {
+        getWordCount();
+        return new JournalEntry(this, tags, null, null, sealed);
+    }
 
     /**
      * Converts the journal entry to a JSON object.
@@ -77,14 +234,52 @@ public class JournalEntry {
      */
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
+        json.put("id", id);
         json.put("title", title != null ? title : "");
         json.put("date", date != null ? date.toString() : "");
         json.put("location", location != null ? location : "");
-        json.put("tags", tags != null ? tags : new ArrayList<>());
-        json.put("content", content != null ? content : "");
+        json.put("tags", tags);
+        String text = getContent();
+        json.put("content", text != null ? text : "");
         return json;
     }
 
+    /**
+     * Converts everything but the content to a JSON object, with the word count
+     * in its place, so that views can be built without reading the content.
+     *
+     * @return a {@code JSONObject} of the entry's metadata
+     */
+    public JSONObject toMetadataJson() {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("title", title != null ? title : "");
+        json.put("date", date != null ? date.toString() : "");
+        json.put("location", location != null ? location : "");
+        json.put("tags", tags);
+        json.put("words", getWordCount());
+        return json;
+    }
+
+    /**
+     * Creates a {@code JournalEntry} from its metadata and sealed content, as
+     * written by {@link #toMetadataJson()}. The content is not decrypted.
+     *
+     * @param json    the {@code JSONObject} of the entry's metadata
+     * @param content the sealed content
+     * @return a {@code JournalEntry} holding the sealed content
+     * @throws IllegalArgumentException if json is null or missing required fields
+     */
+    public static JournalEntry fromMetadataJson(JSONObject json, JournalCipher.SealedContent content) {
+        JournalEntry metadata = fromJson(json);
+        JournalEntry entry = new JournalEntry(metadata, metadata.tags, null, null, content);
+        String words = json.getString("words");
+        if (words != null) {
+            entry.wordCount = Integer.parseInt(words);
+        }
+        return entry;
+    }
+
     /**
      * Creates a {@code JournalEntry} object from a JSON object.
      *
@@ -115,6 +310,6 @@ public class JournalEntry {
             }
         }
         String content = json.getString("content");
-        return new JournalEntry(title, date, location, tags, content);
+        return new JournalEntry(json.getString("id"), title, date, location, tags, content);
     }
 }
\ No newline at end of file
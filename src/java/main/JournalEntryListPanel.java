@@ -1,18 +1,35 @@
 import java.awt.BorderLayout;
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
 import javax.swing.*;
 
 /**
  * Panel that manages the display and filtering of journal entries in a list.
+ * The list follows the journal by itself: it listens for change events and
+ * patches only the affected rows.
+ * <p>
+ * A filter whose result is not cached is evaluated by a {@link QueryStream} on a
+ * background worker. The first page of results replaces the list as soon as it is
+ * found, later pages are appended, and a progress bar shows while the query runs.
+ * Changing the filters again cancels the running query.
  */
 public class JournalEntryListPanel extends JPanel {
+    private static final Logger logger = Logger.getLogger(JournalEntryListPanel.class.getName());
+    private static final int FIRST_PAGE_SIZE = 100;
+    private static final int PAGE_SIZE = 2000;
+
     private final transient JournalManager journalManager;
-    private final DefaultListModel<JournalEntry> entriesModel;
+    private final EntryListModel entriesModel;
     private final JList<JournalEntry> entriesList;
+    private final JProgressBar busyIndicator = new JProgressBar();
+    private transient SwingWorker<QueryStream, long[]> queryWorker;
     
     private String currentTagFilter = null;
     private String currentLocationFilter = null;
+    private LocalDate currentFromDate = null;
+    private LocalDate currentToDate = null;
 
     /**
      * Constructs a new JournalEntryListPanel.
@@ -21,11 +38,12 @@ public class JournalEntryListPanel extends JPanel {
      */
     public JournalEntryListPanel(JournalManager journalManager) {
         this.journalManager = journalManager;
-        this.entriesModel = new DefaultListModel<>();
+        this.entriesModel = new EntryListModel(journalManager);
         this.entriesList = new JList<>(entriesModel);
         
         initializeComponents();
         refreshEntries();
+        journalManager.addChangeListener(this::journalChanged);
     }
 
     /**
@@ -35,10 +53,15 @@ public class JournalEntryListPanel extends JPanel {
         setLayout(new BorderLayout());
         
         entriesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        entriesList.setCellRenderer(new JournalEntryRenderer());
+        // Fixed cell sizes keep layout proportional to the visible rows only.
+        new JournalEntryRenderer().install(entriesList);
         
         JScrollPane scrollPane = new JScrollPane(entriesList);
         add(scrollPane, BorderLayout.CENTER);
+
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setVisible(false);
+        add(busyIndicator, BorderLayout.SOUTH);
     }
 
     /**
@@ -57,31 +80,137 @@ public class JournalEntryListPanel extends JPanel {
         refreshEntries();
     }
 
+    /**
+     * Tells whether a query is running in the background.
+     *
+     * @return {@code true} while results are still being streamed
+     */
+    public boolean isQueryRunning() {
+        return queryWorker != null;
+    }
+
     /**
      * Internal method to refresh entries (safe to call from constructor).
+     * A result still valid in the journal's query cache is swapped in at once;
+     * anything else is filtered off the event dispatch thread.
      */
     private void refreshEntries() {
-        entriesModel.clear();
-        List<JournalEntry> sortedEntries = new ArrayList<>(journalManager.getEntries());
-        sortedEntries.sort((a, b) -> b.getDate().compareTo(a.getDate()));
+        cancelQuery();
+        JournalQuery query = currentQuery();
+        int[] cached = journalManager.getQueryCache().get(query, journalManager.getVersion());
+        if (cached != null) {
+            entriesModel.setView(cached);
+            return;
+        }
+        startQuery(query);
+    }
+
+    /**
+     * Streams a query's results into the list from a background worker.
+     */
+    private void startQuery(JournalQuery query) {
+        busyIndicator.setVisible(true);
+        queryWorker = new SwingWorker<QueryStream, long[]>() {
+            private volatile long streamVersion;
+            private boolean firstShown;
+
+            @Override
+            protected QueryStream doInBackground() {
+                QueryStream stream = journalManager.streamQuery(query);
+                streamVersion = stream.getVersion();
+                int pageSize = FIRST_PAGE_SIZE;
+                long[] page;
+                while (!isCancelled() && (page = stream.nextPage(pageSize)) != null) {
+                    publish(page);
+                    pageSize = PAGE_SIZE;
+                }
+                return stream;
+            }
+
+            @Override
+            protected void process(List<long[]> pages) {
+                if (queryWorker != this) {
+                    return;
+                }
+                for (long[] page : pages) {
+                    entriesModel.showPage(page, !firstShown, streamVersion);
+                    firstShown = true;
+                }
+            }
 
-        for (JournalEntry entry : sortedEntries) {
-            if (matchesFilters(entry)) {
-                entriesModel.addElement(entry);
+            @Override
+            protected void done() {
+                if (queryWorker != this || isCancelled()) {
+                    return;
+                }
+                queryWorker = null;
+                busyIndicator.setVisible(false);
+                QueryStream stream;
+                try {
+                    stream = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    logger.severe(String.format("Error filtering journal entries: %s", e.getCause()));
+                    return;
+                }
+                if (stream.isStale() || stream.getVersion() != journalManager.getVersion()) {
+                    // The journal changed under the query; its events were not applied, so start over.
+                    refreshEntries();
+                    return;
+                }
+                entriesModel.finishView(stream.getKeys(), stream.getResult(), stream.getVersion());
             }
+        };
+        queryWorker.execute();
+    }
+
+    /**
+     * Stops the running query, if any, and ignores its remaining results.
+     */
+    private void cancelQuery() {
+        if (queryWorker != null) {
+            queryWorker.cancel(true);
+            queryWorker = null;
+            busyIndicator.setVisible(false);
         }
     }
 
     /**
-     * Checks if an entry matches the current filters.
+     * Applies a batch of journal changes to the list. Single-entry changes patch
+     * their rows; a bulk change rebuilds the view, and a rename of the tag being
+     * filtered on moves the filter to the new name.
+     */
+    private void journalChanged(List<JournalChangeEvent> events) {
+        for (JournalChangeEvent event : events) {
+            switch (event.getType()) {
+                case BULK:
+                    refreshEntries();
+                    break;
+                case TAG_RENAMED:
+                    if (event.getSourceTags().contains(currentTagFilter)) {
+                        currentTagFilter = event.getTargetTag();
+                        refreshEntries();
+                    }
+                    break;
+                default:
+                    // A running query notices the change itself and starts over.
+                    if (queryWorker == null) {
+                        entriesModel.apply(event, currentQuery());
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Builds the normalized query for the current filters.
      *
-     * @param entry The entry to check
-     * @return true if the entry matches all active filters
+     * @return the query matching all active filters
      */
-    private boolean matchesFilters(JournalEntry entry) {
-        boolean tagOk = (currentTagFilter == null || entry.getTags().contains(currentTagFilter));
-        boolean locationOk = (currentLocationFilter == null || entry.getLocation().equals(currentLocationFilter));
-        return tagOk && locationOk;
+    private JournalQuery currentQuery() {
+        return JournalQuery.of(currentTagFilter, currentLocationFilter, currentFromDate, currentToDate);
     }
 
     /**
@@ -102,11 +231,24 @@ public class JournalEntryListPanel extends JPanel {
         this.currentLocationFilter = locationFilter;
     }
 
+    /**
+     * Sets the current date range filter. Both bounds are inclusive.
+     *
+     * @param from The earliest date to show, or null for no lower bound
+     * @param to   The latest date to show, or null for no upper bound
+     */
+    public void setDateRange(LocalDate from, LocalDate to) {
+        this.currentFromDate = from;
+        this.currentToDate = to;
+    }
+
     /**
      * Clears all filters.
      */
     public void clearFilters() {
         this.currentTagFilter = null;
         this.currentLocationFilter = null;
+        this.currentFromDate = null;
+        this.currentToDate = null;
     }
 }
@@ -1,21 +1,74 @@
 import java.awt.Component;
+import java.lang.ref.WeakReference;
 import java.time.format.DateTimeFormatter;
 import javax.swing.*;
 
 /**
  * Custom cell renderer for displaying journal entries in a list.
  * Formats entries to show date and title together.
+ * <p>
+ * The display string of each entry is built once and cached by entry id. Entries
+ * are immutable, so an edit stores a new {@code JournalEntry} under the same id;
+ * the cached string is reused only while it was built from that very instance.
+ * A label refers to its entry only weakly, so deleted and replaced entries, and
+ * any content they hold on the heap, are not kept alive by the cache. Together
+ * with the fixed cell height set by {@link #install(JList)}, painting and
+ * scrolling a list does not allocate strings. The labels count against the
+ * budget of the default {@link CacheManager}.
  */
 public class JournalEntryRenderer extends DefaultListCellRenderer {
+    private static final int CACHE_CAPACITY = 4096;
+    /** Shedding weight; a label is rebuilt from its entry with one format call. */
+    private static final int CACHE_WEIGHT = 1;
+    private static final String PROTOTYPE_LABEL = "0000-00-00 - Title";
+
     private final transient DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final transient SizedLruCache<String, Label> labels =
+            new SizedLruCache<>("Entry labels", CACHE_CAPACITY, CACHE_WEIGHT, false, label -> 2L * label.text.length());
+
+    /** A display string and the entry version it was built from. */
+    private static final class Label {
+        private final WeakReference<JournalEntry> entry;
+        private final String text;
+
+        Label(JournalEntry entry, String text) {
+            this.entry = new WeakReference<>(entry);
+            this.text = text;
+        }
+    }
+
+    /**
+     * Sets this renderer on a list and gives the list a fixed cell height,
+     * measured once from a prototype row. The width is left to the list, so long
+     * titles still widen it and bring up a horizontal scrollbar.
+     *
+     * @param list the list to render
+     */
+    public void install(JList<JournalEntry> list) {
+        list.setCellRenderer(this);
+        Component prototype = super.getListCellRendererComponent(list, PROTOTYPE_LABEL, 0, false, false);
+        list.setFixedCellHeight(prototype.getPreferredSize().height);
+    }
 
     @Override
     public Component getListCellRendererComponent(JList<?> list, Object value, int index,
                                                   boolean isSelected, boolean cellHasFocus) {
         if (value instanceof JournalEntry) {
-            JournalEntry entry = (JournalEntry) value;
-            value = entry.getDate().format(formatter) + " - " + entry.getTitle();
+            value = labelFor((JournalEntry) value);
         }
         return super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
     }
+
+    /**
+     * Returns the cached display string of an entry, building it if the entry is
+     * new or was edited since.
+     */
+    private String labelFor(JournalEntry entry) {
+        Label label = labels.get(entry.getId());
+        if (label == null || label.entry.get() != entry) {
+            label = new Label(entry, entry.getDate().format(formatter) + " - " + entry.getTitle());
+            labels.put(entry.getId(), label);
+        }
+        return label.text;
+    }
 }
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@code JournalEventBus} class delivers {@link JournalChangeEvent}s from a
+ * {@link JournalManager} to its {@link JournalChangeListener}s.
+ * <p>
+ * Publishing only queues the event. The first event of a burst schedules one
+ * delivery on the event dispatch thread, and everything published until it runs
+ * is handed to each listener as one list, so a loop of edits costs the views one
+ * update. A {@link JournalChangeEvent.Type#BULK} event discards whatever is queued
+ * before it, and a batch that grows past {@link #MAX_BATCH} events collapses into
+ * a single bulk event, since rebuilding is then cheaper than patching.
+ */
+public class JournalEventBus {
+    private static final Logger logger = Logger.getLogger(JournalEventBus.class.getName());
+    /** Largest batch delivered as individual events. */
+    static final int MAX_BATCH = 512;
+
+    private final List<JournalChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private List<JournalChangeEvent> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(JournalChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(JournalChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues an event for delivery on the event dispatch thread. May be called
+     * from any thread.
+     *
+     * @param event the change to publish
+     */
+    public void publish(JournalChangeEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (event.getType() == JournalChangeEvent.Type.BULK || pending.size() >= MAX_BATCH) {
+                pending.clear();
+                event = JournalChangeEvent.bulk(event.getVersion());
+            } else if (!pending.isEmpty() && pending.get(0).getType() == JournalChangeEvent.Type.BULK) {
+                // Once a rebuild is due, later events only advance its version.
+                pending.set(0, JournalChangeEvent.bulk(event.getVersion()));
+                return;
+            }
+            pending.add(event);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
+    }
+
+    /**
+     * Delivers the queued events now. Must be called on the event dispatch
+     * thread; the scheduled delivery then finds nothing to do.
+     */
+    public void flush() {
+        List<JournalChangeEvent> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = Collections.unmodifiableList(pending);
+            pending = new ArrayList<>();
+        }
+        for (JournalChangeListener listener : listeners) {
+            try {
+                listener.journalChanged(batch);
+            } catch (RuntimeException e) {
+                logger.severe(String.format("Journal change listener failed: %s - %s", listener, e.getMessage()));
+            }
+        }
+    }
+}
@@ -1,19 +1,88 @@
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 
 /**
- * The {@code JournalGraphPanel} class creates a panel that visualizes journal entries 
- * as a heatmap-style calendar. Each cell represents a day, and the color intensity 
+ * The {@code JournalGraphPanel} class creates a panel that visualizes journal entries
+ * as a heatmap-style calendar. Each cell represents a day, and the color intensity
  * indicates the number of entries for that day.
+ * <p>
+ * Every year from the first journal entry to the current year is shown as one row,
+ * newest first, so the panel is meant to sit in a {@link JScrollPane}. Holding Ctrl
+ * while turning the mouse wheel zooms the cells.
+ * <p>
+ * Each row is a {@link YearTile} rendered from the journal's {@link DayIndex} and kept
+ * in a {@link YearTileCache}; painting copies the visible tiles to the screen. A tile
+ * is only touched again when its year's stamp changes, and then only the changed
+ * cells are redrawn. Tiles for the years just outside the viewport are rendered
+ * ahead of time on a background thread so scrolling does not stall.
+ * <p>
+ * Cells are colored by a {@link HeatmapScale} fitted to the quartiles of the values
+ * in the journal, and rebuilt only when the day index changes. The right-click menu
+ * switches between entries per day and words per day. Once the visible tiles are
+ * current, a repaint only copies images and allocates nothing.
+ * <p>
+ * Hovering over a cell shows the day's entry count and first titles; clicking a cell
+ * reports that day, or its whole week with Shift held, to the date range listener.
+ * The cell under the mouse is found arithmetically from the grid geometry, and the
+ * day's entries come from the {@link DayIndex} buckets, so mouse motion never scans
+ * the journal.
+ * <p>
+ * The panel listens for journal change events and repaints only the cells of the
+ * days an edit touched, unless the edit changed the color scale or the year range.
  */
-public class JournalGraphPanel extends JPanel {
+public class JournalGraphPanel extends JPanel implements Scrollable {
     private final transient JournalManager journalManager;
-    private Map<LocalDate, Integer> dateEntryCount;
-    private static final int CELL_SIZE = 15;
-    private static final int CELL_PADDING = 3;
+    private static final int DEFAULT_CELL_SIZE = 15;
+    private static final int MIN_CELL_SIZE = 6;
+    private static final int MAX_CELL_SIZE = 30;
+    private static final int LABEL_WIDTH = 44;
+    private static final int ROW_GAP = 10;
+    private static final int TOOLTIP_TITLES = 3;
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    private static final ExecutorService PREFETCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "JournalGraphPanel-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final transient YearTileCache tiles = new YearTileCache();
+    private final Set<Integer> pendingPrefetch = new HashSet<>();
+    private int cellSize = DEFAULT_CELL_SIZE;
+    private DayIndex.Metric metric = DayIndex.Metric.ENTRIES;
+    private transient HeatmapScale scale = HeatmapScale.DEFAULT;
+    private int latestYear;
+    private long nextYearMillis;
+    private int laidOutFirstYear;
+    // Day index stamp the scale and row tiles were last checked against.
+    private long validatedStamp = -1;
+    // Current tiles and labels of the rows last painted, indexed by row; null when unknown.
+    private transient YearTile[] rowTiles = new YearTile[0];
+    private String[] rowLabels = new String[0];
+    private int prefetchedFirstRow = -1;
+    private int prefetchedLastRow = -1;
+    private final Rectangle clipRect = new Rectangle();
+    private final Rectangle visibleRect = new Rectangle();
+    private transient BiConsumer<LocalDate, LocalDate> dateRangeListener;
+
+    // The last tooltip, reused while the mouse stays on the same cell.
+    private long tooltipDay = NO_DAY;
+    private long tooltipVersion = -1;
+    private String tooltipText;
+    private final int[] tooltipOrdinals = new int[TOOLTIP_TITLES];
 
     /**
      * Constructs a {@code JournalGraphPanel} with the given {@code JournalManager}.
@@ -22,24 +91,31 @@ public class JournalGraphPanel extends JPanel {
      */
     public JournalGraphPanel(JournalManager manager) {
         this.journalManager = manager;
-        computeEntryCounts();
+        this.latestYear = currentYear();
+        this.laidOutFirstYear = firstYear();
+        addMouseWheelListener(this::handleMouseWheel);
+        setComponentPopupMenu(createMetricMenu());
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                handleClick(e);
+            }
+        });
+        ToolTipManager.sharedInstance().registerComponent(this);
+        manager.addChangeListener(this::journalChanged);
     }
 
     /**
-     * Computes the number of journal entries for each date and stores the results in a map.
-     * This method iterates through all journal entries provided by the {@code JournalManager}
-     * and counts the occurrences for each date.
+     * Sets the callback invoked with an inclusive date range when a cell is clicked.
+     *
+     * @param listener receives the first and last day of the selection, or {@code null}
      */
-    private void computeEntryCounts() {
-        dateEntryCount = new HashMap<>();
-        for (JournalEntry entry : journalManager.getEntries()) {
-            LocalDate date = entry.getDate();
-            dateEntryCount.put(date, dateEntryCount.getOrDefault(date, 0) + 1);
-        }
+    public void setDateRangeListener(BiConsumer<LocalDate, LocalDate> listener) {
+        this.dateRangeListener = listener;
     }
 
     /**
-     * Paints the heatmap-style calendar on the panel. Each cell represents a day of the year,
+     * Paints the visible years of the heatmap. Each cell represents a day,
      * and its color intensity corresponds to the number of journal entries for that day.
      *
      * @param g the {@code Graphics} object used for painting
@@ -47,56 +123,443 @@ public class JournalGraphPanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        computeEntryCounts();
-        Graphics2D g2d = (Graphics2D) g;
-        LocalDate today = LocalDate.now();
-        int year = today.getYear();
-        LocalDate startDate = LocalDate.of(year, 1, 1);
-
-        int x = 0;
-        int y = startDate.getDayOfWeek().getValue() % 7;
-        LocalDate date = startDate;
-        while (date.getYear() == year) {
-            int count = dateEntryCount.getOrDefault(date, 0);
-            Color color = getColorForCount(count);
-            g2d.setColor(color);
-            int drawX = x * (CELL_SIZE + CELL_PADDING);
-            int drawY = y * (CELL_SIZE + CELL_PADDING);
-            g2d.fillRect(drawX, drawY, CELL_SIZE, CELL_SIZE);
-            g2d.setColor(Color.LIGHT_GRAY);
-            g2d.drawRect(drawX, drawY, CELL_SIZE, CELL_SIZE);
-            date = date.plusDays(1);
-            y++;
-            if (y > 6) {
-                y = 0;
-                x++;
+        validateRows();
+
+        clipRect.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(clipRect);
+        int rowHeight = rowHeight();
+        int rows = rowTiles.length;
+        int firstRow = Math.max(0, clipRect.y / rowHeight);
+        int lastRow = Math.min(rows - 1, (clipRect.y + clipRect.height) / rowHeight);
+        int labelOffset = (YearTile.height(cellSize, padding()) + getFontMetrics(getFont()).getAscent()) / 2;
+        g.setColor(getForeground());
+        for (int row = firstRow; row <= lastRow; row++) {
+            YearTile tile = rowTiles[row];
+            if (tile == null) {
+                tile = tileFor(latestYear - row);
+                rowTiles[row] = tile;
+            }
+            int top = row * rowHeight;
+            g.drawString(rowLabels[row], 0, top + labelOffset);
+            g.drawImage(tile.getImage(), LABEL_WIDTH, top, null);
+        }
+
+        computeVisibleRect(visibleRect);
+        int visibleFirstRow = visibleRect.y / rowHeight;
+        int visibleLastRow = (visibleRect.y + visibleRect.height) / rowHeight;
+        if (visibleFirstRow != prefetchedFirstRow || visibleLastRow != prefetchedLastRow) {
+            prefetchedFirstRow = visibleFirstRow;
+            prefetchedLastRow = visibleLastRow;
+            // Only visible rows are held strongly; the rest live in the soft cache.
+            for (int row = 0; row < rows; row++) {
+                if (row < visibleFirstRow || row > visibleLastRow) {
+                    rowTiles[row] = null;
+                }
             }
+            if (visibleFirstRow > 0) {
+                prefetch(latestYear - visibleFirstRow + 1);
+            }
+            if (visibleLastRow + 1 < rows) {
+                prefetch(latestYear - visibleLastRow - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the quantity the cells currently show.
+     *
+     * @return the heatmap metric
+     */
+    public DayIndex.Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Sets the quantity the cells show and re-renders the heatmap.
+     *
+     * @param newMetric the heatmap metric
+     */
+    public void setMetric(DayIndex.Metric newMetric) {
+        if (newMetric != metric) {
+            metric = newMetric;
+            invalidateTiles();
+        }
+    }
+
+    /**
+     * Returns the side of a day cell in pixels.
+     *
+     * @return the current cell size
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Sets the side of a day cell in pixels, clamped to the supported zoom range,
+     * and re-renders the heatmap at that size.
+     *
+     * @param size the requested cell size
+     */
+    public void setCellSize(int size) {
+        int clamped = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, size));
+        if (clamped != cellSize) {
+            cellSize = clamped;
+            invalidateTiles();
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        int rows = latestYear - firstYear() + 1;
+        return new Dimension(LABEL_WIDTH + YearTile.width(cellSize, padding()), rows * rowHeight());
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(LABEL_WIDTH + YearTile.width(cellSize, padding()), rowHeight());
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cellSize + padding();
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight() : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Returns the bounds of a day's cell in panel coordinates.
+     *
+     * @param date the day
+     * @return the cell rectangle, or {@code null} if the day's year is not shown
+     */
+    Rectangle cellBounds(LocalDate date) {
+        int row = latestYear - date.getYear();
+        if (row < 0 || date.getYear() < firstYear()) {
+            return null;
+        }
+        int step = cellSize + padding();
+        int slot = firstWeekday(date.getYear()) + date.getDayOfYear() - 1;
+        return new Rectangle(LABEL_WIDTH + (slot / 7) * step, row * rowHeight() + (slot % 7) * step,
+                cellSize, cellSize);
+    }
+
+    /**
+     * Returns the day under a point, as an epoch day, by inverting the grid layout.
+     *
+     * @param x the x coordinate in the panel
+     * @param y the y coordinate in the panel
+     * @return the epoch day of the cell, or {@code Long.MIN_VALUE} if the point is
+     *         not over a day cell
+     */
+    long epochDayAt(int x, int y) {
+        int step = cellSize + padding();
+        int px = x - LABEL_WIDTH;
+        if (px < 0 || y < 0) {
+            return NO_DAY;
         }
+        int rowHeight = rowHeight();
+        int py = y % rowHeight;
+        int column = px / step;
+        int weekday = py / step;
+        if (px % step >= cellSize || py % step >= cellSize
+                || weekday > 6 || column >= YearTile.WEEK_COLUMNS) {
+            return NO_DAY;
+        }
+        int year = latestYear - y / rowHeight;
+        if (year < firstYear()) {
+            return NO_DAY;
+        }
+        int day = column * 7 + weekday - firstWeekday(year);
+        if (day < 0 || day >= (Year.isLeap(year) ? 366 : 365)) {
+            return NO_DAY;
+        }
+        return januaryFirst(year) + day;
     }
 
     /**
-     * Determines the color to use for a cell based on the number of journal entries for that day.
-     * The color intensity increases with the number of entries.
+     * Describes the day under the mouse. The text is rebuilt only when the mouse
+     * reaches another cell or the journal changed.
      *
-     * @param count the number of journal entries for the day
-     * @return the {@code Color} corresponding to the entry count
-     */
-    private Color getColorForCount(int count) {
-        Color color;
-        switch (count) {
-            case 0:
-                color = Color.WHITE;
-                break;
-            case 1:
-                color = new Color(198, 228, 139);
-                break;
-            case 2:
-                color = new Color(123, 201, 111);
-                break;
-            default:
-                color = new Color(35, 154, 59);
-                break;
-        }
-        return color;
-    }
-}
\ No newline at end of file
+     * @param e the mouse event
+     * @return the tooltip text, or {@code null} outside the day cells
+     */
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        long day = epochDayAt(e.getX(), e.getY());
+        if (day == NO_DAY) {
+            return null;
+        }
+        if (day != tooltipDay || journalManager.getVersion() != tooltipVersion) {
+            tooltipDay = day;
+            tooltipVersion = journalManager.getVersion();
+            tooltipText = describeDay(LocalDate.ofEpochDay(day));
+        }
+        return tooltipText;
+    }
+
+    /**
+     * Builds the tooltip for a day from its bucket in the day index.
+     */
+    private String describeDay(LocalDate date) {
+        DayIndex dayIndex = journalManager.getDayIndex();
+        int count = dayIndex.ordinalsOn(date, tooltipOrdinals);
+        int words = dayIndex.yearValues(date.getYear(), DayIndex.Metric.WORDS)[date.getDayOfYear() - 1];
+        StringBuilder text = new StringBuilder("<html><b>").append(date).append("</b>: ")
+                .append(count).append(count == 1 ? " entry" : " entries");
+        if (count > 0) {
+            text.append(", ").append(words).append(words == 1 ? " word" : " words");
+        }
+        for (int i = 0; i < Math.min(count, TOOLTIP_TITLES); i++) {
+            text.append("<br>").append(escapeHtml(journalManager.getEntryAt(tooltipOrdinals[i]).getTitle()));
+        }
+        if (count > TOOLTIP_TITLES) {
+            text.append("<br><i>and ").append(count - TOOLTIP_TITLES).append(" more</i>");
+        }
+        return text.append("</html>").toString();
+    }
+
+    /**
+     * Reports the clicked day, or its Sunday-to-Saturday week with Shift held.
+     */
+    private void handleClick(MouseEvent e) {
+        long day = epochDayAt(e.getX(), e.getY());
+        if (day == NO_DAY || dateRangeListener == null) {
+            return;
+        }
+        LocalDate date = LocalDate.ofEpochDay(day);
+        if (e.isShiftDown()) {
+            LocalDate sunday = date.minusDays(date.getDayOfWeek().getValue() % 7L);
+            dateRangeListener.accept(sunday, sunday.plusDays(6));
+        } else {
+            dateRangeListener.accept(date, date);
+        }
+    }
+
+    /**
+     * Repaints the cells of the days a batch of changes touched. If the batch
+     * moved the quartile cuts or added a year, every cell may change and the
+     * whole panel is repainted.
+     */
+    private void journalChanged(List<JournalChangeEvent> events) {
+        HeatmapScale previousScale = scale;
+        int previousFirstYear = laidOutFirstYear;
+        validateRows();
+        if (!scale.equals(previousScale) || laidOutFirstYear != previousFirstYear) {
+            repaint();
+            return;
+        }
+        for (JournalChangeEvent event : events) {
+            if (event.getType() == JournalChangeEvent.Type.BULK) {
+                repaint();
+                return;
+            }
+            repaintDay(event.getOldEntry());
+            repaintDay(event.getNewEntry());
+        }
+    }
+
+    /**
+     * Repaints the cell of an entry's day, if the entry and its row exist.
+     */
+    private void repaintDay(JournalEntry entry) {
+        if (entry != null) {
+            Rectangle cell = cellBounds(entry.getDate());
+            if (cell != null) {
+                repaint(cell);
+            }
+        }
+    }
+
+    /**
+     * Brings the year range, color scale, and row arrays up to date. When the day
+     * index has not changed since the last call, this only compares two numbers.
+     */
+    private void validateRows() {
+        if (System.currentTimeMillis() >= nextYearMillis) {
+            latestYear = currentYear();
+            nextYearMillis = LocalDate.of(latestYear + 1, 1, 1)
+                    .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            validatedStamp = -1;
+        }
+        DayIndex dayIndex = journalManager.getDayIndex();
+        long stamp = dayIndex.getStamp();
+        if (stamp == validatedStamp) {
+            return;
+        }
+        validatedStamp = stamp;
+        scale = HeatmapScale.fromValues(dayIndex.nonZeroValues(metric));
+        int first = firstYear();
+        if (first != laidOutFirstYear) {
+            // A new earliest year adds rows; let the scroll pane pick up the new size.
+            laidOutFirstYear = first;
+            revalidate();
+        }
+        int rows = latestYear - first + 1;
+        if (rowLabels.length != rows || !rowLabels[0].equals(Integer.toString(latestYear))) {
+            rowTiles = new YearTile[rows];
+            rowLabels = new String[rows];
+            for (int row = 0; row < rows; row++) {
+                rowLabels[row] = Integer.toString(latestYear - row);
+            }
+        } else {
+            Arrays.fill(rowTiles, null);
+        }
+        prefetchedFirstRow = -1;
+        prefetchedLastRow = -1;
+    }
+
+    /**
+     * Drops every rendered tile, after the cell size or metric changed.
+     */
+    private void invalidateTiles() {
+        tiles.clear();
+        validatedStamp = -1;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns an up-to-date tile for a year, rendering or patching it as needed.
+     */
+    private YearTile tileFor(int year) {
+        DayIndex dayIndex = journalManager.getDayIndex();
+        long stamp = dayIndex.yearStamp(year);
+        int[] values = dayIndex.yearValues(year, metric);
+        YearTile tile = tiles.get(year);
+        if (tile == null || tile.getCellSize() != cellSize) {
+            tile = new YearTile(year, values, stamp, scale, cellSize, padding());
+            tiles.put(tile);
+        } else if (tile.getStamp() != stamp || !tile.getScale().equals(scale)) {
+            tile.update(values, stamp, scale);
+        }
+        return tile;
+    }
+
+    /**
+     * Renders a year's tile on the background thread unless a current one is cached.
+     * The counts are copied here, on the event dispatch thread, so the worker never
+     * reads the live index.
+     */
+    private void prefetch(int year) {
+        long stamp = journalManager.getDayIndex().yearStamp(year);
+        YearTile cached = tiles.get(year);
+        if ((cached != null && cached.getCellSize() == cellSize && cached.getStamp() == stamp)
+                || !pendingPrefetch.add(year)) {
+            return;
+        }
+        int[] values = journalManager.getDayIndex().yearValues(year, metric).clone();
+        HeatmapScale tileScale = scale;
+        DayIndex.Metric tileMetric = metric;
+        int size = cellSize;
+        int pad = padding();
+        PREFETCHER.execute(() -> {
+            YearTile tile = new YearTile(year, values, stamp, tileScale, size, pad);
+            SwingUtilities.invokeLater(() -> {
+                pendingPrefetch.remove(year);
+                // Drop the tile if the zoom or metric changed or the year was painted
+                // meanwhile; a stale stamp or scale is fine, since tileFor patches it.
+                if (size == cellSize && tileMetric == metric && tiles.get(year) == null) {
+                    tiles.put(tile);
+                }
+            });
+        });
+    }
+
+    /**
+     * Creates the right-click menu that picks the heatmap metric.
+     */
+    private JPopupMenu createMetricMenu() {
+        JPopupMenu menu = new JPopupMenu();
+        ButtonGroup group = new ButtonGroup();
+        JRadioButtonMenuItem entriesItem = new JRadioButtonMenuItem("Entries per day", true);
+        entriesItem.addActionListener(e -> setMetric(DayIndex.Metric.ENTRIES));
+        JRadioButtonMenuItem wordsItem = new JRadioButtonMenuItem("Words per day");
+        wordsItem.addActionListener(e -> setMetric(DayIndex.Metric.WORDS));
+        group.add(entriesItem);
+        group.add(wordsItem);
+        menu.add(entriesItem);
+        menu.add(wordsItem);
+        return menu;
+    }
+
+    /**
+     * Zooms on Ctrl+wheel and hands every other wheel event to the enclosing scroll pane.
+     */
+    private void handleMouseWheel(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+            setCellSize(cellSize - e.getWheelRotation());
+        } else if (getParent() != null) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+        }
+    }
+
+    /**
+     * Returns the gap between cells for the current cell size.
+     */
+    private int padding() {
+        return Math.max(1, cellSize / 5);
+    }
+
+    /**
+     * Returns the height of one year row including the gap below it.
+     */
+    private int rowHeight() {
+        return YearTile.height(cellSize, padding()) + ROW_GAP;
+    }
+
+    /**
+     * Returns the current year, which is the newest year shown.
+     */
+    private static int currentYear() {
+        return LocalDate.now().getYear();
+    }
+
+    /**
+     * Returns the oldest year shown.
+     */
+    private int firstYear() {
+        return journalManager.getDayIndex().firstYear(latestYear);
+    }
+
+    /**
+     * Returns the epoch day of January 1st of a year, computed without allocating.
+     */
+    private static long januaryFirst(int year) {
+        long before = year - 1L;
+        return 365L * (year - 1970)
+                + Math.floorDiv(before, 4) - Math.floorDiv(before, 100) + Math.floorDiv(before, 400)
+                - (1969 / 4 - 1969 / 100 + 1969 / 400);
+    }
+
+    /**
+     * Returns the row of January 1st, with Sunday as row 0.
+     */
+    private static int firstWeekday(int year) {
+        // 1970-01-01 was a Thursday.
+        return (int) Math.floorMod(januaryFirst(year) + 4, 7L);
+    }
+
+    /**
+     * Escapes the characters that would be read as markup in an HTML tooltip.
+     */
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -1,16 +1,140 @@
 import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 /**
- * The {@code JournalManager} class manages a collection of journal entries, allowing for 
- * adding, loading, and saving entries. Entries are stored in a JSON format within a 
- * specified file. 
+ * The {@code JournalManager} class manages a collection of journal entries, allowing for
+ * adding, loading, and saving entries. Entries are stored in a JSON format within a
+ * specified file.
+ * <p>
+ * All changes go through the mutation methods ({@link #addEntry}, {@link #updateEntry},
+ * {@link #removeEntry}, {@link #removeTagFromEntries}, {@link #mergeTags}) so that the
+ * per-tag posting lists, and the usage counts of an attached {@link TagsManager}, stay
+ * current without rescanning the journal. Changed records are remembered until the
+ * next save: {@link #saveChanges()} appends only those records to a
+ * {@link JournalDeltaLog}, while {@link #saveEntries()} rewrites the whole file.
+ * <p>
+ * Every mutation increments a modification version. Filter results are served by
+ * {@link #query(JournalQuery)} from a {@link QueryCache} keyed by the query and that
+ * version, so repeating a recent filter does not rescan the journal.
+ * <p>
+ * The mutation methods and query evaluation synchronize on the manager, so a
+ * {@link QueryStream} can filter on a background thread between edits. Entries are
+ * held in a {@link PersistentVector}, and every completed mutation publishes a new
+ * {@link JournalSnapshot} through a volatile reference: {@link #getSnapshot()},
+ * {@link #getEntries()}, {@link #getEntryAt(int)}, {@link #getEntryCount()} and
+ * {@link #getVersion()} never lock, never block behind a writer, and never observe
+ * a half-applied change. The day, activity and tag indexes are not snapshotted;
+ * read them on the event dispatch thread or while holding the manager's lock.
+ * <p>
+ * Because snapshots share structure, each mutation is also recorded for
+ * {@link #undo()} and {@link #redo()} as the snapshots before and after it plus
+ * the ids it changed. A step costs only the trie nodes the mutation copied, so
+ * the history is unlimited until the journal is reloaded.
+ * <p>
+ * Views learn about mutations from {@link JournalChangeEvent}s published through a
+ * {@link JournalEventBus}; see {@link #addChangeListener(JournalChangeListener)}.
+ * <p>
+ * A manager created with columnar metadata also keeps an {@link EntryColumns}
+ * store, and evaluates queries over its primitive columns rather than the entry
+ * objects.
+ * <p>
+ * With a {@link ContentStore} attached, entries read from disk keep their content
+ * in memory-mapped segments rather than on the heap. Entries added or edited
+ * during the session keep theirs in memory until the journal is next loaded, so
+ * callers always get back the very entry objects they stored. Full saves compact
+ * the store once most of it is garbage.
+ * <p>
+ * With a {@link JournalCipher} attached, the journal file and its log hold sealed
+ * records: a small metadata block with everything but the content, including the
+ * word count, and a separate content block, each encrypted with AES-GCM and bound
+ * to the entry's id. Loading decrypts the metadata blocks in parallel; content
+ * stays sealed, in the content store if there is one, and is decrypted only when
+ * read. An incremental save encrypts just the changed records, and a full save
+ * reuses the sealed content of unchanged entries. Plaintext records found while
+ * loading are encrypted by the next save. If any record cannot be decrypted,
+ * saving is refused until the journal is reloaded, so the unreadable records are
+ * never overwritten.
+ * <p>
+ * Queries are resolved over the decrypted metadata held in memory, in the tag
+ * postings and the columns, so filtering an encrypted journal costs the same as
+ * a plaintext one and never decrypts content. No searchable tokens are written
+ * next to the sealed records: they would only repeat what the in-memory indexes
+ * already provide, and would show anyone holding the file which records share a
+ * tag, location or date.
  */
 public class JournalManager {
     private static final Logger logger = Logger.getLogger(JournalManager.class.getName());
-    private final List<JournalEntry> entries;
+    /** Log records tolerated before an incremental save compacts into a full rewrite. */
+    private static final int MIN_COMPACTION_THRESHOLD = 1_000;
+    /** Context suffixes binding sealed blocks to their entry and field. */
+    private static final String META_CONTEXT = "/meta";
+    private static final String BODY_CONTEXT = "/body";
+
+    // Guarded by this; readers outside the lock use the published snapshot.
+    private PersistentVector<JournalEntry> entries;
+    // The same entries keyed by id, guarded by this.
+    private PersistentHashMap<String, JournalEntry> byId;
+    // Entry id -> position in entries.
+    private final Map<String, Integer> positions;
+    // Tag -> ids of the entries carrying it, in insertion order.
+    private final Map<String, Set<String>> tagPostings;
+    // Entry id -> latest version (null when deleted) not yet written to disk.
+    private final Map<String, JournalEntry> pendingChanges;
     private final String filePath;
+    private final JournalDeltaLog deltaLog;
+    private final QueryCache queryCache;
+    private final DayIndex dayIndex;
+    private final ActivityIndex activityIndex;
+    // Null unless the manager was created with columnar metadata.
+    private final EntryColumns columns;
+    private final JournalEventBus eventBus;
+    // Events of the mutation in progress, published by commit().
+    private final List<JournalChangeEvent> uncommitted = new ArrayList<>();
+    // Ids changed by the mutation in progress, recorded as a history step by commit().
+    private final Set<String> touched = new LinkedHashSet<>();
+    private final Deque<HistoryStep> undoStack = new ArrayDeque<>();
+    private final Deque<HistoryStep> redoStack = new ArrayDeque<>();
+    // Set while undo or redo replays a step, which must not record a new one.
+    private boolean restoring;
+    private TagsManager tagsManager;
+    private ContentStore contentStore;
+    // Null for a plaintext journal.
+    private JournalCipher cipher;
+    // Set when records could not be decrypted; saving would destroy them.
+    private boolean unreadable;
+    // Incremented by every mutation; identifies the state query results were computed from.
+    private long version;
+    // The state after the last completed mutation, for lock-free readers.
+    private volatile JournalSnapshot snapshot = JournalSnapshot.EMPTY;
+    // Set when the base file must be rewritten before deltas can refer to it.
+    private boolean fullSaveRequired;
+
+    /** One undoable mutation: the journal before and after it and the ids it changed. */
+    private static final class HistoryStep {
+        private final JournalSnapshot before;
+        private final JournalSnapshot after;
+        private final Set<String> ids;
+
+        HistoryStep(JournalSnapshot before, JournalSnapshot after, Set<String> ids) {
+            this.before = before;
+            this.after = after;
+            this.ids = ids;
+        }
+    }
 
     /**
      * Constructs a {@code JournalManager} with the specified file path.
@@ -18,38 +142,537 @@ public class JournalManager {
      * @param filePath the path to the file where journal entries are stored
      */
     public JournalManager(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a {@code JournalManager}, optionally keeping entry metadata in
+     * {@link EntryColumns} so that filtering scans primitive arrays.
+     *
+     * @param filePath         the path to the file where journal entries are stored
+     * @param columnarMetadata {@code true} to maintain the columnar store
+     */
+    public JournalManager(String filePath, boolean columnarMetadata) {
         this.filePath = filePath;
-        entries = new ArrayList<>();
+        columns = columnarMetadata ? new EntryColumns() : null;
+        entries = PersistentVector.empty();
+        byId = PersistentHashMap.empty();
+        positions = new HashMap<>();
+        tagPostings = new HashMap<>();
+        pendingChanges = new LinkedHashMap<>();
+        deltaLog = new JournalDeltaLog(filePath);
+        queryCache = new QueryCache();
+        dayIndex = new DayIndex();
+        activityIndex = new ActivityIndex();
+        eventBus = new JournalEventBus();
     }
 
     /**
-     * Retrieves the list of journal entries.
+     * Returns the journal as of the last completed mutation. The snapshot is
+     * immutable and can be read from any thread without locking.
      *
-     * @return a {@code List} of {@code JournalEntry} objects
+     * @return the current snapshot
+     */
+    public JournalSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the list of journal entries from the current snapshot. The list is
+     * immutable and does not change with later mutations; use the mutation methods
+     * of this class to change the journal.
+     *
+     * @return an unmodifiable {@code List} of {@code JournalEntry} objects
      */
     public List<JournalEntry> getEntries() {
-        return entries;
+        return snapshot.getEntries();
+    }
+
+    /**
+     * Looks up an entry by its identifier in the current snapshot.
+     *
+     * @param id the entry identifier
+     * @return the current version of the entry, or {@code null} if there is none
+     */
+    public JournalEntry getEntry(String id) {
+        return snapshot.getEntry(id);
+    }
+
+    /**
+     * Returns the entry at the given ordinal, as produced by {@link #query(JournalQuery)}.
+     *
+     * @param ordinal the entry's position in the journal
+     * @return the entry at that position
+     */
+    public JournalEntry getEntryAt(int ordinal) {
+        return snapshot.getEntryAt(ordinal);
+    }
+
+    /**
+     * Returns the number of entries in the journal.
+     *
+     * @return the entry count
+     */
+    public int getEntryCount() {
+        return snapshot.size();
+    }
+
+    /**
+     * Returns the modification version, which increases with every change to the journal.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Returns the per-day entry counts and ordinal buckets, kept current by every mutation.
+     *
+     * @return the day index
+     */
+    public DayIndex getDayIndex() {
+        return dayIndex;
+    }
+
+    /**
+     * Returns the range counts and streak bitsets, kept current by every mutation.
+     *
+     * @return the activity index
+     */
+    public ActivityIndex getActivityIndex() {
+        return activityIndex;
     }
 
     /**
-     * Adds a new journal entry to the collection.
+     * Returns the columnar metadata store, kept current by every mutation.
+     *
+     * @return the columns, or {@code null} if the manager was created without them
+     */
+    public EntryColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Registers a listener for changes to the journal. Changes are delivered in
+     * batches on the event dispatch thread, after the mutations that caused them.
+     *
+     * @param listener the listener to add
+     */
+    public void addChangeListener(JournalChangeListener listener) {
+        eventBus.addListener(listener);
+    }
+
+    /**
+     * Unregisters a change listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(JournalChangeListener listener) {
+        eventBus.removeListener(listener);
+    }
+
+    /**
+     * Returns the bus change events are published on, so callers on the event
+     * dispatch thread can {@linkplain JournalEventBus#flush() flush} it.
+     *
+     * @return the event bus
+     */
+    public JournalEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Returns the cache backing {@link #query(JournalQuery)}, mainly for its hit
+     * and miss counters.
+     *
+     * @return the query cache
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Returns the ordinals of the entries matching a query, newest first; entries
+     * sharing a date keep their journal order. Tag queries start from the tag's
+     * posting list rather than the whole journal, and results are cached until a
+     * mutation that could change them.
+     *
+     * @param query the filter to apply
+     * @return the matching ordinals; the array is shared and must not be modified
+     */
+    public synchronized int[] query(JournalQuery query) {
+        int[] cached = queryCache.get(query, version);
+        if (cached != null) {
+            return cached;
+        }
+        int[] result = computeQuery(query);
+        queryCache.put(query, version, result);
+        return result;
+    }
+
+    /**
+     * Starts evaluating a query page by page, newest day first, for callers that
+     * want to show results before the whole journal has been filtered. The stream
+     * may be read from any thread.
+     *
+     * @param query the filter to apply
+     * @return a stream of the query's results at the current version
+     */
+    public synchronized QueryStream streamQuery(JournalQuery query) {
+        return new QueryStream(this, query);
+    }
+
+    /**
+     * Evaluates a query against the current entries.
+     */
+    private int[] computeQuery(JournalQuery query) {
+        long[] keys;
+        int count = 0;
+        if (columns != null) {
+            EntryColumns.Filter filter = columns.compile(query);
+            if (query.getTag() != null) {
+                Set<String> posting = tagPostings.getOrDefault(query.getTag(), Collections.emptySet());
+                keys = new long[posting.size()];
+                for (String id : posting) {
+                    int ordinal = positions.get(id);
+                    if (columns.matches(ordinal, filter)) {
+                        keys[count++] = columns.sortKey(ordinal);
+                    }
+                }
+            } else {
+                keys = new long[columns.size()];
+                count = columns.select(filter, keys);
+            }
+        } else if (query.getTag() != null) {
+            Set<String> posting = tagPostings.getOrDefault(query.getTag(), Collections.emptySet());
+            keys = new long[posting.size()];
+            for (String id : posting) {
+                int ordinal = positions.get(id);
+                if (query.matches(entries.get(ordinal))) {
+                    keys[count++] = sortKey(ordinal);
+                }
+            }
+        } else {
+            keys = new long[entries.size()];
+            for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+                if (query.matches(entries.get(ordinal))) {
+                    keys[count++] = sortKey(ordinal);
+                }
+            }
+        }
+        // Sorting packed (descending date, ordinal) keys avoids boxing and a comparator.
+        Arrays.sort(keys, 0, count);
+        int[] ordinals = new int[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = (int) keys[i];
+        }
+        return ordinals;
+    }
+
+    /**
+     * Packs an ordinal with its entry's date so that ascending order is newest
+     * date first, then journal order.
+     */
+    private long sortKey(int ordinal) {
+        return sortKey(entries.get(ordinal).getDate(), ordinal);
+    }
+
+    /**
+     * Packs a date and ordinal into the key that orders query results; the low
+     * 32 bits hold the ordinal.
+     *
+     * @param date    the entry's date
+     * @param ordinal the entry's ordinal
+     * @return the sort key
+     */
+    static long sortKey(LocalDate date, int ordinal) {
+        return sortKey(date.toEpochDay(), ordinal);
+    }
+
+    /**
+     * Packs an epoch day and ordinal into the key that orders query results.
+     *
+     * @param epochDay the entry's date as an epoch day
+     * @param ordinal  the entry's ordinal
+     * @return the sort key
+     */
+    static long sortKey(long epochDay, int ordinal) {
+        long inverseDay = Integer.MAX_VALUE - epochDay;
+        return (inverseDay << 32) | ordinal;
+    }
+
+    /**
+     * Attaches the global {@code TagsManager} whose usage counts should track
+     * this journal. The counts are recomputed once and then maintained
+     * incrementally by every mutation.
+     *
+     * @param tagsManager the tags manager to keep in sync, or {@code null} to detach
+     */
+    public synchronized void setTagsManager(TagsManager tagsManager) {
+        this.tagsManager = tagsManager;
+        if (tagsManager != null) {
+            tagsManager.recountUsage(entries);
+        }
+    }
+
+    /**
+     * Attaches a store for the content of loaded entries. Takes effect from the
+     * next {@link #loadEntries()}.
+     *
+     * @param contentStore the store to keep content in, or {@code null} to keep it on the heap
+     */
+    public synchronized void setContentStore(ContentStore contentStore) {
+        this.contentStore = contentStore;
+    }
+
+    /**
+     * Attaches the cipher the journal is encrypted with. Takes effect from the
+     * next {@link #loadEntries()}; the next save then writes every record sealed.
+     *
+     * @param cipher the cipher holding the data key, or {@code null} for a plaintext journal
+     */
+    public synchronized void setCipher(JournalCipher cipher) {
+        this.cipher = cipher;
+        fullSaveRequired = true;
+    }
+
+    /**
+     * Tells whether the next save must rewrite the whole journal file, for
+     * instance to encrypt records that were loaded in plaintext.
+     *
+     * @return {@code true} if a full save is pending
+     */
+    public synchronized boolean isFullSaveRequired() {
+        return fullSaveRequired;
+    }
+
+    /**
+     * Adds a new journal entry to the collection. Adding an entry whose id is
+     * already present replaces the stored version.
      *
      * @param entry the {@code JournalEntry} to add
      */
-    public void addEntry(JournalEntry entry) {
-        entries.add(entry);
+    public synchronized void addEntry(JournalEntry entry) {
+        Integer existing = positions.get(entry.getId());
+        if (existing != null) {
+            replaceAt(existing, entry);
+        } else {
+            insert(entry);
+        }
+        commit();
+    }
+
+    /**
+     * Replaces an existing entry with an edited version.
+     *
+     * @param original    the entry currently in the journal
+     * @param replacement the edited entry to store in its place
+     * @return {@code true} if {@code original} was found and replaced
+     */
+    public synchronized boolean updateEntry(JournalEntry original, JournalEntry replacement) {
+        int index = indexOf(original);
+        if (index == -1) {
+            return false;
+        }
+        if (!original.getId().equals(replacement.getId())) {
+            // The edit produced a new identity; record the old one as deleted.
+            positions.remove(original.getId());
+            byId = byId.minus(original.getId());
+            touched.add(original.getId());
+            pendingChanges.put(original.getId(), null);
+        }
+        replaceAt(index, replacement);
+        commit();
+        return true;
+    }
+
+    /**
+     * Removes an entry from the collection. The last entry is moved into the
+     * vacated slot, so removal does not shift the rest of the list.
+     *
+     * @param entry the entry to remove
+     * @return {@code true} if the entry was present
+     */
+    public synchronized boolean removeEntry(JournalEntry entry) {
+        int index = indexOf(entry);
+        if (index == -1) {
+            return false;
+        }
+        delete(index, entry);
+        commit();
+        return true;
+    }
+
+    /**
+     * Reverts the most recent mutation that has not been undone. Entries it
+     * added are removed, and entries it changed or removed come back as they
+     * were; restored entries also put their tags back into the attached tags
+     * manager. The journal's views are notified as for any other mutation.
+     *
+     * @return {@code true} if there was a mutation to undo
+     */
+    public synchronized boolean undo() {
+        HistoryStep step = undoStack.poll();
+        if (step == null) {
+            return false;
+        }
+        restore(step.before, step.ids);
+        redoStack.push(step);
+        return true;
+    }
+
+    /**
+     * Applies again the most recently undone mutation. Any new mutation after
+     * an undo discards the mutations that could have been redone.
+     *
+     * @return {@code true} if there was a mutation to redo
+     */
+    public synchronized boolean redo() {
+        HistoryStep step = redoStack.poll();
+        if (step == null) {
+            return false;
+        }
+        restore(step.after, step.ids);
+        undoStack.push(step);
+        return true;
+    }
+
+    /**
+     * Tells whether {@link #undo()} has anything to revert.
+     *
+     * @return {@code true} if a mutation can be undone
+     */
+    public synchronized boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    /**
+     * Tells whether {@link #redo()} has anything to apply.
+     *
+     * @return {@code true} if an undone mutation can be redone
+     */
+    public synchronized boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Returns the entries that carry the given tag, from the tag's posting list.
+     *
+     * @param tag the tag to look up
+     * @return the entries using the tag
+     */
+    public synchronized List<JournalEntry> getEntriesWithTag(String tag) {
+        Set<String> posting = tagPostings.get(tag);
+        if (posting == null) {
+            return Collections.emptyList();
+        }
+        List<JournalEntry> result = new ArrayList<>(posting.size());
+        for (String id : posting) {
+            result.add(entries.get(positions.get(id)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entries written on the given day, from the day's bucket in the
+     * day index.
+     *
+     * @param date the day to look up
+     * @return the entries dated that day
+     */
+    public synchronized List<JournalEntry> getEntriesOn(LocalDate date) {
+        int[] ordinals = dayIndex.ordinalsOn(date);
+        List<JournalEntry> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(entries.get(ordinal));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of entries that carry the given tag.
+     *
+     * @param tag the tag to look up
+     * @return the tag's usage count
+     */
+    public synchronized int getTagUsageCount(String tag) {
+        Set<String> posting = tagPostings.get(tag);
+        return posting == null ? 0 : posting.size();
     }
 
     /**
-     * Loads journal entries from the file specified by the file path.
+     * Removes a tag from every entry that carries it. Only entries on the tag's
+     * posting list are visited, so removing an unused tag touches nothing.
+     *
+     * @param tag the tag to strip from the journal
+     * @return the number of entries that were changed
+     */
+    public synchronized int removeTagFromEntries(String tag) {
+        int changed = retag(Collections.singleton(tag), null);
+        commit();
+        return changed;
+    }
+
+    /**
+     * Renames a tag on every entry that carries it and in the attached tags
+     * manager. Renaming onto a tag that already exists merges the two.
+     *
+     * @param from the current tag name
+     * @param to   the new tag name
+     * @return the number of entries that were changed
+     */
+    public synchronized int renameTag(String from, String to) {
+        return mergeTags(Collections.singleton(from), to);
+    }
+
+    /**
+     * Folds several tags into one, for example {@code "Work"} and {@code "job"}
+     * into {@code "work"}. Affected entries are found through the posting lists
+     * and each is rewritten once, however many of the source tags it carried.
+     * The attached tags manager drops the source tags and gains the target.
+     *
+     * @param sources the tags to fold away; the target itself may be included
+     * @param target  the tag that replaces them
+     * @return the number of entries that were changed
+     */
+    public synchronized int mergeTags(Collection<String> sources, String target) {
+        Set<String> folded = new LinkedHashSet<>(sources);
+        folded.remove(target);
+        int changed = retag(folded, target);
+        if (tagsManager != null) {
+            for (String source : folded) {
+                tagsManager.removeTag(source);
+            }
+            tagsManager.addTag(target);
+        }
+        if (changed > 0) {
+            uncommitted.add(JournalChangeEvent.tagRenamed(version, folded, target));
+        }
+        commit();
+        return changed;
+    }
+
+    /**
+     * Loads journal entries from the file specified by the file path, then
+     * replays any incremental changes recorded since the last full save.
      * Clears the current entries before loading.
      * If the file does not exist, no action is taken.
      */
-    public void loadEntries() {
-        entries.clear();
+    public synchronized void loadEntries() {
+        loadEntries(readRecords());
+    }
+
+    /**
+     * Reads and parses the journal file without loading it. Touches no state of
+     * the manager, so it can run on any thread, and before the cipher is known.
+     *
+     * @return the records of the file, empty if it is missing or unreadable
+     */
+    public JSONArray readRecords() {
         File file = new File(filePath);
         if (!file.exists()) {
-            return;
+            return new JSONArray();
         }
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             StringBuilder jsonStr = new StringBuilder();
@@ -57,30 +680,520 @@ public class JournalManager {
             while ((line = reader.readLine()) != null) {
                 jsonStr.append(line);
             }
-            JSONArray jsonArr = new JSONArray(jsonStr.toString());
-            for (int i = 0; i < jsonArr.length(); i++) {
-                JSONObject obj = jsonArr.getJSONObject(i);
-                JournalEntry entry = JournalEntry.fromJson(obj);
-                entries.add(entry);
-            }
+            return new JSONArray(jsonStr.toString());
         } catch (Exception e) {
             logger.severe(String.format("Error loading journal entries from file: %s - %s", filePath, e.getMessage()));
+            return new JSONArray();
+        }
+    }
+
+    /**
+     * Loads records read by {@link #readRecords()}, then replays any incremental
+     * changes recorded since the last full save. Clears the current entries
+     * before loading. Sealed records are decrypted in parallel.
+     *
+     * @param records the records of the journal file
+     */
+    public synchronized void loadEntries(JSONArray records) {
+        entries = PersistentVector.empty();
+        byId = PersistentHashMap.empty();
+        positions.clear();
+        tagPostings.clear();
+        dayIndex.clear();
+        activityIndex.clear();
+        if (columns != null) {
+            columns.clear();
+        }
+        pendingChanges.clear();
+        fullSaveRequired = false;
+        unreadable = false;
+        AtomicBoolean plaintext = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<JSONObject> objects = new ArrayList<>(records.length());
+        for (int i = 0; i < records.length(); i++) {
+            JSONObject obj = records.getJSONObject(i);
+            // Records written before ids existed get fresh ones, which the file must learn.
+            fullSaveRequired |= obj.getString("id") == null;
+            objects.add(obj);
+        }
+        JournalEntry[] decoded = new JournalEntry[objects.size()];
+        IntStream.range(0, decoded.length).parallel()
+                .forEach(i -> decoded[i] = decodeRecord(objects.get(i), plaintext, failed));
+        for (JournalEntry entry : decoded) {
+            if (entry != null) {
+                load(entry);
+            }
         }
+        deltaLog.replay(record -> decodeRecord(record, plaintext, failed), this::load, this::unload);
+        // Plaintext records of an encrypted journal are sealed by the next save.
+        fullSaveRequired |= plaintext.get();
+        unreadable = failed.get();
+        queryCache.invalidateAll(++version);
+        syncTagUsage();
+        // The reloaded journal is a new baseline; history from before it no longer applies.
+        touched.clear();
+        undoStack.clear();
+        redoStack.clear();
+        uncommitted.add(JournalChangeEvent.bulk(version));
+        commit();
     }
 
     /**
      * Saves the current journal entries to the file specified by the file path.
-     * Entries are saved in JSON format.
+     * Entries are saved in JSON format, and the incremental log is folded in.
      */
-    public void saveEntries() {
+    public synchronized void saveEntries() {
+        if (refuseSave()) {
+            return;
+        }
         JSONArray jsonArr = new JSONArray();
         for (JournalEntry entry : entries) {
-            jsonArr.put(entry.toJson());
+            jsonArr.put(encodeRecord(entry));
         }
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
             writer.write(jsonArr.toString(4));
         } catch (Exception e) {
             logger.severe(String.format("Error saving journal entries to file: %s - %s", filePath, e.getMessage()));
+            return;
+        }
+        deltaLog.clear();
+        pendingChanges.clear();
+        fullSaveRequired = false;
+        compactContent();
+    }
+
+    /**
+     * Persists only the entries changed since the last save by appending them
+     * to the incremental log. Falls back to a full {@link #saveEntries()} when
+     * the base file is missing or predates entry ids, or when the log has grown
+     * larger than the journal itself.
+     */
+    public synchronized void saveChanges() {
+        if (pendingChanges.isEmpty() && !fullSaveRequired || refuseSave()) {
+            return;
+        }
+        int threshold = Math.max(MIN_COMPACTION_THRESHOLD, entries.size());
+        if (fullSaveRequired || !new File(filePath).exists()
+                || deltaLog.size() + pendingChanges.size() > threshold) {
+            saveEntries();
+        } else if (deltaLog.append(pendingChanges, this::encodeRecord)) {
+            pendingChanges.clear();
+        }
+    }
+
+    /**
+     * Returns the number of changed records waiting to be saved.
+     *
+     * @return the pending change count
+     */
+    public synchronized int getPendingChangeCount() {
+        return pendingChanges.size();
+    }
+
+    /**
+     * Rewrites the entries carrying any of {@code removed}, dropping those tags
+     * and, when {@code replacement} is non-null, adding it in place of the first.
+     */
+    private int retag(Set<String> removed, String replacement) {
+        Set<String> affected = new LinkedHashSet<>();
+        for (String tag : removed) {
+            Set<String> posting = tagPostings.get(tag);
+            if (posting != null) {
+                affected.addAll(posting);
+            }
+        }
+        for (String id : affected) {
+            int index = positions.get(id);
+            JournalEntry entry = entries.get(index);
+            List<String> newTags = new ArrayList<>(entry.getTags().size());
+            for (String tag : entry.getTags()) {
+                String mapped = removed.contains(tag) ? replacement : tag;
+                if (mapped != null && !newTags.contains(mapped)) {
+                    newTags.add(mapped);
+                }
+            }
+            replaceAt(index, entry.withTags(newTags));
+        }
+        return affected.size();
+    }
+
+    /**
+     * Sets every id of a history step to its version in {@code target}, through
+     * the same paths as ordinary mutations so indexes, pending changes and events
+     * stay incremental.
+     */
+    private void restore(JournalSnapshot target, Set<String> ids) {
+        restoring = true;
+        try {
+            for (String id : ids) {
+                JournalEntry wanted = target.getEntry(id);
+                Integer index = positions.get(id);
+                JournalEntry current = index == null ? null : entries.get(index);
+                if (wanted == current) {
+                    continue;
+                }
+                if (current == null) {
+                    insert(wanted);
+                } else if (wanted == null) {
+                    delete(index, current);
+                } else {
+                    replaceAt(index, wanted);
+                }
+                if (wanted != null && tagsManager != null) {
+                    // A tag deleted or renamed in the meantime comes back with its entries.
+                    for (String tag : wanted.getTags()) {
+                        tagsManager.addTag(tag);
+                    }
+                }
+            }
+            commit();
+        } finally {
+            restoring = false;
+        }
+    }
+
+    /**
+     * Appends a new entry and indexes it.
+     */
+    private void insert(JournalEntry entry) {
+        positions.put(entry.getId(), entries.size());
+        dayIndex.add(entry, entries.size());
+        activityIndex.add(entry.getDate());
+        entries = entries.append(entry);
+        byId = byId.plus(entry.getId(), entry);
+        setColumns(entries.size() - 1, entry);
+        touched.add(entry.getId());
+        indexTags(entry);
+        pendingChanges.put(entry.getId(), entry);
+        queryCache.recordChange(++version, entry);
+        uncommitted.add(JournalChangeEvent.added(version, entry, entries.size() - 1));
+    }
+
+    /**
+     * Removes the entry at {@code index}, recording it as deleted.
+     */
+    private void delete(int index, JournalEntry entry) {
+        int last = entries.size() - 1;
+        JournalEntry moved = index != last ? entries.get(last) : null;
+        removeAt(index);
+        unindexTags(entry);
+        pendingChanges.put(entry.getId(), null);
+        uncommitted.add(JournalChangeEvent.removed(version, entry, index, moved, moved != null ? last : -1));
+    }
+
+    /**
+     * Stores {@code replacement} at {@code index}, moving its tag postings and
+     * recording it as a pending change.
+     */
+    private void replaceAt(int index, JournalEntry replacement) {
+        JournalEntry previous = entries.get(index);
+        unindexTags(previous);
+        dayIndex.remove(previous, index);
+        activityIndex.remove(previous.getDate());
+        entries = entries.update(index, replacement);
+        byId = byId.plus(replacement.getId(), replacement);
+        setColumns(index, replacement);
+        touched.add(previous.getId());
+        touched.add(replacement.getId());
+        positions.put(replacement.getId(), index);
+        indexTags(replacement);
+        dayIndex.add(replacement, index);
+        activityIndex.add(replacement.getDate());
+        pendingChanges.put(replacement.getId(), replacement);
+        queryCache.recordChange(++version, previous, replacement);
+        uncommitted.add(JournalChangeEvent.updated(version, previous, replacement, index));
+    }
+
+    /**
+     * Removes the entry at {@code index} by moving the last entry into its slot.
+     */
+    private void removeAt(int index) {
+        JournalEntry removed = entries.get(index);
+        int last = entries.size() - 1;
+        JournalEntry moved = entries.get(last);
+        entries = entries.removeLast();
+        dayIndex.remove(removed, index);
+        activityIndex.remove(removed.getDate());
+        if (columns != null) {
+            columns.remove(index);
+        }
+        if (index != last) {
+            entries = entries.update(index, moved);
+            positions.put(moved.getId(), index);
+            dayIndex.move(moved, last, index);
+        }
+        positions.remove(removed.getId());
+        byId = byId.minus(removed.getId());
+        touched.add(removed.getId());
+        // The moved entry changed ordinal, so queries matching it are affected too.
+        queryCache.recordChange(++version, removed, index != last ? moved : null);
+    }
+
+    /**
+     * Rewrites the stored content of the current entries into a new generation of
+     * segments when more than half of the store is unreferenced by them. Only the
+     * content's location changes, so no version or event is produced; entries of
+     * older snapshots keep the old segments alive until they are dropped too.
+     */
+    private void compactContent() {
+        if (contentStore == null) {
+            return;
+        }
+        long liveBytes = 0;
+        for (JournalEntry entry : entries) {
+            ContentStore.Ref ref = storedRef(entry);
+            if (ref != null) {
+                liveBytes += ref.getByteLength();
+            }
+        }
+        if (contentStore.getStoredBytes() <= 2 * liveBytes) {
+            return;
+        }
+        contentStore.startGeneration();
+        for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+            JournalEntry entry = entries.get(ordinal);
+            if (storedRef(entry) != null) {
+                JournalEntry moved = storeContent(entry);
+                entries = entries.update(ordinal, moved);
+                byId = byId.plus(moved.getId(), moved);
+            }
+        }
+        commit();
+    }
+
+    /**
+     * Returns where an entry's content, plain or sealed, lives in the content
+     * store, or {@code null} if it is on the heap.
+     */
+    private static ContentStore.Ref storedRef(JournalEntry entry) {
+        if (entry.isContentSealed()) {
+            return entry.getSealedContent().getRef();
+        }
+        return entry.getContentRef();
+    }
+
+    /**
+     * Returns a copy of an entry whose content lives in the content store, or the
+     * entry itself if there is no store or storing fails. Sealed content is
+     * stored sealed; plaintext content of an encrypted journal is never written
+     * to the store.
+     */
+    private JournalEntry storeContent(JournalEntry entry) {
+        if (contentStore == null) {
+            return entry;
+        }
+        try {
+            if (entry.isContentSealed()) {
+                JournalCipher.SealedContent sealed = entry.getSealedContent();
+                return entry.withSealedContent(sealed.withRef(contentStore.append(sealed.getSealedText())));
+            }
+            String content = entry.getContent();
+            if (cipher != null || content == null) {
+                return entry;
+            }
+            return entry.withStoredContent(contentStore.append(content));
+        } catch (IOException e) {
+            logger.severe(String.format("Error storing entry content off-heap: %s - %s", entry.getId(), e.getMessage()));
+            return entry;
+        }
+    }
+
+    /**
+     * Turns an entry into the record written to disk: sealed blocks of its
+     * metadata and content if the journal is encrypted, reusing content that is
+     * already sealed, or its plain JSON otherwise.
+     */
+    private JSONObject encodeRecord(JournalEntry entry) {
+        if (cipher == null) {
+            return entry.toJson();
+        }
+        String id = entry.getId();
+        JournalCipher.SealedContent sealed = entry.getSealedContent();
+        JSONObject record = new JSONObject();
+        record.put("id", id);
+        record.put("meta", cipher.seal(entry.toMetadataJson().toString(), id + META_CONTEXT));
+        record.put("body", sealed != null && sealed.isSealedBy(cipher)
+                ? sealed.getSealedText() : cipher.seal(entry.getContent(), id + BODY_CONTEXT));
+        return record;
+    }
+
+    /**
+     * Turns a record read from disk back into an entry, decrypting only its
+     * metadata block. Safe to call from several threads at once.
+     *
+     * @param record    the record
+     * @param plaintext set if the record was plaintext while a cipher is attached
+     * @param failed    set if the record could not be decrypted
+     * @return the entry, or {@code null} if it is malformed or could not be decrypted
+     */
+    private JournalEntry decodeRecord(JSONObject record, AtomicBoolean plaintext, AtomicBoolean failed) {
+        String id = record.getString("id");
+        String meta = record.getString("meta");
+        String body = record.getString("body");
+        try {
+            if (meta == null) {
+                if (cipher != null) {
+                    plaintext.set(true);
+                }
+                return JournalEntry.fromJson(record);
+            }
+            if (cipher == null || body == null) {
+                throw new JournalCipher.DecryptionException(
+                        cipher == null ? "No key for an encrypted record" : "Missing content block", null);
+            }
+            JSONObject metadata = new JSONObject(cipher.open(meta, id + META_CONTEXT));
+            return JournalEntry.fromMetadataJson(metadata, cipher.sealedContent(body, id + BODY_CONTEXT));
+        } catch (JournalCipher.DecryptionException e) {
+            logger.severe(String.format("Error decrypting journal entry: %s - %s", id, e.getMessage()));
+            failed.set(true);
+            return null;
+        } catch (RuntimeException e) {
+            logger.severe(String.format("Error loading journal entry: %s - %s", id, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Logs and returns {@code true} if records that could not be decrypted would
+     * be lost by saving.
+     */
+    private boolean refuseSave() {
+        if (unreadable) {
+            logger.severe(String.format("Not saving journal entries: some records in %s could not be decrypted", filePath));
+        }
+        return unreadable;
+    }
+
+    /**
+     * Applies a loaded record: inserts it, or replaces the version already loaded.
+     */
+    private void load(JournalEntry entry) {
+        entry = storeContent(entry);
+        Integer existing = positions.get(entry.getId());
+        if (existing != null) {
+            JournalEntry previous = entries.get(existing);
+            removeFromPostings(previous);
+            dayIndex.remove(previous, existing);
+            activityIndex.remove(previous.getDate());
+            dayIndex.add(entry, existing);
+            entries = entries.update(existing, entry);
+            setColumns(existing, entry);
+        } else {
+            positions.put(entry.getId(), entries.size());
+            dayIndex.add(entry, entries.size());
+            entries = entries.append(entry);
+            setColumns(entries.size() - 1, entry);
+        }
+        byId = byId.plus(entry.getId(), entry);
+        activityIndex.add(entry.getDate());
+        addToPostings(entry);
+    }
+
+    /**
+     * Applies a loaded tombstone.
+     */
+    private void unload(String id) {
+        Integer index = positions.get(id);
+        if (index != null) {
+            removeFromPostings(entries.get(index));
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Publishes the state reached by a completed mutation to lock-free readers
+     * and, unless the mutation is an undo or redo, records it as a history step.
+     */
+    private void commit() {
+        JournalSnapshot before = snapshot;
+        snapshot = new JournalSnapshot(entries, byId, version);
+        if (!touched.isEmpty()) {
+            if (!restoring) {
+                undoStack.push(new HistoryStep(before, snapshot, new LinkedHashSet<>(touched)));
+                redoStack.clear();
+            }
+            touched.clear();
+        }
+        // Events go out only now, so a listener never sees a state older than its event.
+        for (JournalChangeEvent event : uncommitted) {
+            eventBus.publish(event);
+        }
+        uncommitted.clear();
+    }
+
+    /**
+     * Stores an entry's metadata in the columnar store, if there is one.
+     */
+    private void setColumns(int ordinal, JournalEntry entry) {
+        if (columns != null) {
+            columns.set(ordinal, entry);
+        }
+    }
+
+    /**
+     * Finds the position of an entry, which must be the current version.
+     */
+    private int indexOf(JournalEntry entry) {
+        Integer index = positions.get(entry.getId());
+        return index != null && entries.get(index) == entry ? index : -1;
+    }
+
+    /**
+     * Adds an entry to its tags' posting lists and bumps their usage counts.
+     */
+    private void indexTags(JournalEntry entry) {
+        for (String tag : entry.getTags()) {
+            boolean added = tagPostings.computeIfAbsent(tag, t -> new LinkedHashSet<>()).add(entry.getId());
+            if (added && tagsManager != null) {
+                tagsManager.adjustUsage(tag, 1);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from its tags' posting lists and lowers their usage counts.
+     */
+    private void unindexTags(JournalEntry entry) {
+        for (String tag : entry.getTags()) {
+            Set<String> posting = tagPostings.get(tag);
+            if (posting != null && posting.remove(entry.getId())) {
+                if (posting.isEmpty()) {
+                    tagPostings.remove(tag);
+                }
+                if (tagsManager != null) {
+                    tagsManager.adjustUsage(tag, -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an entry to its tags' posting lists without touching usage counts.
+     */
+    private void addToPostings(JournalEntry entry) {
+        for (String tag : entry.getTags()) {
+            tagPostings.computeIfAbsent(tag, t -> new LinkedHashSet<>()).add(entry.getId());
+        }
+    }
+
+    /**
+     * Removes an entry from its tags' posting lists without touching usage counts.
+     */
+    private void removeFromPostings(JournalEntry entry) {
+        for (String tag : entry.getTags()) {
+            Set<String> posting = tagPostings.get(tag);
+            if (posting != null && posting.remove(entry.getId()) && posting.isEmpty()) {
+                tagPostings.remove(tag);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the attached tags manager's usage counts after a bulk reload.
+     */
+    private void syncTagUsage() {
+        if (tagsManager != null) {
+            tagsManager.recountUsage(entries);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The {@code JournalQuery} class is an immutable, normalized description of a
+ * filter over journal entries: an optional tag, an optional location, and an
+ * optional inclusive date range. Blank strings are treated as "no filter", so two
+ * queries that select the same entries compare equal and can share a cached result.
+ */
+public final class JournalQuery {
+    /** The query that matches every entry. */
+    public static final JournalQuery ALL = new JournalQuery(null, null, null, null);
+
+    private final String tag;
+    private final String location;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private JournalQuery(String tag, String location, LocalDate from, LocalDate to) {
+        this.tag = tag;
+        this.location = location;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a normalized query.
+     *
+     * @param tag      the tag entries must carry, or {@code null}/blank for any
+     * @param location the exact location entries must have, or {@code null}/blank for any
+     * @param from     the earliest date to include, or {@code null} for no lower bound
+     * @param to       the latest date to include, or {@code null} for no upper bound
+     * @return the query
+     */
+    public static JournalQuery of(String tag, String location, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            LocalDate swap = from;
+            from = to;
+            to = swap;
+        }
+        return new JournalQuery(normalize(tag), normalize(location), from, to);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    /**
+     * Gets the tag filter.
+     *
+     * @return the tag, or {@code null} if entries are not filtered by tag
+     */
+    public String getTag() { return tag; }
+
+    /**
+     * Gets the location filter.
+     *
+     * @return the location, or {@code null} if entries are not filtered by location
+     */
+    public String getLocation() { return location; }
+
+    /**
+     * Gets the inclusive lower date bound.
+     *
+     * @return the earliest date, or {@code null} if unbounded
+     */
+    public LocalDate getFrom() { return from; }
+
+    /**
+     * Gets the inclusive upper date bound.
+     *
+     * @return the latest date, or {@code null} if unbounded
+     */
+    public LocalDate getTo() { return to; }
+
+    /**
+     * Checks whether the query selects the given entry. A mutation that neither
+     * adds nor removes a matching entry cannot change this query's result.
+     *
+     * @param entry the entry to test
+     * @return {@code true} if the entry satisfies every filter
+     */
+    public boolean matches(JournalEntry entry) {
+        if (from != null && entry.getDate().isBefore(from)) {
+            return false;
+        }
+        if (to != null && entry.getDate().isAfter(to)) {
+            return false;
+        }
+        if (location != null && !location.equals(entry.getLocation())) {
+            return false;
+        }
+        return tag == null || entry.getTags().contains(tag);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JournalQuery)) {
+            return false;
+        }
+        JournalQuery other = (JournalQuery) o;
+        return Objects.equals(tag, other.tag) && Objects.equals(location, other.location)
+                && Objects.equals(from, other.from) && Objects.equals(to, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tag, location, from, to);
+    }
+
+    @Override
+    public String toString() {
+        return "JournalQuery[tag=" + tag + ", location=" + location + ", from=" + from + ", to=" + to + "]";
+    }
+}
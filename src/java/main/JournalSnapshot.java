@@ -0,0 +1,84 @@
+import java.util.List;
+
+/**
+ * The {@code JournalSnapshot} class is an immutable view of a journal as it was
+ * after one completed mutation. {@link JournalManager} publishes a new snapshot
+ * through a volatile reference at the end of every change, so readers on any
+ * thread get a consistent set of entries without taking a lock, and a snapshot
+ * they hold never changes underneath them.
+ * <p>
+ * Entries are held twice, both persistently: by ordinal in a
+ * {@link PersistentVector} and by id in a {@link PersistentHashMap}. Consecutive
+ * snapshots share every node a mutation did not touch, so keeping old snapshots
+ * around, as the manager's undo history does, costs only the changed paths.
+ */
+public final class JournalSnapshot {
+    /** The snapshot of a journal with no entries. */
+    static final JournalSnapshot EMPTY =
+            new JournalSnapshot(PersistentVector.empty(), PersistentHashMap.empty(), 0);
+
+    private final PersistentVector<JournalEntry> entries;
+    private final PersistentHashMap<String, JournalEntry> byId;
+    private final long version;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param entries the entries, indexed by ordinal
+     * @param byId    the same entries, keyed by id
+     * @param version the journal version they belong to
+     */
+    JournalSnapshot(PersistentVector<JournalEntry> entries, PersistentHashMap<String, JournalEntry> byId,
+                    long version) {
+        this.entries = entries;
+        this.byId = byId;
+        this.version = version;
+    }
+
+    /**
+     * Returns the entries, indexed by ordinal. The list is immutable.
+     *
+     * @return the entries
+     */
+    public List<JournalEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entry at an ordinal.
+     *
+     * @param ordinal the entry's position in the journal
+     * @return the entry
+     */
+    public JournalEntry getEntryAt(int ordinal) {
+        return entries.get(ordinal);
+    }
+
+    /**
+     * Looks up an entry by its identifier.
+     *
+     * @param id the entry identifier
+     * @return the entry, or {@code null} if the snapshot has none with that id
+     */
+    public JournalEntry getEntry(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the journal version this snapshot was taken at.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -1,10 +1,14 @@
 import java.awt.*;
+import java.util.List;
 import javax.swing.*;
 
 /**
- * The {@code ManageGlobalTagsDialog} class provides a dialog for managing global 
- * tags in the journal application. It allows users to view, delete, and 
- * manage tags that are applied globally across all journal entries.
+ * The {@code ManageGlobalTagsDialog} class provides a dialog for managing global
+ * tags in the journal application. It allows users to view, rename, merge, and
+ * delete tags that are applied globally across all journal entries.
+ * <p>
+ * Every operation goes through the {@link JournalManager} tag index, so only the
+ * entries that actually carry the affected tags are rewritten and persisted.
  */
 public class ManageGlobalTagsDialog extends JDialog {
     private final transient TagsManager tagsManager;
@@ -23,61 +27,130 @@ public class ManageGlobalTagsDialog extends JDialog {
         super(parent, "Manage Global Tags", true);
         this.tagsManager = tagsManager;
         this.journalManager = journalManager;
-        setSize(300, 300);
+        setSize(420, 300);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout(10, 10));
 
         // Create list model and list for global tags.
         tagsListModel = new DefaultListModel<>();
-        for (String tag : tagsManager.getTags()) {
-            tagsListModel.addElement(tag);
-        }
+        reloadTags();
         tagsList = new JList<>(tagsListModel);
-        tagsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        tagsList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         JScrollPane scrollPane = new JScrollPane(tagsList);
         add(scrollPane, BorderLayout.CENTER);
 
-        // Buttons panel: Delete and Close.
+        // Buttons panel: Rename, Merge, Delete and Close.
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton renameButton = new JButton("Rename");
+        renameButton.addActionListener(e -> handleRenameTag());
+        JButton mergeButton = new JButton("Merge");
+        mergeButton.addActionListener(e -> handleMergeTags());
         JButton deleteButton = new JButton("Delete Tag");
         deleteButton.addActionListener(e -> handleDeleteTag());
         JButton closeButton = new JButton("Close");
         closeButton.addActionListener(e -> dispose());
+        buttonPanel.add(renameButton);
+        buttonPanel.add(mergeButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(closeButton);
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
+    /**
+     * Handles renaming the selected tag. Renaming onto an existing tag merges
+     * the two.
+     */
+    private void handleRenameTag() {
+        List<String> selected = tagsList.getSelectedValuesList();
+        if (selected.size() != 1) {
+            JOptionPane.showMessageDialog(this, "Please select a single tag to rename.");
+            return;
+        }
+        String from = selected.get(0);
+        String to = promptForTagName("Rename tag '" + from + "' to:", from);
+        if (to == null || to.equals(from)) {
+            return;
+        }
+        applyChanges(journalManager.renameTag(from, to));
+    }
+
+    /**
+     * Handles merging the selected tags into one, which the user names.
+     */
+    private void handleMergeTags() {
+        List<String> selected = tagsList.getSelectedValuesList();
+        if (selected.size() < 2) {
+            JOptionPane.showMessageDialog(this, "Please select two or more tags to merge.");
+            return;
+        }
+        String target = promptForTagName("Merge " + String.join(", ", selected) + " into:", selected.get(0));
+        if (target == null) {
+            return;
+        }
+        applyChanges(journalManager.mergeTags(selected, target));
+    }
+
     /**
      * Handles the deletion of a selected tag.
      * <p>
      * Prompts the user for confirmation, removes the tag from global tags,
-     * removes it from all journal entries, and updates the UI.
+     * removes it from the journal entries on its posting list, and updates the UI.
+     * The journal is only written if at least one entry used the tag.
      * </p>
      */
     private void handleDeleteTag() {
-        String selectedTag = tagsList.getSelectedValue();
-        if (selectedTag == null) {
-            JOptionPane.showMessageDialog(this, "Please select a tag to delete.");
+        List<String> selected = tagsList.getSelectedValuesList();
+        if (selected.size() != 1) {
+            JOptionPane.showMessageDialog(this, "Please select a single tag to delete.");
             return;
         }
+        String selectedTag = selected.get(0);
+        int usage = journalManager.getTagUsageCount(selectedTag);
         int confirm = JOptionPane.showConfirmDialog(this,
-            "Delete tag '" + selectedTag + "'?\nThis will remove it from all entries.",
+            "Delete tag '" + selectedTag + "'?\nThis will remove it from " + usage
+                + (usage == 1 ? " entry." : " entries."),
             "Confirm Delete", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
             // Remove tag from global tags.
-            tagsManager.getTags().remove(selectedTag);
-            tagsManager.saveTags();
+            tagsManager.removeTag(selectedTag);
 
-            // Remove tag from all journal entries.
-            for (JournalEntry entry : journalManager.getEntries()) {
-                entry.getTags().remove(selectedTag);
-            }
-            journalManager.saveEntries();
-
-            // Update the list model.
-            tagsListModel.removeElement(selectedTag);
+            // Remove tag from the entries that use it.
+            applyChanges(journalManager.removeTagFromEntries(selectedTag));
             JOptionPane.showMessageDialog(this, "Tag deleted.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Asks for a tag name, returning the trimmed input or {@code null} if the
+     * user cancelled or entered nothing.
+     */
+    private String promptForTagName(String message, String initial) {
+        Object input = JOptionPane.showInputDialog(this, message, "Tag Name",
+            JOptionPane.PLAIN_MESSAGE, null, null, initial);
+        if (input == null) {
+            return null;
+        }
+        String name = input.toString().trim();
+        return name.isEmpty() ? null : name;
+    }
+
+    /**
+     * Persists the rewritten entries, if any, and refreshes the tag list.
+     */
+    private void applyChanges(int changedEntries) {
+        if (changedEntries > 0) {
+            journalManager.saveChanges();
+        }
+        reloadTags();
+    }
+
+    /**
+     * Refills the list model from the global tags.
+     */
+    private void reloadTags() {
+        tagsListModel.clear();
+        for (String tag : tagsManager.getTags()) {
+            tagsListModel.addElement(tag);
+        }
+    }
+}
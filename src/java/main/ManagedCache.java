@@ -0,0 +1,33 @@
+/**
+ * The {@code ManagedCache} interface is implemented by caches that take part in
+ * the global memory budget of a {@link CacheManager}. A cache reports how many
+ * bytes it holds and gives up its least recently used entries when asked.
+ * Implementations must allow every call from any thread, and
+ * {@link #getEstimatedBytes()} must not block, since the manager sums the sizes
+ * of all caches while one of them may be holding its own lock.
+ */
+public interface ManagedCache {
+
+    /**
+     * Returns the name usage is reported under.
+     *
+     * @return the cache name
+     */
+    String getCacheName();
+
+    /**
+     * Returns an estimate of the heap held by the cached values.
+     *
+     * @return the estimated size in bytes
+     */
+    long getEstimatedBytes();
+
+    /**
+     * Evicts least recently used entries until about {@code bytes} have been
+     * freed or the cache is empty.
+     *
+     * @param bytes the number of bytes wanted
+     * @return the estimated number of bytes freed
+     */
+    long shrink(long bytes);
+}
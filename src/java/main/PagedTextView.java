@@ -0,0 +1,561 @@
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.text.DefaultEditorKit;
+
+/**
+ * The {@code PagedTextView} class displays read-only, word-wrapped text from a
+ * {@link ContentSource} without loading it into a Swing document.
+ * <p>
+ * Wrapped lines are kept as an array of line start offsets. Only the first page is
+ * laid out before the view is shown; the rest is wrapped page by page on a
+ * background worker whose results are appended on the event dispatch thread, so
+ * opening a view takes the same time whatever the content size. Painting reads
+ * just the lines inside the clip from the source. Until layout finishes, the
+ * preferred height is extrapolated from the part already wrapped.
+ * <p>
+ * Text can be selected with the mouse, extended with Shift, and copied with the
+ * platform's copy shortcut; only the selected range is read from the source when
+ * it is copied.
+ */
+public class PagedTextView extends JComponent implements Scrollable {
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final int INITIAL_CHARS = 16 * 1024;
+
+    private final transient ContentSource source;
+    private int[] lineStarts = new int[256];
+    private int lineCount;
+    // Characters covered by completed lines; everything before this offset has a line.
+    private int laidOutChars;
+    private boolean layoutComplete;
+    private int wrapWidth = -1;
+    private int generation;
+    private transient SwingWorker<Void, int[]> layoutWorker;
+    private int pendingJump = -1;
+    private transient Runnable progressListener;
+    // Selected range as character offsets; the anchor is where the mouse was pressed.
+    private int selectionAnchor;
+    private int selectionStart;
+    private int selectionEnd;
+
+    /**
+     * Constructs a view over the given content.
+     *
+     * @param source the text to display
+     */
+    public PagedTextView(ContentSource source) {
+        this.source = source;
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        setOpaque(true);
+        setBackground(UIManager.getColor("TextArea.background"));
+        setForeground(UIManager.getColor("TextArea.foreground"));
+        setFocusable(true);
+        setTransferHandler(new CopyHandler());
+        installSelection();
+    }
+
+    /**
+     * Selects a range of the content.
+     *
+     * @param start the offset of the first selected character
+     * @param end   the offset just after the last one
+     */
+    public void select(int start, int end) {
+        int length = source.length();
+        selectionStart = Math.max(0, Math.min(Math.min(start, end), length));
+        selectionEnd = Math.max(selectionStart, Math.min(Math.max(start, end), length));
+        selectionAnchor = selectionStart;
+        repaint();
+    }
+
+    /**
+     * Returns the offset of the first selected character.
+     *
+     * @return the selection start
+     */
+    public int getSelectionStart() {
+        return selectionStart;
+    }
+
+    /**
+     * Returns the offset just after the last selected character.
+     *
+     * @return the selection end, equal to the start if nothing is selected
+     */
+    public int getSelectionEnd() {
+        return selectionEnd;
+    }
+
+    /**
+     * Reads the selected text from the source.
+     *
+     * @return the selected text, or {@code null} if nothing is selected
+     */
+    public String getSelectedText() {
+        return selectionEnd > selectionStart
+                ? source.read(selectionStart, selectionEnd - selectionStart).toString() : null;
+    }
+
+    /**
+     * Sets a callback run on the event dispatch thread whenever layout advances.
+     *
+     * @param listener the callback, or {@code null}
+     */
+    public void setProgressListener(Runnable listener) {
+        this.progressListener = listener;
+    }
+
+    /**
+     * Returns the fraction of the content that has been wrapped.
+     *
+     * @return a value from 0 to 1
+     */
+    public double getLayoutProgress() {
+        return layoutComplete || source.length() == 0 ? 1.0 : (double) laidOutChars / source.length();
+    }
+
+    /**
+     * Tells whether every line has been laid out.
+     *
+     * @return {@code true} once layout is complete
+     */
+    public boolean isLayoutComplete() {
+        return layoutComplete;
+    }
+
+    /**
+     * Returns the number of wrapped lines laid out so far.
+     *
+     * @return the known line count
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the wrapped line containing a character offset.
+     *
+     * @param offset the character offset
+     * @return the line index, or -1 if that part of the content is not laid out yet
+     */
+    public int lineOfOffset(int offset) {
+        if (lineCount == 0 || (!layoutComplete && offset >= laidOutChars)) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Scrolls so that the line containing {@code offset} is at the top of the view.
+     * If layout has not reached the offset yet, the jump happens as soon as it does.
+     *
+     * @param offset the character offset to show
+     */
+    public void scrollToOffset(int offset) {
+        int target = Math.max(0, Math.min(offset, Math.max(0, source.length() - 1)));
+        int line = lineOfOffset(target);
+        if (line == -1) {
+            pendingJump = target;
+            return;
+        }
+        pendingJump = -1;
+        int lineHeight = lineHeight();
+        Rectangle visible = getVisibleRect();
+        scrollRectToVisible(new Rectangle(0, line * lineHeight, 1, Math.max(visible.height, lineHeight)));
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        super.setBounds(x, y, width, height);
+        int newWrapWidth = Math.max(1, width - getInsets().left - getInsets().right);
+        if (width > 0 && newWrapWidth != wrapWidth) {
+            restartLayout(newWrapWidth);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        cancelLayout();
+        super.removeNotify();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setColor(getForeground());
+        g.setFont(getFont());
+
+        int lineHeight = lineHeight();
+        FontMetrics metrics = g.getFontMetrics();
+        Insets insets = getInsets();
+        int first = Math.max(0, (clip.y - insets.top) / lineHeight);
+        int last = Math.min(lineCount - 1, (clip.y + clip.height - insets.top) / lineHeight);
+        for (int line = first; line <= last; line++) {
+            int start = lineStarts[line];
+            int end = lineEnd(line);
+            String text = stripLineBreak(source.read(start, end - start));
+            int y = insets.top + line * lineHeight;
+            if (selectionStart < end && selectionEnd > start) {
+                int from = Math.min(text.length(), Math.max(selectionStart, start) - start);
+                int to = Math.min(text.length(), Math.min(selectionEnd, end) - start);
+                int x = insets.left + metrics.stringWidth(text.substring(0, from));
+                int width = metrics.stringWidth(text.substring(from, to));
+                int lineBreak = start + text.length();
+                if (lineBreak < end && selectionEnd > lineBreak) {
+                    // A selected line break shows as one space's width.
+                    width += metrics.charWidth(' ');
+                }
+                g.setColor(UIManager.getColor("TextArea.selectionBackground"));
+                g.fillRect(x, y, width, lineHeight);
+                g.setColor(getForeground());
+            }
+            g.drawString(text, insets.left, y + metrics.getAscent());
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = getInsets();
+        int lines = lineCount;
+        if (!layoutComplete && laidOutChars > 0) {
+            // Extrapolate from the wrapped part so the scroll bar is roughly right early on.
+            lines = (int) Math.min(Integer.MAX_VALUE / lineHeight(),
+                    (long) lineCount * source.length() / laidOutChars);
+        }
+        return new Dimension(insets.left + insets.right + 1,
+                insets.top + insets.bottom + Math.max(1, lines) * lineHeight());
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(480, 20 * lineHeight());
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? lineHeight() : 10;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL
+                ? Math.max(lineHeight(), visibleRect.height - lineHeight()) : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Selects with mouse presses and drags, and binds the copy and select-all keys.
+     */
+    private void installSelection() {
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                int offset = offsetAt(e.getPoint());
+                if (!e.isShiftDown()) {
+                    selectionAnchor = offset;
+                }
+                selectTo(offset);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                selectTo(offsetAt(e.getPoint()));
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+
+        // Take the look and feel's text area keys, so copy is bound as on every other text component.
+        getInputMap(WHEN_FOCUSED).setParent((InputMap) UIManager.get("TextArea.focusInputMap"));
+        getActionMap().put(DefaultEditorKit.copyAction, TransferHandler.getCopyAction());
+        getActionMap().put(DefaultEditorKit.selectAllAction, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                select(0, source.length());
+            }
+        });
+    }
+
+    /**
+     * Extends the selection from the anchor to an offset.
+     */
+    private void selectTo(int offset) {
+        selectionStart = Math.min(selectionAnchor, offset);
+        selectionEnd = Math.max(selectionAnchor, offset);
+        repaint();
+    }
+
+    /**
+     * Returns the character offset nearest a point, within the lines laid out so far.
+     */
+    private int offsetAt(Point point) {
+        if (lineCount == 0) {
+            return 0;
+        }
+        Insets insets = getInsets();
+        int line = Math.max(0, Math.min(lineCount - 1, (point.y - insets.top) / lineHeight()));
+        int start = lineStarts[line];
+        String text = stripLineBreak(source.read(start, lineEnd(line) - start));
+        FontMetrics metrics = getFontMetrics(getFont());
+        int x = insets.left;
+        for (int i = 0; i < text.length(); i++) {
+            int width = metrics.charWidth(text.charAt(i));
+            if (point.x < x + width / 2) {
+                return start + i;
+            }
+            x += width;
+        }
+        return start + text.length();
+    }
+
+    /**
+     * Returns the offset just after a laid-out line, including its line break.
+     */
+    private int lineEnd(int line) {
+        return line + 1 < lineCount ? lineStarts[line + 1] : laidOutChars;
+    }
+
+    /**
+     * Discards the current layout and wraps the content again at a new width. The
+     * first page is wrapped immediately; the rest continues in the background.
+     */
+    private void restartLayout(int width) {
+        cancelLayout();
+        wrapWidth = width;
+        lineStarts = new int[256];
+        lineCount = 0;
+        laidOutChars = 0;
+        layoutComplete = false;
+
+        Wrapper wrapper = new Wrapper(getFontMetrics(getFont()), width);
+        int initial = Math.min(INITIAL_CHARS, source.length());
+        appendLines(wrapper.wrap(source.read(0, initial), 0, initial == source.length()), wrapper.getConsumed());
+        if (initial < source.length()) {
+            startWorker(wrapper, initial, ++generation);
+        } else {
+            layoutComplete = true;
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Wraps the rest of the content page by page on a background thread.
+     */
+    private void startWorker(Wrapper wrapper, int from, int workerGeneration) {
+        layoutWorker = new SwingWorker<Void, int[]>() {
+            @Override
+            protected Void doInBackground() {
+                int offset = from;
+                int length = source.length();
+                while (offset < length && !isCancelled()) {
+                    int count = Math.min(PAGE_SIZE, length - offset);
+                    boolean last = offset + count == length;
+                    int[] starts = wrapper.wrap(source.read(offset, count), offset, last);
+                    offset += count;
+                    // The final element carries how far the completed lines reach.
+                    int[] chunk = Arrays.copyOf(starts, starts.length + 1);
+                    chunk[starts.length] = wrapper.getConsumed();
+                    publish(chunk);
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<int[]> chunks) {
+                if (workerGeneration != generation) {
+                    return;
+                }
+                for (int[] chunk : chunks) {
+                    appendLines(Arrays.copyOf(chunk, chunk.length - 1), chunk[chunk.length - 1]);
+                }
+                layoutProgressed();
+            }
+
+            @Override
+            protected void done() {
+                if (workerGeneration == generation && !isCancelled()) {
+                    layoutComplete = true;
+                    layoutProgressed();
+                }
+            }
+        };
+        layoutWorker.execute();
+    }
+
+    /**
+     * Stops any background layout and ignores its remaining results.
+     */
+    private void cancelLayout() {
+        generation++;
+        if (layoutWorker != null) {
+            layoutWorker.cancel(true);
+            layoutWorker = null;
+        }
+    }
+
+    /**
+     * Adds newly found line starts and records how far completed lines reach.
+     */
+    private void appendLines(int[] starts, int consumed) {
+        if (lineCount + starts.length > lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, Math.max(lineStarts.length * 2, lineCount + starts.length));
+        }
+        System.arraycopy(starts, 0, lineStarts, lineCount, starts.length);
+        lineCount += starts.length;
+        laidOutChars = consumed;
+    }
+
+    /**
+     * Updates size, paint, a pending jump, and the progress listener after layout advanced.
+     */
+    private void layoutProgressed() {
+        revalidate();
+        repaint();
+        if (pendingJump != -1 && lineOfOffset(pendingJump) != -1) {
+            scrollToOffset(pendingJump);
+        }
+        if (progressListener != null) {
+            progressListener.run();
+        }
+    }
+
+    /**
+     * Returns the height of one line of text.
+     */
+    private int lineHeight() {
+        return getFontMetrics(getFont()).getHeight();
+    }
+
+    /**
+     * Drops a trailing line break, which should not be drawn.
+     */
+    private static String stripLineBreak(CharSequence text) {
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return text.subSequence(0, end).toString();
+    }
+
+    /** Copies the selection; the view is read-only, so nothing can be cut or pasted. */
+    private static final class CopyHandler extends TransferHandler {
+        @Override
+        public int getSourceActions(JComponent c) {
+            return COPY;
+        }
+
+        @Override
+        protected Transferable createTransferable(JComponent c) {
+            String text = ((PagedTextView) c).getSelectedText();
+            return text != null ? new StringSelection(text) : null;
+        }
+    }
+
+    /**
+     * Incremental word wrapper. It is fed the content in consecutive pieces and
+     * returns the start offset of every line that begins in each piece. A line is
+     * broken after a newline, or after the last space before the width is exceeded,
+     * or mid-word if a single word is wider than a line. Spaces never cause a break.
+     */
+    static final class Wrapper {
+        private final FontMetrics metrics;
+        private final int width;
+        private int lineStart = -1;
+        private int lineWidth;
+        // Offset just after the last space on the current line, and the width up to it.
+        private int lastBreak = -1;
+        private int widthAtBreak;
+        private int consumed;
+
+        Wrapper(FontMetrics metrics, int width) {
+            this.metrics = metrics;
+            this.width = width;
+        }
+
+        /**
+         * Wraps one piece of the content.
+         *
+         * @param text   the piece
+         * @param offset the content offset of the piece
+         * @param last   whether this is the final piece
+         * @return the start offsets of the lines that begin in this piece
+         */
+        int[] wrap(CharSequence text, int offset, boolean last) {
+            int[] starts = new int[16];
+            int count = 0;
+            if (lineStart == -1) {
+                lineStart = offset;
+                starts[count++] = offset;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int position = offset + i;
+                int next = -1;
+                if (c == '\n') {
+                    next = position + 1;
+                    lineWidth = 0;
+                } else {
+                    int charWidth = metrics.charWidth(c);
+                    boolean space = c == ' ' || c == '\t';
+                    if (!space && lineWidth + charWidth > width && position > lineStart) {
+                        if (lastBreak > lineStart) {
+                            next = lastBreak;
+                            lineWidth -= widthAtBreak;
+                        } else {
+                            next = position;
+                            lineWidth = 0;
+                        }
+                    }
+                    lineWidth += charWidth;
+                    if (space) {
+                        lastBreak = position + 1;
+                        widthAtBreak = lineWidth;
+                    }
+                }
+                if (next != -1) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = next;
+                    lineStart = next;
+                    if (lastBreak <= next) {
+                        lastBreak = -1;
+                    }
+                }
+            }
+            consumed = last ? offset + text.length() : lineStart;
+            return Arrays.copyOf(starts, count);
+        }
+
+        /**
+         * Returns the offset up to which lines are complete.
+         */
+        int getConsumed() {
+            return consumed;
+        }
+    }
+}
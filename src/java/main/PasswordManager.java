@@ -1,13 +1,20 @@
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * The {@code PasswordManager} class is a utility class for managing
@@ -19,25 +26,72 @@ import javax.crypto.spec.PBEKeySpec;
  * {@code passwordHash} are still accepted: such a legacy password verifies
  * once against the old scheme and is then transparently re-hashed and rewritten
  * in the salted format, so existing users are not locked out.
+ *
+ * <p>The iteration count is not fixed: it is calibrated by timing the KDF on the
+ * current machine so that one derivation takes about a target latency (250 ms by
+ * default), and is never below {@link #MIN_ITERATIONS}. The benchmark starts on a
+ * background thread when the manager is constructed, so it runs while the user
+ * types the password. A stored credential whose cost is less than half the
+ * calibrated count is re-hashed by {@link #rehashIfNeeded(String)}, which the
+ * caller runs after login, once the key has been handed over, so the cost
+ * follows the user to faster hardware. Login never lowers the cost: a machine that
+ * happens to be slow while calibrating must not weaken the credential for good.
+ * Only {@link #setPassword(String)}, an explicit user action, writes a lower one.
+ *
+ * <p>The password also unlocks the journal's data key. One KDF run yields a
+ * master secret from which two subkeys are split with HMAC-SHA256: a verifier,
+ * stored as {@code hash}, and a key-encryption key that wraps the random data key
+ * with AES-GCM, stored as {@code wrappedKey}. Neither can be computed from the
+ * other, so reading the file does not reveal the key. After a successful
+ * {@link #verifyPassword(String)} the unwrapped key is available from
+ * {@link #getDataKey()}; changing the password re-wraps the same key, so the
+ * journal need not be re-encrypted. Credentials written before the data key
+ * existed, whose {@code hash} is the raw KDF output, are upgraded on login.
  */
 public class PasswordManager {
     private static final Logger logger = Logger.getLogger(PasswordManager.class.getName());
 
     /** Key derivation function used for newly stored passwords. */
     private static final String KDF_ALGORITHM = "PBKDF2WithHmacSHA256";
-    /** Work factor for the KDF; high enough to make brute force expensive. */
-    private static final int ITERATIONS = 210_000;
+    /** Default time one key derivation should take on the current machine. */
+    public static final long DEFAULT_TARGET_MILLIS = 250;
+    /** Lowest work factor ever used, however slow the machine. */
+    static final int MIN_ITERATIONS = 210_000;
+    /** Highest work factor ever used, however fast the machine. */
+    static final int MAX_ITERATIONS = 10_000_000;
+    /** Factor by which a stored work factor may fall short of the calibrated one before it is re-hashed. */
+    private static final double REHASH_TOLERANCE = 2.0;
+    /** Shortest benchmark run that is trusted for extrapolation. */
+    private static final long MIN_PROBE_NANOS = 20_000_000L;
+    /** Timed runs of the final probe; the fastest is used, so one stall cannot lower the cost. */
+    private static final int CALIBRATION_RUNS = 3;
+    /** Calibrated work factors by target latency; the machine does not change while running. */
+    private static final Map<Long, CompletableFuture<Integer>> CALIBRATED = new ConcurrentHashMap<>();
     /** Length of the per-password random salt, in bytes. */
     private static final int SALT_LENGTH = 16;
     /** Length of the derived hash, in bits. */
     private static final int KEY_LENGTH = 256;
     private static final SecureRandom RANDOM = new SecureRandom();
+    /** Format whose {@code hash} is the raw KDF output and which wraps no data key. */
+    private static final int RAW_HASH_VERSION = 1;
+    /** Format whose {@code hash} and key-encryption key are split from the KDF output. */
+    private static final int SPLIT_KEY_VERSION = 2;
+    private static final String SUBKEY_ALGORITHM = "HmacSHA256";
+    private static final String VERIFIER_LABEL = "daily-journal/verifier";
+    private static final String WRAPPING_LABEL = "daily-journal/key-wrapping";
+    private static final String DATA_KEY_CONTEXT = "daily-journal/data-key";
 
     private final String filePath;
+    private final long targetMillis;
     // Salted-KDF credential; null when no password is set or only a legacy hash was loaded.
     private byte[] salt;
     private int iterations;
     private byte[] hash;
+    private int version;
+    // The data key sealed under the key-encryption key; null before the split-key format.
+    private byte[] wrappedKey;
+    // The unwrapped data key; null until a password has been verified or set.
+    private SecretKey dataKey;
     // Legacy bare SHA-256 hex digest; null unless an old-format password.json was loaded.
     private String legacyHash;
 
@@ -48,7 +102,21 @@ public class PasswordManager {
      * @param filePath the path to the file where the password hash is stored
      */
     public PasswordManager(String filePath) {
+        this(filePath, DEFAULT_TARGET_MILLIS);
+    }
+
+    /**
+     * Constructs a {@code PasswordManager} whose key derivation is calibrated to
+     * take about the given time on this machine.
+     *
+     * @param filePath     the path to the file where the password hash is stored
+     * @param targetMillis the desired duration of one key derivation, in milliseconds
+     */
+    public PasswordManager(String filePath, long targetMillis) {
         this.filePath = filePath;
+        this.targetMillis = targetMillis;
+        // Benchmark in the background, so a later login need not wait for it.
+        calibration(targetMillis);
         loadPassword();
     }
 
@@ -75,6 +143,10 @@ public class PasswordManager {
                 this.salt = Base64.getDecoder().decode(json.getString("salt"));
                 this.iterations = Integer.parseInt(json.getString("iterations"));
                 this.hash = Base64.getDecoder().decode(encodedHash);
+                String storedVersion = json.getString("version");
+                this.version = storedVersion != null ? Integer.parseInt(storedVersion) : RAW_HASH_VERSION;
+                String storedKey = json.getString("wrappedKey");
+                this.wrappedKey = storedKey != null ? Base64.getDecoder().decode(storedKey) : null;
             } else {
                 // Fall back to the legacy unsalted SHA-256 digest, if present.
                 this.legacyHash = json.getString("passwordHash");
@@ -95,17 +167,38 @@ public class PasswordManager {
 
     /**
      * Verifies if the provided password matches the stored credential, using a
-     * constant-time comparison. A password stored in the legacy unsalted format
-     * that verifies successfully is transparently upgraded to the salted-KDF
-     * format and rewritten to disk.
+     * constant-time comparison, and unwraps the data key. A password stored in
+     * the legacy unsalted format or in a format without a data key, that verifies
+     * successfully, is rewritten in the split-key format at no less than its
+     * current cost, since the new data key must be on disk before anything is
+     * encrypted under it. Raising the work factor is left to
+     * {@link #rehashIfNeeded(String)}, so that login costs one key derivation.
      *
      * @param password the password to verify
      * @return {@code true} if the password matches, {@code false} otherwise
      */
-    public boolean verifyPassword(String password) {
+    public synchronized boolean verifyPassword(String password) {
         if (hash != null) {
-            byte[] candidate = pbkdf2(password, salt, iterations, hash.length * 8);
-            return MessageDigest.isEqual(candidate, hash);
+            boolean split = version >= SPLIT_KEY_VERSION;
+            byte[] master = pbkdf2(password, salt, iterations, split ? KEY_LENGTH : hash.length * 8);
+            byte[] candidate = split ? subkey(master, VERIFIER_LABEL) : master;
+            if (!MessageDigest.isEqual(candidate, hash)) {
+                return false;
+            }
+            if (split && wrappedKey != null) {
+                try {
+                    JournalCipher wrapping = new JournalCipher(JournalCipher.keyOf(subkey(master, WRAPPING_LABEL)));
+                    dataKey = JournalCipher.keyOf(wrapping.openBytes(wrappedKey, DATA_KEY_CONTEXT));
+                } catch (JournalCipher.DecryptionException e) {
+                    logger.severe(String.format("Error unwrapping the data key: %s - %s", filePath, e.getMessage()));
+                    return false;
+                }
+            }
+            if (!split || wrappedKey == null) {
+                // Move to the split-key format; the work factor is raised later, if at all.
+                storeCredential(password, Math.max(iterations, MIN_ITERATIONS));
+            }
+            return true;
         }
         if (legacyHash != null) {
             boolean matches = MessageDigest.isEqual(
@@ -113,7 +206,7 @@ public class PasswordManager {
                     legacySha256Hex(password).getBytes(StandardCharsets.UTF_8));
             if (matches) {
                 // Migrate the verified legacy password to the salted-KDF format.
-                setPassword(password);
+                storeCredential(password, MIN_ITERATIONS);
             }
             return matches;
         }
@@ -121,25 +214,89 @@ public class PasswordManager {
     }
 
     /**
-     * Sets a new password by deriving a salted hash and storing the salt,
-     * iteration count, and hash in the file.
+     * Re-hashes the credential if its work factor is well below the one
+     * calibrated for this machine, and writes it to disk. Meant to run off the
+     * event dispatch thread once the data key has been handed over. Does nothing
+     * if the calibration has not finished yet; the next login will check again.
+     * The work factor is only ever raised here.
+     *
+     * @param password the password that was just verified
+     * @return {@code true} if the credential was re-hashed
+     */
+    public synchronized boolean rehashIfNeeded(String password) {
+        Integer calibrated = calibration(targetMillis).getNow(null);
+        if (hash == null || calibrated == null || !isCostTooLow(iterations, calibrated)) {
+            return false;
+        }
+        storeCredential(password, calibrated);
+        return true;
+    }
+
+    /**
+     * Returns the work factor of the stored credential.
+     *
+     * @return the PBKDF2 iteration count, or 0 if no salted credential is set
+     */
+    public int getIterations() {
+        return hash != null ? iterations : 0;
+    }
+
+    /**
+     * Returns the key the journal is encrypted with.
+     *
+     * @return the data key, or {@code null} until a password has been verified or set
+     */
+    public SecretKey getDataKey() {
+        return dataKey;
+    }
+
+    /**
+     * Sets a new password by deriving a salted master secret with the calibrated
+     * work factor, and stores the salt, iteration count, verifier and wrapped data
+     * key in the file. The data key already unlocked is kept; without one, for
+     * instance on first use, a new key is generated, and anything encrypted under
+     * an earlier key can no longer be read.
+     * <p>
+     * This is the only place the work factor can go down, for instance after
+     * moving to slower hardware.
      *
      * @param password the new password to set
      */
-    public void setPassword(String password) {
+    public synchronized void setPassword(String password) {
+        storeCredential(password, calibratedIterations(targetMillis));
+    }
+
+    /**
+     * Derives the credential for a password with the given work factor and
+     * writes it, wrapping the data key, which is generated if none is unlocked.
+     *
+     * @param password the password
+     * @param cost     the PBKDF2 iteration count
+     */
+    private void storeCredential(String password, int cost) {
+        if (dataKey == null) {
+            dataKey = JournalCipher.generateKey();
+        }
         byte[] newSalt = new byte[SALT_LENGTH];
         RANDOM.nextBytes(newSalt);
-        byte[] newHash = pbkdf2(password, newSalt, ITERATIONS, KEY_LENGTH);
+        byte[] master = pbkdf2(password, newSalt, cost, KEY_LENGTH);
+        byte[] newHash = subkey(master, VERIFIER_LABEL);
+        JournalCipher wrapping = new JournalCipher(JournalCipher.keyOf(subkey(master, WRAPPING_LABEL)));
+        byte[] newWrappedKey = wrapping.sealBytes(dataKey.getEncoded(), DATA_KEY_CONTEXT);
         this.salt = newSalt;
-        this.iterations = ITERATIONS;
+        this.iterations = cost;
         this.hash = newHash;
+        this.version = SPLIT_KEY_VERSION;
+        this.wrappedKey = newWrappedKey;
         this.legacyHash = null;
 
         JSONObject json = new JSONObject();
         json.put("algo", KDF_ALGORITHM);
+        json.put("version", SPLIT_KEY_VERSION);
         json.put("salt", Base64.getEncoder().encodeToString(newSalt));
-        json.put("iterations", ITERATIONS);
+        json.put("iterations", cost);
         json.put("hash", Base64.getEncoder().encodeToString(newHash));
+        json.put("wrappedKey", Base64.getEncoder().encodeToString(newWrappedKey));
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
             writer.write(json.toString(4));
         } catch (Exception e) {
@@ -147,6 +304,88 @@ public class PasswordManager {
         }
     }
 
+    /**
+     * Returns the work factor calibrated for a target latency, waiting for the
+     * benchmark if it is still running.
+     *
+     * @param targetMillis the desired duration of one key derivation, in milliseconds
+     * @return the iteration count
+     */
+    static int calibratedIterations(long targetMillis) {
+        return calibration(targetMillis).join();
+    }
+
+    /**
+     * Returns the calibration for a target latency, starting the benchmark on a
+     * background thread the first time each target is asked for.
+     */
+    private static CompletableFuture<Integer> calibration(long targetMillis) {
+        return CALIBRATED.computeIfAbsent(targetMillis,
+                target -> CompletableFuture.supplyAsync(() -> calibrate(target)));
+    }
+
+    /**
+     * Times the KDF on this machine and returns the iteration count that takes
+     * about {@code targetMillis}, within {@link #MIN_ITERATIONS} and
+     * {@link #MAX_ITERATIONS}. The probe doubles until one run is long enough to
+     * measure reliably; the first runs also warm up the JIT. The final probe is
+     * then timed a few more times and the fastest run kept, since a run can only
+     * be slowed down by other load, never sped up.
+     *
+     * @param targetMillis the desired duration of one key derivation, in milliseconds
+     * @return the iteration count
+     */
+    static int calibrate(long targetMillis) {
+        byte[] probeSalt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(probeSalt);
+        int probe = 1_000;
+        long elapsed;
+        while (true) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", probeSalt, probe, KEY_LENGTH);
+            elapsed = Math.max(1, System.nanoTime() - start);
+            if (elapsed >= MIN_PROBE_NANOS || probe >= MAX_ITERATIONS) {
+                break;
+            }
+            probe *= 2;
+        }
+        for (int run = 1; run < CALIBRATION_RUNS; run++) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", probeSalt, probe, KEY_LENGTH);
+            elapsed = Math.min(elapsed, Math.max(1, System.nanoTime() - start));
+        }
+        double nanosPerIteration = (double) elapsed / probe;
+        long wanted = (long) (targetMillis * 1_000_000L / nanosPerIteration);
+        int cost = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, wanted));
+        logger.fine(String.format("Calibrated %s to %d iterations for %d ms", KDF_ALGORITHM, cost, targetMillis));
+        return cost;
+    }
+
+    /**
+     * Tells whether a stored work factor is far enough below the calibrated one
+     * to be worth re-hashing. A higher stored cost is always kept.
+     */
+    private static boolean isCostTooLow(int storedIterations, int calibrated) {
+        return storedIterations < MIN_ITERATIONS || storedIterations * REHASH_TOLERANCE < calibrated;
+    }
+
+    /**
+     * Splits a labelled subkey off the KDF output with HMAC-SHA256.
+     *
+     * @param master the KDF output
+     * @param label  what the subkey is for
+     * @return the 256-bit subkey
+     */
+    private static byte[] subkey(byte[] master, String label) {
+        try {
+            Mac mac = Mac.getInstance(SUBKEY_ALGORITHM);
+            mac.init(new SecretKeySpec(master, SUBKEY_ALGORITHM));
+            return mac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+            throw new PasswordHashingException("Failed to derive subkey: " + SUBKEY_ALGORITHM + " not available", ex);
+        }
+    }
+
     /**
      * Derives a hash from the password using PBKDF2 with HMAC-SHA256.
      *
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+
+/**
+ * The {@code PersistentHashMap} class is an immutable hash map stored as a hash
+ * array mapped trie. Each level of the trie consumes five bits of the key's hash
+ * and keeps only the occupied slots, next to a 32-bit bitmap of which slots exist.
+ * {@link #plus} and {@link #minus} return a new map that copies only the nodes on
+ * the path to the key, at most seven, and shares the rest with the original, so
+ * keeping many versions of a large map costs little more than keeping one.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+    private static final BitmapNode EMPTY_NODE = new BitmapNode(0, new Object[0]);
+    private static final PersistentHashMap<Object, Object> EMPTY = new PersistentHashMap<>(EMPTY_NODE, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the map size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value stored under a key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = root.find(0, key.hashCode(), key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    /**
+     * Tells whether a key is present.
+     *
+     * @param key the key
+     * @return {@code true} if the map holds the key
+     */
+    public boolean containsKey(Object key) {
+        return root.find(0, key.hashCode(), key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns a map with {@code key} mapped to {@code value}.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the new map, or this map if the key already maps to that value
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        int[] added = new int[1];
+        Node newRoot = root.put(0, key.hashCode(), key, value, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + added[0]);
+    }
+
+    /**
+     * Returns a map without {@code key}.
+     *
+     * @param key the key to drop
+     * @return the new map, or this map if the key was absent
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        Node newRoot = root.remove(0, key.hashCode(), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot == null ? EMPTY_NODE : newRoot, size - 1);
+    }
+
+    /** A trie node. Updates return the same node when nothing changed. */
+    private interface Node {
+        Object find(int shift, int hash, Object key);
+
+        Node put(int shift, int hash, Object key, Object value, int[] added);
+
+        /** Returns {@code null} when the node becomes empty. */
+        Node remove(int shift, int hash, Object key);
+    }
+
+    /**
+     * A node holding the occupied slots of one level as key/value pairs. A pair
+     * with a {@code null} key holds a child node in place of the value.
+     */
+    private static final class BitmapNode implements Node {
+        private final int bitmap;
+        private final Object[] pairs;
+
+        BitmapNode(int bitmap, Object[] pairs) {
+            this.bitmap = bitmap;
+            this.pairs = pairs;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int slot = 2 * index(bit);
+            Object k = pairs[slot];
+            if (k == null) {
+                return ((Node) pairs[slot + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? pairs[slot + 1] : NOT_FOUND;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, int[] added) {
+            int bit = bit(hash, shift);
+            int slot = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] grown = new Object[pairs.length + 2];
+                System.arraycopy(pairs, 0, grown, 0, slot);
+                grown[slot] = key;
+                grown[slot + 1] = value;
+                System.arraycopy(pairs, slot, grown, slot + 2, pairs.length - slot);
+                added[0] = 1;
+                return new BitmapNode(bitmap | bit, grown);
+            }
+            Object k = pairs[slot];
+            Object v = pairs[slot + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(shift + BITS, hash, key, value, added);
+                return child == v ? this : withPair(slot, null, child);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : withPair(slot, k, value);
+            }
+            // Two keys share this slot: push both one level down.
+            added[0] = 1;
+            return withPair(slot, null, split(shift + BITS, k, v, hash, key, value));
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int slot = 2 * index(bit);
+            Object k = pairs[slot];
+            if (k == null) {
+                Node child = (Node) pairs[slot + 1];
+                Node newChild = child.remove(shift + BITS, hash, key);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return withPair(slot, null, newChild);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] shrunk = new Object[pairs.length - 2];
+            System.arraycopy(pairs, 0, shrunk, 0, slot);
+            System.arraycopy(pairs, slot + 2, shrunk, slot, pairs.length - slot - 2);
+            return new BitmapNode(bitmap & ~bit, shrunk);
+        }
+
+        /**
+         * Returns a copy of this node with one pair replaced.
+         */
+        private BitmapNode withPair(int slot, Object key, Object value) {
+            Object[] copy = pairs.clone();
+            copy[slot] = key;
+            copy[slot + 1] = value;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        /**
+         * Returns the position of a slot among the occupied ones.
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /** A node for keys whose full hashes are equal. */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] pairs;
+
+        CollisionNode(int hash, Object[] pairs) {
+            this.hash = hash;
+            this.pairs = pairs;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int slot = slotOf(key);
+            return slot == -1 ? NOT_FOUND : pairs[slot + 1];
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, int[] added) {
+            if (hash != this.hash) {
+                // A different hash: nest this node in a bitmap node and insert beside it.
+                BitmapNode parent = new BitmapNode(bit(this.hash, shift), new Object[] {null, this});
+                return parent.put(shift, hash, key, value, added);
+            }
+            int slot = slotOf(key);
+            if (slot != -1) {
+                if (pairs[slot + 1] == value) {
+                    return this;
+                }
+                Object[] copy = pairs.clone();
+                copy[slot + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            Object[] grown = Arrays.copyOf(pairs, pairs.length + 2);
+            grown[pairs.length] = key;
+            grown[pairs.length + 1] = value;
+            added[0] = 1;
+            return new CollisionNode(hash, grown);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            int slot = slotOf(key);
+            if (slot == -1) {
+                return this;
+            }
+            if (pairs.length == 2) {
+                return null;
+            }
+            Object[] shrunk = new Object[pairs.length - 2];
+            System.arraycopy(pairs, 0, shrunk, 0, slot);
+            System.arraycopy(pairs, slot + 2, shrunk, slot, pairs.length - slot - 2);
+            return new CollisionNode(hash, shrunk);
+        }
+
+        /**
+         * Returns the index of a key in the pair array, or -1.
+         */
+        private int slotOf(Object key) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (key.equals(pairs[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Builds the subtree holding two keys that collided at the level above.
+     */
+    private static Node split(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        int hash1 = key1.hashCode();
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+        }
+        int[] added = new int[1];
+        return EMPTY_NODE.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+    }
+
+    /**
+     * Returns the bitmap bit of a hash at a level.
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The {@code PersistentVector} class is an immutable list with cheap updates.
+ * Elements are kept in a tree of 32-slot arrays plus a separate tail array for
+ * the last elements. {@link #append}, {@link #update} and {@link #removeLast}
+ * return a new vector that copies only the arrays on the path to the changed
+ * slot, a handful for any realistic size, and shares the rest with the original.
+ * <p>
+ * Because a vector never changes after construction, it can be handed to other
+ * threads without locking. The {@code List} mutators inherited from
+ * {@link AbstractList} throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the element type
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<Object> EMPTY =
+            new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @param <E> the element type
+     * @return the empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Creates a vector holding the elements of a collection, in iteration order.
+     *
+     * @param elements the elements
+     * @param <E>      the element type
+     * @return the vector
+     */
+    public static <E> PersistentVector<E> of(Collection<? extends E> elements) {
+        PersistentVector<E> vector = empty();
+        for (E element : elements) {
+            vector = vector.append(element);
+        }
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Always throws, even when the vector is empty, since a vector cannot change.
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("PersistentVector is immutable");
+    }
+
+    /**
+     * Returns a vector with an element added at the end.
+     *
+     * @param element the element to add
+     * @return the new vector
+     */
+    public PersistentVector<E> append(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full: move it into the tree, growing a level if the tree is full too.
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {element});
+    }
+
+    /**
+     * Returns a vector with the element at {@code index} replaced.
+     *
+     * @param index   the position to replace
+     * @param element the new element
+     * @return the new vector
+     */
+    public PersistentVector<E> update(int index, E element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+
+    /**
+     * Returns a vector without its last element.
+     *
+     * @return the new vector
+     */
+    public PersistentVector<E> removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("empty vector");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail empties: its predecessor leaf leaves the tree and becomes the tail.
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    /**
+     * Returns the index of the first element held in the tail.
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Returns the 32-slot array holding the element at {@code index}.
+     */
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * Copies the path to the next free leaf slot and hangs the old tail there.
+     */
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int slot = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        Object[] insert;
+        if (level == BITS) {
+            insert = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[slot];
+            insert = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        copy[slot] = insert;
+        return copy;
+    }
+
+    /**
+     * Wraps a leaf in single-child nodes down from {@code level}.
+     */
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Copies the path to {@code index} with the element replaced.
+     */
+    private static Object[] assoc(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int slot = (index >>> level) & MASK;
+            copy[slot] = assoc(level - BITS, (Object[]) node[slot], index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the path to the last leaf without it, or returns {@code null} if the
+     * node becomes empty.
+     */
+    private Object[] popTail(int level, Object[] node) {
+        int slot = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = popTail(level - BITS, (Object[]) node[slot]);
+            if (child == null && slot == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[slot] = child;
+            return copy;
+        }
+        if (slot == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[slot] = null;
+        return copy;
+    }
+}
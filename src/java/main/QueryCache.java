@@ -0,0 +1,227 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code QueryCache} class is a bounded, least-recently-used cache of query
+ * results for {@link JournalManager}. Each result is an array of entry ordinals
+ * tagged with the journal version it was computed at.
+ * <p>
+ * The cache also keeps a short history of recent mutations. When a cached result
+ * is older than the current version, that history is consulted: if none of the
+ * entries touched since then match the query, the result is still correct and is
+ * re-stamped with the current version instead of being recomputed. Only when a
+ * relevant entry changed, or the history no longer reaches back far enough, is the
+ * result discarded.
+ * <p>
+ * Results count against the budget of the default {@link CacheManager}. A
+ * result costs a full scan to recompute, so results are shed after cheaper caches.
+ */
+public class QueryCache implements ManagedCache {
+    /** Default number of distinct queries kept. */
+    public static final int DEFAULT_CAPACITY = 32;
+    /** Number of recent mutations remembered for revalidation. */
+    private static final int HISTORY_LIMIT = 256;
+    /** Shedding weight; a result is recomputed by scanning the journal. */
+    private static final int WEIGHT = 3;
+    /** Rough heap cost of a cached result besides its ordinals. */
+    private static final long RESULT_OVERHEAD = 96;
+
+    /** A cached result and the version it is known to be valid at. */
+    private static final class Result {
+        private final int[] ordinals;
+        private long version;
+
+        Result(int[] ordinals, long version) {
+            this.ordinals = ordinals;
+            this.version = version;
+        }
+
+        long size() {
+            return RESULT_OVERHEAD + 4L * ordinals.length;
+        }
+    }
+
+    /** A mutation at some version and the entries it touched. */
+    private static final class Change {
+        private final long version;
+        private final JournalEntry[] touched;
+
+        Change(long version, JournalEntry[] touched) {
+            this.version = version;
+            this.touched = touched;
+        }
+    }
+
+    private final Map<JournalQuery, Result> results;
+    private final ArrayDeque<Change> history = new ArrayDeque<>();
+    // Results stamped before this version cannot be revalidated from the history.
+    private long horizon;
+    private long hits;
+    private long misses;
+    // Written under the lock, read without it by the cache manager.
+    private volatile long bytes;
+
+    /**
+     * Constructs a {@code QueryCache} with the default capacity.
+     */
+    public QueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a {@code QueryCache} holding at most {@code capacity} results.
+     *
+     * @param capacity the maximum number of cached queries
+     */
+    public QueryCache(int capacity) {
+        this.results = new LinkedHashMap<JournalQuery, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JournalQuery, Result> eldest) {
+                if (size() > capacity) {
+                    bytes -= eldest.getValue().size();
+                    return true;
+                }
+                return false;
+            }
+        };
+        CacheManager.getDefault().register(this, WEIGHT);
+    }
+
+    /**
+     * Returns the cached result for a query if it is still valid at {@code version}.
+     *
+     * @param query   the query
+     * @param version the current journal version
+     * @return the cached ordinals, or {@code null} on a miss
+     */
+    public synchronized int[] get(JournalQuery query, long version) {
+        Result result = results.get(query);
+        if (result != null && (result.version == version || revalidate(query, result, version))) {
+            hits++;
+            return result.ordinals;
+        }
+        if (result != null) {
+            results.remove(query);
+            bytes -= result.size();
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores a freshly computed result.
+     *
+     * @param query    the query
+     * @param version  the journal version the result was computed at
+     * @param ordinals the matching entry ordinals; must not be modified afterwards
+     */
+    public void put(JournalQuery query, long version, int[] ordinals) {
+        synchronized (this) {
+            Result result = new Result(ordinals, version);
+            Result previous = results.put(query, result);
+            bytes += result.size() - (previous != null ? previous.size() : 0);
+        }
+        CacheManager.getDefault().checkBudget();
+    }
+
+    /**
+     * Records a mutation so that cached results it cannot affect survive it.
+     *
+     * @param version the journal version produced by the mutation
+     * @param touched every entry whose presence or ordinal the mutation changed,
+     *                in both its old and new form
+     */
+    public synchronized void recordChange(long version, JournalEntry... touched) {
+        history.addLast(new Change(version, touched));
+        if (history.size() > HISTORY_LIMIT) {
+            horizon = history.removeFirst().version;
+        }
+    }
+
+    /**
+     * Drops every cached result, for example after the journal is reloaded.
+     *
+     * @param version the journal version after the wholesale change
+     */
+    public synchronized void invalidateAll(long version) {
+        results.clear();
+        bytes = 0;
+        history.clear();
+        horizon = version;
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to be computed.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results currently cached.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    @Override
+    public String getCacheName() {
+        return "Query results";
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized long shrink(long wanted) {
+        long freed = 0;
+        Iterator<Result> it = results.values().iterator();
+        while (freed < wanted && it.hasNext()) {
+            freed += it.next().size();
+            it.remove();
+        }
+        bytes -= freed;
+        return freed;
+    }
+
+    /**
+     * Re-stamps a stale result if no mutation since it was computed touched an
+     * entry the query matches.
+     */
+    private boolean revalidate(JournalQuery query, Result result, long version) {
+        if (result.version < horizon) {
+            return false;
+        }
+        Iterator<Change> it = history.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version <= result.version) {
+                break;
+            }
+            for (JournalEntry entry : change.touched) {
+                if (entry != null && query.matches(entry)) {
+                    return false;
+                }
+            }
+        }
+        result.version = version;
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The {@code QueryStream} class evaluates a {@link JournalQuery} a page at a time,
+ * so a background worker can show the first results before the whole journal has
+ * been filtered.
+ * <p>
+ * Instead of collecting and sorting every match, the stream walks the journal's
+ * {@link DayIndex} from the newest day backwards and tests the entries of each day
+ * in ordinal order. Results therefore come out already in the order
+ * {@link JournalManager#query(JournalQuery)} returns them, and a date-bounded query
+ * only visits the days in its range. Each page is produced while holding the
+ * journal's lock; if the journal changed since the stream was created, the stream
+ * reports itself stale and stops, and the caller should start over.
+ * <p>
+ * When the journal keeps {@link EntryColumns}, the query is compiled against them
+ * once and each candidate is tested on the columns instead of its entry.
+ */
+public class QueryStream {
+    private static final long[] NO_KEYS = new long[0];
+
+    private final JournalManager journalManager;
+    private final JournalQuery query;
+    private final long version;
+    // The journal's columns and the query compiled for them, or null without columns.
+    private final EntryColumns columns;
+    private final EntryColumns.Filter filter;
+    private long nextDay;
+    private long lastDay;
+    private long[] keys = new long[64];
+    private int size;
+    private int[] scratch = new int[8];
+    private boolean stale;
+
+    /**
+     * Creates a stream over the journal as it is now. Called by
+     * {@link JournalManager#streamQuery(JournalQuery)} with the journal locked.
+     */
+    QueryStream(JournalManager journalManager, JournalQuery query) {
+        this.journalManager = journalManager;
+        this.query = query;
+        this.version = journalManager.getVersion();
+        this.columns = journalManager.getColumns();
+        // Compiled ids stay valid because any change to the columns makes the stream stale.
+        this.filter = columns == null ? null : columns.compile(query);
+        DayIndex dayIndex = journalManager.getDayIndex();
+        int thisYear = LocalDate.now().getYear();
+        long first = LocalDate.of(dayIndex.firstYear(thisYear), 1, 1).toEpochDay();
+        long last = LocalDate.of(dayIndex.lastYear(thisYear), 12, 31).toEpochDay();
+        if (query.getFrom() != null) {
+            first = Math.max(first, query.getFrom().toEpochDay());
+        }
+        if (query.getTo() != null) {
+            last = Math.min(last, query.getTo().toEpochDay());
+        }
+        this.nextDay = last;
+        this.lastDay = first;
+    }
+
+    /**
+     * Returns the journal version the results describe.
+     *
+     * @return the version the stream was created at
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Tells whether the journal changed while the stream was being read.
+     *
+     * @return {@code true} if the results are out of date
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Produces the next matches, as sort keys whose low 32 bits are the entry
+     * ordinals. A page ends at a day boundary once it holds at least
+     * {@code pageSize} matches.
+     *
+     * @param pageSize the number of matches wanted
+     * @return the next page, or {@code null} when the results are complete or stale
+     */
+    public long[] nextPage(int pageSize) {
+        synchronized (journalManager) {
+            if (journalManager.getVersion() != version) {
+                stale = true;
+                return null;
+            }
+            if (nextDay < lastDay) {
+                return null;
+            }
+            DayIndex dayIndex = journalManager.getDayIndex();
+            int start = size;
+            while (nextDay >= lastDay && size - start < pageSize) {
+                LocalDate date = LocalDate.ofEpochDay(nextDay--);
+                int count = dayIndex.ordinalsOn(date, scratch);
+                if (count > scratch.length) {
+                    scratch = new int[Integer.highestOneBit(count) * 2];
+                    dayIndex.ordinalsOn(date, scratch);
+                }
+                // Buckets keep insertion order, which removals disturb; results are in ordinal order.
+                Arrays.sort(scratch, 0, count);
+                for (int i = 0; i < count; i++) {
+                    int ordinal = scratch[i];
+                    boolean matches = columns != null
+                            ? columns.matches(ordinal, filter)
+                            : query.matches(journalManager.getEntryAt(ordinal));
+                    if (matches) {
+                        if (size == keys.length) {
+                            keys = Arrays.copyOf(keys, size * 2);
+                        }
+                        keys[size++] = JournalManager.sortKey(date, ordinal);
+                    }
+                }
+            }
+            if (nextDay < lastDay) {
+                // Complete: let later identical queries hit the cache.
+                journalManager.getQueryCache().put(query, version, getResult());
+            }
+            return size == start ? NO_KEYS : Arrays.copyOfRange(keys, start, size);
+        }
+    }
+
+    /**
+     * Returns every match produced so far as sort keys, in result order.
+     *
+     * @return a new array of keys
+     */
+    public long[] getKeys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Returns every match produced so far as entry ordinals, in result order.
+     *
+     * @return a new array of ordinals
+     */
+    public int[] getResult() {
+        int[] ordinals = new int[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = (int) keys[i];
+        }
+        return ordinals;
+    }
+}
@@ -0,0 +1,379 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The {@code Rope} class is an immutable character sequence stored as a
+ * height-balanced binary tree of small {@code char[]} leaves.
+ * <p>
+ * Inserting, deleting and slicing return a new rope that shares every untouched
+ * leaf with the original, and take O(log n) time. Because a rope never changes,
+ * holding on to one is a free snapshot of the text. {@link #writeTo(Writer)}
+ * streams the leaves without building a {@code String}.
+ */
+public final class Rope implements CharSequence {
+    /** Largest leaf created when building or merging. */
+    static final int LEAF_SIZE = 1024;
+
+    /** The empty rope. */
+    public static final Rope EMPTY = new Rope(new Leaf(new char[0], 0, 0));
+
+    private final Node root;
+
+    /** A tree node: either a leaf of characters or a branch with two children. */
+    private abstract static class Node {
+        final int length;
+        final int height;
+
+        Node(int length, int height) {
+            this.length = length;
+            this.height = height;
+        }
+    }
+
+    /** A run of characters viewed as a range of a shared, never-modified array. */
+    private static final class Leaf extends Node {
+        final char[] chars;
+        final int start;
+
+        Leaf(char[] chars, int start, int length) {
+            super(length, 0);
+            this.chars = chars;
+            this.start = start;
+        }
+    }
+
+    /** An inner node whose text is its left child followed by its right child. */
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a rope holding a copy of the given text.
+     *
+     * @param text the characters
+     * @return the rope
+     */
+    public static Rope of(CharSequence text) {
+        if (text instanceof Rope) {
+            return (Rope) text;
+        }
+        if (text == null || text.length() == 0) {
+            return EMPTY;
+        }
+        return new Rope(build(text, 0, text.length()));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= root.length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + root.length);
+        }
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < branch.left.length) {
+                node = branch.left;
+            } else {
+                index -= branch.left.length;
+                node = branch.right;
+            }
+        }
+        Leaf leaf = (Leaf) node;
+        return leaf.chars[leaf.start + index];
+    }
+
+    /**
+     * Returns a rope with {@code text} inserted at {@code offset}.
+     *
+     * @param offset the insertion point
+     * @param text   the characters to insert
+     * @return the edited rope
+     */
+    public Rope insert(int offset, CharSequence text) {
+        checkRange(offset, offset);
+        if (text.length() == 0) {
+            return this;
+        }
+        Node inserted = text instanceof Rope ? ((Rope) text).root : build(text, 0, text.length());
+        Node[] halves = split(root, offset);
+        return new Rope(join(join(halves[0], inserted), halves[1]));
+    }
+
+    /**
+     * Returns a rope without the characters from {@code from} to {@code to}.
+     *
+     * @param from the first index removed
+     * @param to   the index after the last one removed
+     * @return the edited rope
+     */
+    public Rope delete(int from, int to) {
+        checkRange(from, to);
+        if (from == to) {
+            return this;
+        }
+        Node[] tail = split(root, to);
+        Node[] head = split(tail[0], from);
+        return new Rope(join(head[0], tail[1]));
+    }
+
+    /**
+     * Returns the characters from {@code start} to {@code end} as a rope sharing
+     * this rope's leaves.
+     *
+     * @param start the first index
+     * @param end   the index after the last one
+     * @return the slice
+     */
+    @Override
+    public Rope subSequence(int start, int end) {
+        checkRange(start, end);
+        if (start == 0 && end == root.length) {
+            return this;
+        }
+        return new Rope(split(split(root, end)[0], start)[1]);
+    }
+
+    /**
+     * Returns this rope without leading and trailing whitespace, like {@link String#trim()}.
+     *
+     * @return the trimmed rope
+     */
+    public Rope trim() {
+        int start = 0;
+        int end = root.length;
+        while (start < end && charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return subSequence(start, end);
+    }
+
+    /**
+     * Copies characters into an array.
+     *
+     * @param from     the first index copied
+     * @param to       the index after the last one copied
+     * @param dst      the destination array
+     * @param dstBegin the first index written in {@code dst}
+     */
+    public void getChars(int from, int to, char[] dst, int dstBegin) {
+        checkRange(from, to);
+        copy(root, from, to, dst, dstBegin);
+    }
+
+    /**
+     * Returns the leaf array holding the character at {@code index}, for callers
+     * that can read a partial range without copying. The array must not be modified.
+     *
+     * @param index the character index
+     * @param range receives the offset of {@code index} in the array and the number
+     *              of characters available from there to the end of the leaf
+     * @return the leaf's backing array
+     */
+    char[] leafAt(int index, int[] range) {
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < branch.left.length) {
+                node = branch.left;
+            } else {
+                index -= branch.left.length;
+                node = branch.right;
+            }
+        }
+        Leaf leaf = (Leaf) node;
+        range[0] = leaf.start + index;
+        range[1] = leaf.length - index;
+        return leaf.chars;
+    }
+
+    /**
+     * Writes the whole text to a writer, leaf by leaf.
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Writer out) throws IOException {
+        write(root, out);
+    }
+
+    /**
+     * Returns the height of the tree, for tests of its balance.
+     *
+     * @return the number of branch levels
+     */
+    int height() {
+        return root.height;
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[root.length];
+        copy(root, 0, root.length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Builds a balanced tree over a range of text, with leaves of at most {@link #LEAF_SIZE}.
+     */
+    private static Node build(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length <= LEAF_SIZE) {
+            char[] chars = new char[length];
+            if (text instanceof String) {
+                ((String) text).getChars(from, to, chars, 0);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    chars[i] = text.charAt(from + i);
+                }
+            }
+            return new Leaf(chars, 0, length);
+        }
+        // Split on a leaf boundary so every leaf but the last is full.
+        int leaves = (length + LEAF_SIZE - 1) / LEAF_SIZE;
+        int middle = from + (leaves / 2) * LEAF_SIZE;
+        return new Branch(build(text, from, middle), build(text, middle, to));
+    }
+
+    /**
+     * Splits a tree into the text before {@code offset} and the text from it on.
+     */
+    private static Node[] split(Node node, int offset) {
+        if (offset == 0) {
+            return new Node[] {EMPTY.root, node};
+        }
+        if (offset == node.length) {
+            return new Node[] {node, EMPTY.root};
+        }
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return new Node[] {
+                new Leaf(leaf.chars, leaf.start, offset),
+                new Leaf(leaf.chars, leaf.start + offset, leaf.length - offset)
+            };
+        }
+        Branch branch = (Branch) node;
+        if (offset <= branch.left.length) {
+            Node[] parts = split(branch.left, offset);
+            return new Node[] {parts[0], join(parts[1], branch.right)};
+        }
+        Node[] parts = split(branch.right, offset - branch.left.length);
+        return new Node[] {join(branch.left, parts[0]), parts[1]};
+    }
+
+    /**
+     * Concatenates two trees, keeping the result height-balanced.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.length + right.length <= LEAF_SIZE) {
+            // Merge small neighbours so repeated single-character edits do not fragment the tree.
+            Leaf a = (Leaf) left;
+            Leaf b = (Leaf) right;
+            char[] chars = Arrays.copyOfRange(a.chars, a.start, a.start + a.length + b.length);
+            System.arraycopy(b.chars, b.start, chars, a.length, b.length);
+            return new Leaf(chars, 0, chars.length);
+        }
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Creates a branch, rotating once or twice if the children differ in height by two.
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch l = (Branch) left;
+            if (l.left.height >= l.right.height) {
+                return new Branch(l.left, new Branch(l.right, right));
+            }
+            Branch lr = (Branch) l.right;
+            return new Branch(new Branch(l.left, lr.left), new Branch(lr.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch r = (Branch) right;
+            if (r.right.height >= r.left.height) {
+                return new Branch(new Branch(left, r.left), r.right);
+            }
+            Branch rl = (Branch) r.left;
+            return new Branch(new Branch(left, rl.left), new Branch(rl.right, r.right));
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Copies the characters of a tree range into an array.
+     */
+    private static void copy(Node node, int from, int to, char[] dst, int dstBegin) {
+        if (from >= to) {
+            return;
+        }
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            System.arraycopy(leaf.chars, leaf.start + from, dst, dstBegin, to - from);
+            return;
+        }
+        Branch branch = (Branch) node;
+        int split = branch.left.length;
+        if (from < split) {
+            copy(branch.left, from, Math.min(to, split), dst, dstBegin);
+        }
+        if (to > split) {
+            copy(branch.right, Math.max(0, from - split), to - split, dst, dstBegin + Math.max(0, split - from));
+        }
+    }
+
+    /**
+     * Writes the leaves of a tree in order.
+     */
+    private static void write(Node node, Writer out) throws IOException {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            out.write(leaf.chars, leaf.start, leaf.length);
+            return;
+        }
+        Branch branch = (Branch) node;
+        write(branch.left, out);
+        write(branch.right, out);
+    }
+
+    /**
+     * Verifies that {@code from} and {@code to} delimit a valid range.
+     */
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > root.length || from > to) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + "), length " + root.length);
+        }
+    }
+}
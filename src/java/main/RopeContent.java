@@ -0,0 +1,279 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * The {@code RopeContent} class stores the text of a Swing document in a
+ * {@link Rope}, so typing into a multi-megabyte entry edits a balanced tree in
+ * O(log n) instead of moving the whole buffer as {@code StringContent} and
+ * {@code GapContent} can.
+ * <p>
+ * Like every {@code AbstractDocument.Content}, the text always ends with an
+ * implied newline that is not part of {@link #snapshot()}. Positions move with
+ * edits the same way they do in {@code StringContent} and are held weakly.
+ * As in {@code GapContent}, they are kept sorted behind a virtual gap at the last
+ * edit point and shifted lazily: an edit only adjusts the positions between the
+ * previous edit point and its own, found by binary search, so typing in one
+ * place costs the same however many lines the document has.
+ * Undo records keep the removed text as a rope slice rather than a copy.
+ */
+public class RopeContent implements AbstractDocument.Content {
+    /** Length of the virtual gap; more than any text will use, so it never needs to grow. */
+    private static final long GAP_LENGTH = Long.MAX_VALUE / 4;
+    /** Number of anchors added between sweeps of collected positions, at least. */
+    private static final int SWEEP_INTERVAL = 64;
+
+    private volatile Rope rope = Rope.of("\n");
+    // Sorted by index. An index below gapStart is the offset itself; any other is
+    // the offset plus gapLength. Guarded by the list itself, as is the gap.
+    private final List<Anchor> marks = new ArrayList<>();
+    private long gapStart;
+    private long gapLength = GAP_LENGTH;
+    // Size of the list after the last sweep.
+    private int swept;
+
+    /** A position whose offset is updated as the text changes. */
+    private final class Mark implements Position {
+        private Anchor anchor;
+
+        @Override
+        public int getOffset() {
+            synchronized (marks) {
+                long index = anchor.index;
+                return (int) (index < gapStart ? index : index - gapLength);
+            }
+        }
+    }
+
+    /** The entry of a position in the sorted list; stays until swept once the position is collected. */
+    private static final class Anchor extends WeakReference<Mark> {
+        private long index;
+
+        Anchor(Mark mark, long index) {
+            super(mark);
+            this.index = index;
+        }
+    }
+
+    /**
+     * Constructs an empty content.
+     */
+    public RopeContent() {
+    }
+
+    /**
+     * Returns the current text without the implied trailing newline. The rope is
+     * immutable, so later edits do not affect it and it may be read on any thread.
+     *
+     * @return the text at this moment
+     */
+    public Rope snapshot() {
+        Rope current = rope;
+        return current.subSequence(0, current.length() - 1);
+    }
+
+    @Override
+    public int length() {
+        return rope.length();
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > rope.length()) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        Mark mark = new Mark();
+        synchronized (marks) {
+            if (marks.size() >= swept + Math.max(SWEEP_INTERVAL, swept)) {
+                marks.removeIf(anchor -> anchor.get() == null);
+                swept = marks.size();
+            }
+            long index = offset < gapStart ? offset : offset + gapLength;
+            mark.anchor = new Anchor(mark, index);
+            marks.add(lowerBound(index), mark.anchor);
+        }
+        return mark;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= rope.length()) {
+            throw new BadLocationException("Invalid insert", where);
+        }
+        Rope inserted = Rope.of(str);
+        insert(where, inserted);
+        return new InsertUndo(where, inserted.length());
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= rope.length()) {
+            throw new BadLocationException("Invalid remove", where + nitems);
+        }
+        Rope removed = delete(where, nitems);
+        return new RemoveUndo(where, removed);
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        Rope current = rope;
+        checkRead(current, where, len);
+        return current.subSequence(where, where + len).toString();
+    }
+
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        Rope current = rope;
+        checkRead(current, where, len);
+        if (txt.isPartialReturn() && len > 0) {
+            // Hand out the leaf array itself; callers of a partial segment ask again for the rest.
+            int[] range = new int[2];
+            txt.array = current.leafAt(where, range);
+            txt.offset = range[0];
+            txt.count = Math.min(len, range[1]);
+            return;
+        }
+        char[] chars = new char[len];
+        current.getChars(where, where + len, chars, 0);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    /**
+     * Inserts text and moves the positions after it.
+     */
+    private void insert(int where, Rope text) {
+        rope = rope.insert(where, text);
+        synchronized (marks) {
+            moveGap(where);
+            gapStart += text.length();
+            gapLength -= text.length();
+            if (where == 0) {
+                // Like StringContent, a position at 0 stays at the start of the document.
+                long gapEnd = gapStart + gapLength;
+                for (int i = lowerBound(gapEnd); i < marks.size() && marks.get(i).index == gapEnd; i++) {
+                    marks.get(i).index = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes text, collapsing positions inside it, and returns the removed slice.
+     */
+    private Rope delete(int where, int nitems) {
+        Rope current = rope;
+        Rope removed = current.subSequence(where, where + nitems);
+        rope = current.delete(where, where + nitems);
+        synchronized (marks) {
+            moveGap(where);
+            long gapEnd = gapStart + gapLength;
+            long removedEnd = gapEnd + nitems;
+            for (int i = lowerBound(gapEnd), end = lowerBound(removedEnd); i < end; i++) {
+                marks.get(i).index = removedEnd;
+            }
+            gapLength += nitems;
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the gap to an offset, re-indexing only the positions it passes over.
+     * They keep their order, so the list stays sorted.
+     */
+    private void moveGap(long where) {
+        if (where < gapStart) {
+            for (int i = lowerBound(where), end = lowerBound(gapStart); i < end; i++) {
+                marks.get(i).index += gapLength;
+            }
+        } else if (where > gapStart) {
+            for (int i = lowerBound(gapStart + gapLength), end = lowerBound(where + gapLength); i < end; i++) {
+                marks.get(i).index -= gapLength;
+            }
+        }
+        gapStart = where;
+    }
+
+    /**
+     * Returns the position in the list of the first anchor at or after an index.
+     */
+    private int lowerBound(long index) {
+        int low = 0;
+        int high = marks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (marks.get(mid).index < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Verifies that a read range lies inside the text.
+     */
+    private static void checkRead(Rope current, int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > current.length()) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+    }
+
+    /** Undoes an insertion by removing it again, keeping the text for redo. */
+    private final class InsertUndo extends AbstractUndoableEdit {
+        private final int offset;
+        private final int length;
+        private Rope text;
+
+        InsertUndo(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            text = delete(offset, length);
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            insert(offset, text);
+            text = null;
+        }
+    }
+
+    /** Undoes a removal by inserting the removed slice again. */
+    private final class RemoveUndo extends AbstractUndoableEdit {
+        private final int offset;
+        private final Rope text;
+
+        RemoveUndo(int offset, Rope text) {
+            this.offset = offset;
+            this.text = text;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            insert(offset, text);
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            delete(offset, text.length());
+        }
+    }
+}
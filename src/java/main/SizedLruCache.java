@@ -0,0 +1,154 @@
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@code SizedLruCache} class is a bounded least-recently-used map that
+ * estimates the heap its values hold and takes part in the budget of the default
+ * {@link CacheManager}. Values may be held through soft references, in which case
+ * a value reclaimed by the garbage collector reads as a miss.
+ * <p>
+ * All methods are synchronized, so the cache can be used from one thread while
+ * the manager sheds entries from another.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SizedLruCache<K, V> implements ManagedCache {
+    /** Rough heap cost of a map entry and its slot, on top of the value. */
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final String name;
+    private final boolean soft;
+    private final ToLongFunction<? super V> sizer;
+    private final Map<K, Slot> slots;
+    private volatile long bytes;
+
+    /** A cached value, held strongly or softly, and its estimated size. */
+    private final class Slot {
+        private final Object value;
+        private final long size;
+
+        Slot(V value, long size) {
+            this.value = soft ? new SoftReference<>(value) : value;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get() {
+            return soft ? ((SoftReference<V>) value).get() : (V) value;
+        }
+    }
+
+    /**
+     * Constructs a cache and registers it with the default {@link CacheManager}.
+     *
+     * @param name     the name usage is reported under
+     * @param capacity the maximum number of entries
+     * @param weight   how valuable the entries are; lower weights are shed first
+     * @param soft     {@code true} to hold values through soft references
+     * @param sizer    estimates the heap held by a value
+     */
+    public SizedLruCache(String name, int capacity, int weight, boolean soft, ToLongFunction<? super V> sizer) {
+        this.name = name;
+        this.soft = soft;
+        this.sizer = sizer;
+        this.slots = new LinkedHashMap<K, Slot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Slot> eldest) {
+                if (size() > capacity) {
+                    bytes -= eldest.getValue().size;
+                    return true;
+                }
+                return false;
+            }
+        };
+        CacheManager.getDefault().register(this, weight);
+    }
+
+    /**
+     * Returns the value cached under a key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if it was never cached, evicted, or reclaimed
+     */
+    public synchronized V get(K key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        V value = slot.get();
+        if (value == null) {
+            remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value, replacing any value under the same key.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        synchronized (this) {
+            Slot slot = new Slot(value, ENTRY_OVERHEAD + sizer.applyAsLong(value));
+            Slot previous = slots.put(key, slot);
+            bytes += slot.size - (previous != null ? previous.size : 0);
+        }
+        CacheManager.getDefault().checkBudget();
+    }
+
+    /**
+     * Removes the value under a key.
+     *
+     * @param key the key
+     */
+    public synchronized void remove(K key) {
+        Slot slot = slots.remove(key);
+        if (slot != null) {
+            bytes -= slot.size;
+        }
+    }
+
+    /**
+     * Drops every value.
+     */
+    public synchronized void clear() {
+        slots.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of entries, including reclaimed ones not yet noticed.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    @Override
+    public String getCacheName() {
+        return name;
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized long shrink(long wanted) {
+        long freed = 0;
+        Iterator<Slot> it = slots.values().iterator();
+        while (freed < wanted && it.hasNext()) {
+            freed += it.next().size;
+            it.remove();
+        }
+        bytes -= freed;
+        return freed;
+    }
+}
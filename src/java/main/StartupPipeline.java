@@ -0,0 +1,229 @@
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.crypto.SecretKey;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * The {@code StartupPipeline} class orchestrates application startup so that its
+ * slow steps overlap instead of running one after another on the event dispatch
+ * thread.
+ * <p>
+ * {@link #start()} reads the password file and reads and parses the journal file
+ * on background threads at once, before the password dialog is shown. The
+ * journal's metadata is encrypted too, so neither the records nor the window
+ * built from them can be ready before the login has unwrapped the data key.
+ * {@link JournalAuthentication} derives the key off the event dispatch thread
+ * and hands it over from its worker the moment it is unwrapped; {@link #open(SecretKey)}
+ * then decrypts the metadata in parallel and loads the tags alongside, and the
+ * main window is built on the event dispatch thread as soon as both are in, while
+ * the progress dialog may still be up. The password calibration runs in the
+ * background from the start, and any re-hash of the password runs separately
+ * after the key has been handed over. Unlocking a large journal thus costs little
+ * more than the key derivation and the parallel decryption.
+ * <p>
+ * The panels read the journal's indexes when they are constructed, and those are
+ * not safe to read while a load is filling them, so the window is built after the
+ * load rather than during it.
+ */
+public class StartupPipeline {
+    private static final Logger logger = Logger.getLogger(StartupPipeline.class.getName());
+
+    private final String journalFile;
+    private final String tagsFile;
+    private final String passwordFile;
+    private final File contentDirectory;
+    private ExecutorService executor;
+    private CompletableFuture<PasswordManager> passwordManager;
+    // The manager with its file read and parsed, but nothing loaded yet.
+    private CompletableFuture<JournalManager> preloaded;
+    private CompletableFuture<JSONArray> records;
+    private CompletableFuture<TagsManager> tagsManager;
+    private CompletableFuture<JournalManager> journalManager;
+    private CompletableFuture<JournalApp> window;
+
+    /**
+     * Constructs a pipeline over the application's files. Nothing is read until
+     * {@link #start()} is called.
+     *
+     * @param journalFile      the journal entries file
+     * @param tagsFile         the global tags file
+     * @param passwordFile     the stored credential
+     * @param contentDirectory the spill directory for entry content, or {@code null} to keep it on the heap
+     */
+    public StartupPipeline(String journalFile, String tagsFile, String passwordFile, File contentDirectory) {
+        this.journalFile = journalFile;
+        this.tagsFile = tagsFile;
+        this.passwordFile = passwordFile;
+        this.contentDirectory = contentDirectory;
+    }
+
+    /**
+     * Starts reading the password file and the journal file in parallel on
+     * background threads, and returns at once.
+     *
+     * @return this pipeline
+     */
+    public synchronized StartupPipeline start() {
+        if (executor != null) {
+            return this;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "startup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        passwordManager = CompletableFuture.supplyAsync(() -> new PasswordManager(passwordFile), executor);
+        preloaded = CompletableFuture.supplyAsync(() -> {
+            JournalManager journal = new JournalManager(journalFile, true);
+            if (contentDirectory != null) {
+                journal.setContentStore(new ContentStore(contentDirectory));
+            }
+            return journal;
+        }, executor);
+        records = preloaded.thenApplyAsync(JournalManager::readRecords, executor);
+        return this;
+    }
+
+    /**
+     * Loads the journal and the tags in parallel, decrypting them with the given
+     * data key, and seals anything that was still stored in plaintext. Returns at
+     * once; starts the pipeline if needed.
+     *
+     * @param dataKey the unwrapped data key, or {@code null} for a plaintext journal
+     * @return the pending journal manager, as {@link #getJournalManager()}
+     */
+    public synchronized CompletableFuture<JournalManager> open(SecretKey dataKey) {
+        start();
+        if (journalManager != null) {
+            return journalManager;
+        }
+        JournalCipher cipher = dataKey != null ? new JournalCipher(dataKey) : null;
+        tagsManager = CompletableFuture.supplyAsync(() -> {
+            TagsManager tags = new TagsManager(tagsFile);
+            tags.setCipher(cipher);
+            tags.loadTags();
+            tags.flush();
+            return tags;
+        }, executor);
+        journalManager = preloaded.thenCombineAsync(records, (journal, parsed) -> {
+            journal.setCipher(cipher);
+            journal.loadEntries(parsed);
+            journal.saveChanges();
+            return journal;
+        }, executor).thenCombine(tagsManager, (journal, tags) -> {
+            journal.setTagsManager(tags);
+            return journal;
+        });
+        // Nothing is scheduled on the startup threads after the journal is loaded.
+        journalManager.whenComplete((journal, error) -> executor.shutdown());
+        return journalManager;
+    }
+
+    /**
+     * Returns the password manager, completed once its file has been read.
+     *
+     * @return the pending password manager
+     * @throws IllegalStateException if the pipeline has not been started
+     */
+    public synchronized CompletableFuture<PasswordManager> getPasswordManager() {
+        if (passwordManager == null) {
+            throw new IllegalStateException("Startup pipeline has not been started");
+        }
+        return passwordManager;
+    }
+
+    /**
+     * Returns the tags manager, completed once the tags have been loaded.
+     *
+     * @return the pending tags manager
+     * @throws IllegalStateException if the journal has not been opened
+     */
+    public synchronized CompletableFuture<TagsManager> getTagsManager() {
+        requireOpened();
+        return tagsManager;
+    }
+
+    /**
+     * Returns the journal manager, completed once the entries have been loaded
+     * and the tags manager attached.
+     *
+     * @return the pending journal manager
+     * @throws IllegalStateException if the journal has not been opened
+     */
+    public synchronized CompletableFuture<JournalManager> getJournalManager() {
+        requireOpened();
+        return journalManager;
+    }
+
+    /**
+     * Authenticates the user once the password file has been read, opens the
+     * journal with the unwrapped data key and shows the main window once it is
+     * loaded, or exits if the login fails. Returns at once without waiting on the
+     * password file; starts the pipeline if needed.
+     */
+    public void launch() {
+        start();
+        getPasswordManager()
+                .thenAcceptAsync(this::authenticate, SwingUtilities::invokeLater)
+                .exceptionally(error -> {
+                    fail(error);
+                    return null;
+                });
+    }
+
+    /**
+     * Runs the login on the event dispatch thread and shows the main window once
+     * it has been built, or exits if the login fails.
+     */
+    private void authenticate(PasswordManager passwords) {
+        if (!JournalAuthentication.authenticate(passwords, this::openWindow)) {
+            System.exit(0);
+        }
+        getWindow().whenCompleteAsync((frame, error) -> {
+            if (error != null) {
+                fail(error);
+            }
+            frame.setVisible(true);
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Opens the journal and builds the main window on the event dispatch thread
+     * as soon as it is loaded. Called from the login worker with the unwrapped key.
+     */
+    private synchronized void openWindow(SecretKey dataKey) {
+        window = open(dataKey)
+                .thenApplyAsync(journal -> new JournalApp(journal, tagsManager.join()), SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Returns the main window being built.
+     */
+    private synchronized CompletableFuture<JournalApp> getWindow() {
+        return window;
+    }
+
+    /**
+     * Reports a startup failure and exits.
+     */
+    private static void fail(Throwable error) {
+        logger.severe(String.format("Error starting the journal: %s", error.getMessage()));
+        JOptionPane.showMessageDialog(null, "The journal could not be opened. Exiting.");
+        System.exit(1);
+    }
+
+    /**
+     * Throws unless {@link #open(SecretKey)} has been called.
+     */
+    private void requireOpened() {
+        if (journalManager == null) {
+            throw new IllegalStateException("Journal has not been opened");
+        }
+    }
+}
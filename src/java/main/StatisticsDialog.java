@@ -0,0 +1,158 @@
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * The {@code StatisticsDialog} class shows writing statistics for the journal:
+ * totals for the current week, month and year, a rolling 30-day total, the
+ * current and longest writing streaks, and tables of entries per week, month and
+ * year. Every number is a range query or bitset scan on the journal's
+ * {@link ActivityIndex}, so opening the dialog does not scan the entries. A
+ * further tab reports the memory held by each cache of the {@link CacheManager}.
+ */
+public class StatisticsDialog extends JDialog {
+    private static final int RECENT_WEEKS = 12;
+    private static final int RECENT_MONTHS = 12;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /**
+     * Constructs a {@code StatisticsDialog} for the given journal.
+     *
+     * @param parent         the parent frame of the dialog
+     * @param journalManager the journal to summarize
+     */
+    public StatisticsDialog(Frame parent, JournalManager journalManager) {
+        super(parent, "Statistics", true);
+        setSize(420, 460);
+        setLocationRelativeTo(parent);
+
+        ActivityIndex activity = journalManager.getActivityIndex();
+        LocalDate today = LocalDate.now();
+
+        JPanel mainPanel = new JPanel(new BorderLayout(0, 10));
+        mainPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        getContentPane().add(mainPanel);
+
+        mainPanel.add(createSummaryPanel(activity, today), BorderLayout.NORTH);
+
+        JTabbedPane tables = new JTabbedPane();
+        tables.addTab("Weekly", new JScrollPane(createWeeklyTable(activity, today)));
+        tables.addTab("Monthly", new JScrollPane(createMonthlyTable(activity, today)));
+        tables.addTab("Yearly", new JScrollPane(createYearlyTable(journalManager, today)));
+        tables.addTab("Caches", new JScrollPane(createCacheTable(CacheManager.getDefault())));
+        mainPanel.add(tables, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+        buttonPanel.add(closeButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Creates the grid of headline numbers.
+     */
+    private JPanel createSummaryPanel(ActivityIndex activity, LocalDate today) {
+        LocalDate weekStart = weekStart(today);
+        JPanel summary = new JPanel(new GridLayout(0, 2, 10, 4));
+        addRow(summary, "Total entries:", activity.total());
+        addRow(summary, "This week:", activity.count(weekStart, weekStart.plusDays(6)));
+        addRow(summary, "This month:", activity.count(today.withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth())));
+        addRow(summary, "This year:", activity.count(today.withDayOfYear(1), today.withDayOfYear(today.lengthOfYear())));
+        addRow(summary, "Last 30 days:", activity.count(today.minusDays(29), today));
+        addRow(summary, "Current streak (days):", activity.currentStreak(today));
+        addRow(summary, "Longest streak (days):", activity.longestStreak());
+        return summary;
+    }
+
+    /**
+     * Creates the table of entries in each of the last weeks, newest first.
+     */
+    private JTable createWeeklyTable(ActivityIndex activity, LocalDate today) {
+        DefaultTableModel model = createModel("Week of");
+        LocalDate start = weekStart(today);
+        for (int i = 0; i < RECENT_WEEKS; i++) {
+            model.addRow(new Object[] {start, activity.count(start, start.plusDays(6))});
+            start = start.minusWeeks(1);
+        }
+        return new JTable(model);
+    }
+
+    /**
+     * Creates the table of entries in each of the last months, newest first.
+     */
+    private JTable createMonthlyTable(ActivityIndex activity, LocalDate today) {
+        DefaultTableModel model = createModel("Month");
+        YearMonth month = YearMonth.from(today);
+        for (int i = 0; i < RECENT_MONTHS; i++) {
+            model.addRow(new Object[] {month.format(MONTH_FORMAT),
+                activity.count(month.atDay(1), month.atEndOfMonth())});
+            month = month.minusMonths(1);
+        }
+        return new JTable(model);
+    }
+
+    /**
+     * Creates the table of entries in every year since the first entry, newest first.
+     */
+    private JTable createYearlyTable(JournalManager journalManager, LocalDate today) {
+        DefaultTableModel model = createModel("Year");
+        ActivityIndex activity = journalManager.getActivityIndex();
+        int first = journalManager.getDayIndex().firstYear(today.getYear());
+        for (int year = today.getYear(); year >= first; year--) {
+            model.addRow(new Object[] {year,
+                activity.count(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31))});
+        }
+        return new JTable(model);
+    }
+
+    /**
+     * Creates the table of memory held per cache, with the total and the budget.
+     */
+    private JTable createCacheTable(CacheManager cacheManager) {
+        DefaultTableModel model = new DefaultTableModel(new Object[] {"Cache", "KB"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (Map.Entry<String, Long> usage : cacheManager.getUsage().entrySet()) {
+            model.addRow(new Object[] {usage.getKey(), usage.getValue() / 1024});
+        }
+        model.addRow(new Object[] {"Total", cacheManager.getTotalBytes() / 1024});
+        model.addRow(new Object[] {"Budget", cacheManager.getBudget() / 1024});
+        return new JTable(model);
+    }
+
+    /**
+     * Creates a read-only two-column model for a period label and its entry count.
+     */
+    private static DefaultTableModel createModel(String periodHeader) {
+        return new DefaultTableModel(new Object[] {periodHeader, "Entries"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Adds a label and value pair to the summary grid.
+     */
+    private static void addRow(JPanel panel, String label, int value) {
+        panel.add(new JLabel(label));
+        panel.add(new JLabel(Integer.toString(value)));
+    }
+
+    /**
+     * Returns the Sunday that starts the week containing a day, matching the heatmap columns.
+     */
+    private static LocalDate weekStart(LocalDate day) {
+        return day.minusDays(day.getDayOfWeek().getValue() % 7L);
+    }
+}
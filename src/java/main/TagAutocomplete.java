@@ -0,0 +1,242 @@
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * The {@code TagAutocomplete} class attaches a prefix-suggestion popup to a tag
+ * text field. As the user types, matching tags are looked up in the
+ * {@link TagsManager} trie on a background thread; a newer keystroke cancels any
+ * lookup still in flight, and results that arrive for a stale prefix are dropped.
+ * <p>
+ * Up/Down move through the suggestions, Enter accepts the highlighted one, and
+ * Escape closes the popup.
+ */
+public class TagAutocomplete {
+    private static final Logger logger = Logger.getLogger(TagAutocomplete.class.getName());
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final String ACCEPT_ACTION = "tagAutocomplete.accept";
+
+    private final JTextField field;
+    private final TagsManager tagsManager;
+    private final DefaultListModel<String> suggestionsModel = new DefaultListModel<>();
+    private final JList<String> suggestionsList = new JList<>(suggestionsModel);
+    private final JPopupMenu popup = new JPopupMenu();
+    private SwingWorker<List<String>, Void> pending;
+    // Incremented for every lookup so late results for an older prefix are ignored.
+    private long generation;
+    private boolean applying;
+
+    /**
+     * Attaches autocompletion to the given field.
+     *
+     * @param field       the tag input field
+     * @param tagsManager the source of known tags
+     * @return the installed {@code TagAutocomplete}
+     */
+    public static TagAutocomplete install(JTextField field, TagsManager tagsManager) {
+        return new TagAutocomplete(field, tagsManager);
+    }
+
+    private TagAutocomplete(JTextField field, TagsManager tagsManager) {
+        this.field = field;
+        this.tagsManager = tagsManager;
+
+        suggestionsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionsList.setFocusable(false);
+        suggestionsList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                acceptSelection();
+            }
+        });
+        JScrollPane scroll = new JScrollPane(suggestionsList);
+        scroll.setBorder(null);
+        popup.setFocusable(false);
+        popup.add(scroll);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                requestSuggestions();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                requestSuggestions();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not affect the prefix.
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                hidePopup();
+            }
+        });
+        installKeyBindings();
+    }
+
+    /**
+     * Binds Up/Down/Enter/Escape on the field to drive the popup.
+     */
+    private void installKeyBindings() {
+        InputMap inputMap = field.getInputMap(JComponent.WHEN_FOCUSED);
+        ActionMap actionMap = field.getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "tagAutocomplete.down");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "tagAutocomplete.up");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "tagAutocomplete.hide");
+        actionMap.put("tagAutocomplete.down", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveSelection(1);
+            }
+        });
+        actionMap.put("tagAutocomplete.up", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moveSelection(-1);
+            }
+        });
+        actionMap.put("tagAutocomplete.hide", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                hidePopup();
+            }
+        });
+        // Enter accepts a highlighted suggestion, otherwise falls through to the field's action.
+        Object enterKey = inputMap.get(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0));
+        Action fallback = enterKey != null ? actionMap.get(enterKey) : null;
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), ACCEPT_ACTION);
+        actionMap.put(ACCEPT_ACTION, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (popup.isVisible() && suggestionsList.getSelectedIndex() >= 0) {
+                    acceptSelection();
+                } else if (fallback != null) {
+                    fallback.actionPerformed(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts a background lookup for the current field text, cancelling any
+     * lookup that is still running for an older prefix.
+     */
+    private void requestSuggestions() {
+        if (applying) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        final String prefix = field.getText().trim();
+        final long requestId = ++generation;
+        if (prefix.isEmpty()) {
+            hidePopup();
+            return;
+        }
+        pending = new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                return tagsManager.suggestTags(prefix, MAX_SUGGESTIONS);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || requestId != generation) {
+                    return;
+                }
+                showSuggestions(result(this));
+            }
+        };
+        pending.execute();
+    }
+
+    /**
+     * Returns a finished lookup's suggestions, or an empty list if it failed.
+     */
+    private static List<String> result(SwingWorker<List<String>, Void> worker) {
+        try {
+            return worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Tag suggestion lookup failed", e.getCause());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Shows the given suggestions below the field, or hides the popup if there are none.
+     */
+    private void showSuggestions(List<String> suggestions) {
+        suggestionsModel.clear();
+        String typed = field.getText().trim();
+        for (String s : suggestions) {
+            if (!s.equals(typed)) {
+                suggestionsModel.addElement(s);
+            }
+        }
+        if (suggestionsModel.isEmpty() || !field.isShowing()) {
+            hidePopup();
+            return;
+        }
+        suggestionsList.setVisibleRowCount(Math.min(suggestionsModel.size(), MAX_SUGGESTIONS));
+        suggestionsList.clearSelection();
+        popup.setPopupSize(new Dimension(field.getWidth(), popup.getPreferredSize().height));
+        popup.show(field, 0, field.getHeight());
+    }
+
+    /**
+     * Moves the highlighted suggestion up or down, wrapping around.
+     */
+    private void moveSelection(int delta) {
+        if (!popup.isVisible() || suggestionsModel.isEmpty()) {
+            return;
+        }
+        int size = suggestionsModel.size();
+        int index = (suggestionsList.getSelectedIndex() + delta + size) % size;
+        suggestionsList.setSelectedIndex(index);
+        suggestionsList.ensureIndexIsVisible(index);
+    }
+
+    /**
+     * Replaces the field text with the highlighted suggestion and closes the popup.
+     */
+    private void acceptSelection() {
+        String selected = suggestionsList.getSelectedValue();
+        if (selected != null) {
+            applying = true;
+            try {
+                field.setText(selected);
+            } finally {
+                applying = false;
+            }
+        }
+        hidePopup();
+    }
+
+    /**
+     * Hides the suggestion popup.
+     */
+    private void hidePopup() {
+        popup.setVisible(false);
+    }
+}
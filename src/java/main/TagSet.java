@@ -0,0 +1,137 @@
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code TagSet} class is the immutable, shared set of tags carried by a
+ * {@link JournalEntry}. Most entries reuse a few tag combinations, so sets are
+ * interned through a weak canonicalization map: every entry tagged
+ * {@code ["personal", "health"]} refers to the same instance, which is reclaimed
+ * once no entry uses it.
+ * <p>
+ * Tags keep the order they were first given in, since that order is shown and
+ * saved, and duplicates are dropped. Every tag name is given a process-wide
+ * integer id; a set also keeps its ids sorted, or as a bitmask when they are all
+ * below 64, so {@link #contains(Object)} is a bit test or a binary search. The
+ * set is a read-only {@code List}; its mutators throw
+ * {@link UnsupportedOperationException}.
+ */
+public final class TagSet extends AbstractList<String> implements RandomAccess {
+    /** The set without tags. */
+    public static final TagSet EMPTY = new TagSet(new String[0]);
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final Map<TagSet, WeakReference<TagSet>> CANONICAL = new WeakHashMap<>();
+
+    private final String[] names;
+    // Bit i is set for tag id i; used when every id is below 64.
+    private final long mask;
+    // Sorted ids, or null when the mask covers them all.
+    private final int[] sortedIds;
+    private final int hash;
+
+    private TagSet(String[] names) {
+        this.names = names;
+        int[] ids = new int[names.length];
+        long bits = 0;
+        boolean small = true;
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = idOf(names[i]);
+            if (ids[i] < Long.SIZE) {
+                bits |= 1L << ids[i];
+            } else {
+                small = false;
+            }
+        }
+        Arrays.sort(ids);
+        this.mask = bits;
+        this.sortedIds = small ? null : ids;
+        this.hash = Arrays.asList(names).hashCode();
+    }
+
+    /**
+     * Returns the canonical set of the given tags, in their order, without
+     * {@code null}s or duplicates.
+     *
+     * @param tags the tags, or {@code null} for none
+     * @return the shared set
+     */
+    public static TagSet of(Collection<String> tags) {
+        if (tags instanceof TagSet) {
+            return (TagSet) tags;
+        }
+        if (tags == null || tags.isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> unique = new LinkedHashSet<>(tags);
+        unique.remove(null);
+        if (unique.isEmpty()) {
+            return EMPTY;
+        }
+        TagSet candidate = new TagSet(unique.toArray(new String[0]));
+        synchronized (CANONICAL) {
+            WeakReference<TagSet> ref = CANONICAL.get(candidate);
+            TagSet existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            CANONICAL.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        return names[index];
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean contains(Object tag) {
+        Integer id = tag == null ? null : IDS.get(tag);
+        if (id == null) {
+            return false;
+        }
+        if (sortedIds == null) {
+            return id < Long.SIZE && (mask & (1L << id)) != 0;
+        }
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof TagSet) {
+            return o == this || hash == o.hashCode() && Arrays.equals(names, ((TagSet) o).names);
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Returns the id of a tag name, assigning the next one if it is new.
+     */
+    private static int idOf(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (IDS) {
+            return IDS.computeIfAbsent(name, n -> IDS.size());
+        }
+    }
+}
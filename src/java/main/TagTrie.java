@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code TagTrie} class is a compressed prefix trie (radix tree) of tag names,
+ * used to answer "which tags start with this prefix?" for tag autocompletion.
+ * <p>
+ * Each tag carries a usage count, and every node caches the highest count found
+ * anywhere in its subtree. Suggestions are produced by a best-first walk that
+ * follows those cached maxima, so asking for the top few completions only visits
+ * the branches that can actually contribute to the answer rather than every tag
+ * sharing the prefix.
+ * <p>
+ * This class is not thread-safe; {@link TagsManager} guards access to it.
+ */
+public class TagTrie {
+
+    /**
+     * A node of the radix tree. The edge leading into the node is labelled with
+     * {@code label}; a terminal node marks the end of a stored tag.
+     */
+    private static final class Node {
+        private String label;
+        private Map<Character, Node> children;
+        private String tag;
+        private int count;
+        // Highest usage count of any tag in this subtree, or -1 if the subtree is empty.
+        private int best = -1;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        boolean isTerminal() {
+            return tag != null;
+        }
+
+        Node child(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        void putChild(Node node) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            children.put(node.label.charAt(0), node);
+        }
+
+        void recomputeBest() {
+            int max = isTerminal() ? count : -1;
+            if (children != null) {
+                for (Node c : children.values()) {
+                    max = Math.max(max, c.best);
+                }
+            }
+            best = max;
+        }
+    }
+
+    /**
+     * A pending item in the best-first suggestion search: either a subtree still
+     * to be expanded or a tag ready to be emitted.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final Node node;
+        private final boolean emit;
+        private final int score;
+
+        Candidate(Node node, boolean emit) {
+            this.node = node;
+            this.emit = emit;
+            this.score = emit ? node.count : node.best;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            if (score != o.score) {
+                return Integer.compare(o.score, score);
+            }
+            // On equal scores, emit ready tags (alphabetically) before expanding subtrees.
+            if (emit != o.emit) {
+                return emit ? -1 : 1;
+            }
+            return emit ? node.tag.compareTo(o.node.tag) : 0;
+        }
+    }
+
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * Returns the number of tags stored in the trie.
+     *
+     * @return the tag count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the given tag is stored in the trie.
+     *
+     * @param tag the tag to look up
+     * @return {@code true} if the tag is present
+     */
+    public boolean contains(String tag) {
+        return tag != null && find(tag) != null;
+    }
+
+    /**
+     * Inserts a tag with a usage count of zero. Inserting a tag that is already
+     * present leaves its count unchanged.
+     *
+     * @param tag the tag to insert
+     * @return {@code true} if the tag was newly added
+     */
+    public boolean insert(String tag) {
+        if (tag == null || tag.isEmpty()) {
+            return false;
+        }
+        boolean added = insert(root, tag, 0);
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    private boolean insert(Node node, String rest, int offset) {
+        if (offset == rest.length()) {
+            if (node.isTerminal()) {
+                return false;
+            }
+            node.tag = rest;
+            node.count = 0;
+            node.recomputeBest();
+            return true;
+        }
+        Node child = node.child(rest.charAt(offset));
+        if (child == null) {
+            Node leaf = new Node(rest.substring(offset));
+            leaf.tag = rest;
+            leaf.best = 0;
+            node.putChild(leaf);
+            node.recomputeBest();
+            return true;
+        }
+        int common = commonPrefix(child.label, rest, offset);
+        if (common < child.label.length()) {
+            // Split the edge: the shared prefix becomes a new interior node.
+            Node split = new Node(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.putChild(child);
+            split.recomputeBest();
+            node.putChild(split);
+            child = split;
+        }
+        boolean added = insert(child, rest, offset + common);
+        node.recomputeBest();
+        return added;
+    }
+
+    /**
+     * Removes a tag from the trie, merging any interior node left with a single
+     * child back into that child to keep the tree compressed.
+     *
+     * @param tag the tag to remove
+     * @return {@code true} if the tag was present
+     */
+    public boolean remove(String tag) {
+        if (tag == null || tag.isEmpty()) {
+            return false;
+        }
+        boolean removed = remove(root, tag, 0);
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    private boolean remove(Node node, String tag, int offset) {
+        if (offset == tag.length()) {
+            if (!node.isTerminal()) {
+                return false;
+            }
+            node.tag = null;
+            node.count = 0;
+            node.recomputeBest();
+            return true;
+        }
+        Node child = node.child(tag.charAt(offset));
+        if (child == null || !tag.startsWith(child.label, offset)) {
+            return false;
+        }
+        if (!remove(child, tag, offset + child.label.length())) {
+            return false;
+        }
+        compact(node, child);
+        node.recomputeBest();
+        return true;
+    }
+
+    /**
+     * Drops an empty child or merges a non-terminal child that has only one
+     * remaining child of its own.
+     */
+    private static void compact(Node parent, Node child) {
+        if (child.isTerminal()) {
+            return;
+        }
+        int childCount = child.children == null ? 0 : child.children.size();
+        if (childCount == 0) {
+            parent.children.remove(child.label.charAt(0));
+        } else if (childCount == 1) {
+            Node grandChild = child.children.values().iterator().next();
+            grandChild.label = child.label + grandChild.label;
+            parent.putChild(grandChild);
+        }
+    }
+
+    /**
+     * Returns the usage count recorded for a tag.
+     *
+     * @param tag the tag to look up
+     * @return the usage count, or 0 if the tag is not present
+     */
+    public int getCount(String tag) {
+        Node node = tag == null ? null : find(tag);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Sets the usage count of a tag that is already present.
+     *
+     * @param tag   the tag to update
+     * @param count the new usage count (negative values are clamped to 0)
+     * @return {@code true} if the tag was present and updated
+     */
+    public boolean setCount(String tag, int count) {
+        if (tag == null || tag.isEmpty()) {
+            return false;
+        }
+        return setCount(root, tag, 0, Math.max(0, count));
+    }
+
+    private boolean setCount(Node node, String tag, int offset, int count) {
+        if (offset == tag.length()) {
+            if (!node.isTerminal()) {
+                return false;
+            }
+            node.count = count;
+            node.recomputeBest();
+            return true;
+        }
+        Node child = node.child(tag.charAt(offset));
+        if (child == null || !tag.startsWith(child.label, offset)) {
+            return false;
+        }
+        boolean updated = setCount(child, tag, offset + child.label.length(), count);
+        if (updated) {
+            node.recomputeBest();
+        }
+        return updated;
+    }
+
+    /**
+     * Returns up to {@code limit} tags starting with {@code prefix}, ordered by
+     * usage count (highest first) and then alphabetically.
+     *
+     * @param prefix the prefix typed so far; an empty prefix matches every tag
+     * @param limit  the maximum number of suggestions to return
+     * @return the matching tags, best first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Node start = descend(prefix);
+        if (start == null || start.best < 0) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(Math.min(limit, size));
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start, false));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate next = queue.poll();
+            if (next.emit) {
+                result.add(next.node.tag);
+                continue;
+            }
+            Node node = next.node;
+            if (node.isTerminal()) {
+                queue.add(new Candidate(node, true));
+            }
+            if (node.children != null) {
+                for (Node c : node.children.values()) {
+                    if (c.best >= 0) {
+                        queue.add(new Candidate(c, false));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every tag from the trie.
+     */
+    public void clear() {
+        root.children = null;
+        root.tag = null;
+        root.best = -1;
+        size = 0;
+    }
+
+    /**
+     * Finds the terminal node for an exact tag.
+     */
+    private Node find(String tag) {
+        Node node = root;
+        int offset = 0;
+        while (offset < tag.length()) {
+            Node child = node.child(tag.charAt(offset));
+            if (child == null || !tag.startsWith(child.label, offset)) {
+                return null;
+            }
+            offset += child.label.length();
+            node = child;
+        }
+        return node.isTerminal() ? node : null;
+    }
+
+    /**
+     * Finds the shallowest node whose subtree holds exactly the tags starting
+     * with {@code prefix}; the prefix may end part-way along an edge.
+     */
+    private Node descend(String prefix) {
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            Node child = node.child(prefix.charAt(offset));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, offset);
+            if (offset + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            offset += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private static int commonPrefix(String label, String s, int offset) {
+        int max = Math.min(label.length(), s.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == s.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -1,22 +1,66 @@
 import java.io.*;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * The {@code TagsManager} class is responsible for managing a list of tags.
+ * The {@code TagsManager} class is responsible for managing the set of global tags.
  * It provides functionality to add, load, and save tags to a file.
  * Tags are stored in a JSON array format within the specified file.
  * <p>
  * This class is part of a larger application that manages journal entries
  * and allows users to tag their entries for better organization and retrieval.
+ * <p>
+ * Tags are held in an insertion-ordered hash set, so membership checks do not
+ * depend on the number of tags, and are also indexed in a {@link TagTrie} ranked
+ * by how many entries use each tag, which backs prefix autocompletion in the entry
+ * dialogs. Usage counts are kept current by {@link JournalManager} as entries
+ * change. Changes are written back in batches: a burst of additions results in a
+ * single write shortly afterwards, and {@link #flush()} forces any pending write.
+ * <p>
+ * With a {@link JournalCipher} attached, the file holds the array as one sealed
+ * block, {@code {"sealed": "..."}}. A plaintext file is read as before and
+ * sealed by the next write; a sealed file that cannot be decrypted is never
+ * overwritten.
  */
 
 public class TagsManager {
     private static final Logger logger = Logger.getLogger(TagsManager.class.getName());
-    private final List<String> tags;
+    /** Delay before pending tag changes are written, so bursts share one write. */
+    private static final long SAVE_DELAY_MS = 500;
+    private static final String SEALED_KEY = "sealed";
+    /** Context binding the sealed block to the tags file. */
+    private static final String SEALED_CONTEXT = "tags";
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "TagsManager-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Set<String> tags;
+    private final Set<String> tagsView;
+    private final Map<String, Integer> usage;
+    private final TagTrie trie;
     private final String filePath;
+    // Null for plaintext tags.
+    private JournalCipher cipher;
+    // Set when the file could not be decrypted; writing would destroy it.
+    private boolean unreadable;
+    // Held while writing the file; never taken while holding the manager's lock.
+    private final Object writeLock = new Object();
+    private boolean dirty;
+    private boolean saveScheduled;
 
     /**
      * Constructs a {@code TagsManager} with the specified file path.
@@ -25,37 +69,132 @@ public class TagsManager {
      */
     public TagsManager(String filePath) {
         this.filePath = filePath;
-        this.tags = new ArrayList<>();
+        this.tags = new LinkedHashSet<>();
+        this.tagsView = new TagSetView();
+        this.usage = new HashMap<>();
+        this.trie = new TagTrie();
     }
 
     /**
-     * Returns the list of tags.
+     * Returns a live view of the tags in insertion order. Adding or removing
+     * through the view keeps the autocomplete index in sync but, like direct
+     * list edits before it, does not schedule a write; call {@link #saveTags()}
+     * or use {@link #addTag(String)} / {@link #removeTag(String)} to persist.
      *
-     * @return a {@code List<String>} containing the tags
+     * @return a {@code Set<String>} containing the tags
      */
-    public List<String> getTags() {
-        return tags;
+    public Set<String> getTags() {
+        return tagsView;
     }
 
     /**
-     * Adds a new tag to the list if it does not already exist and saves the tags to the file.
+     * Adds a new tag if it does not already exist and schedules the tags to be saved.
      *
      * @param tag the tag to be added
      */
     public void addTag(String tag) {
-        if (!tags.contains(tag)) {
-            tags.add(tag);
-            saveTags();
+        if (insert(tag)) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Removes a tag and schedules the tags to be saved. Entries that still use
+     * the tag are not touched; see {@link JournalManager#removeTagFromEntries(String)}.
+     *
+     * @param tag the tag to be removed
+     * @return {@code true} if the tag was present
+     */
+    public boolean removeTag(String tag) {
+        boolean removed = delete(tag);
+        if (removed) {
+            scheduleSave();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns up to {@code limit} known tags starting with {@code prefix}, most
+     * frequently used first. Safe to call from a background thread.
+     *
+     * @param prefix the text typed so far
+     * @param limit  the maximum number of suggestions
+     * @return the matching tags, best first
+     */
+    public synchronized List<String> suggestTags(String prefix, int limit) {
+        return trie.suggest(prefix, limit);
+    }
+
+    /**
+     * Returns how many journal entries use the given tag.
+     *
+     * @param tag the tag to look up
+     * @return the usage count, or 0 for unused tags
+     */
+    public synchronized int getUsageCount(String tag) {
+        return usage.getOrDefault(tag, 0);
+    }
+
+    /**
+     * Adjusts the usage count of a tag by {@code delta}. Called by
+     * {@link JournalManager} whenever an entry gaining or losing the tag is
+     * added, edited, or removed.
+     *
+     * @param tag   the tag whose count changed
+     * @param delta the change in the number of entries using the tag
+     */
+    public synchronized void adjustUsage(String tag, int delta) {
+        int count = Math.max(0, usage.getOrDefault(tag, 0) + delta);
+        if (count == 0) {
+            usage.remove(tag);
+        } else {
+            usage.put(tag, count);
         }
+        trie.setCount(tag, count);
     }
 
     /**
-     * Loads tags from the file into the list. If the file does not exist, the list remains empty.
+     * Recomputes the usage count of every tag from the given entries.
+     * Tags used by entries but missing from the global set are counted but not added.
+     *
+     * @param entries the journal entries to count tags over
+     */
+    public void recountUsage(Collection<JournalEntry> entries) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            for (String tag : entry.getTags()) {
+                counts.merge(tag, 1, Integer::sum);
+            }
+        }
+        synchronized (this) {
+            usage.clear();
+            usage.putAll(counts);
+            for (String tag : tags) {
+                trie.setCount(tag, counts.getOrDefault(tag, 0));
+            }
+        }
+    }
+
+    /**
+     * Attaches the cipher the tags file is encrypted with. Takes effect from the
+     * next load or save.
+     *
+     * @param cipher the cipher holding the data key, or {@code null} for plaintext tags
+     */
+    public synchronized void setCipher(JournalCipher cipher) {
+        this.cipher = cipher;
+    }
+
+    /**
+     * Loads tags from the file into the set. If the file does not exist, the set remains empty.
      * <p>
-     * This method clears the current list of tags before loading new ones from the file.
+     * This method clears the current set of tags before loading new ones from the file.
      */
-    public void loadTags() {
+    public synchronized void loadTags() {
         tags.clear();
+        trie.clear();
+        dirty = false;
+        unreadable = false;
         File file = new File(filePath);
         if (!file.exists()) return;
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
@@ -64,26 +203,169 @@ public class TagsManager {
             while ((line = reader.readLine()) != null) {
                 jsonStr.append(line);
             }
-            JSONArray jsonArr = new JSONArray(jsonStr.toString());
+            String text = jsonStr.toString().trim();
+            if (text.startsWith("{")) {
+                if (cipher == null) {
+                    throw new JournalCipher.DecryptionException("No key for encrypted tags", null);
+                }
+                text = cipher.open(new JSONObject(text).getString(SEALED_KEY), SEALED_CONTEXT);
+            } else if (cipher != null) {
+                // Seal the plaintext file on the next write.
+                dirty = true;
+            }
+            JSONArray jsonArr = new JSONArray(text);
             for (int i = 0; i < jsonArr.length(); i++) {
-                tags.add(jsonArr.getString(i));
+                insert(jsonArr.getString(i));
             }
+        } catch (JournalCipher.DecryptionException e) {
+            unreadable = true;
+            logger.log(Level.SEVERE, () -> "Error decrypting tags from file: " + filePath + " - " + e.getMessage());
         } catch (Exception e) {
             logger.log(Level.SEVERE, () -> "Error loading tags from file: " + filePath + " - " + e.getMessage());
         }
     }
 
     /**
-     * Saves the current list of tags to the file in JSON array format.
+     * Saves the current set of tags to the file in JSON array format, sealed if
+     * a cipher is attached.
      * <p>
      * If an error occurs during the save operation, the exception is logged.
+     * The tags are copied under the manager's lock and written outside it, so
+     * readers and editors never wait for the disk or the cipher; writes are
+     * serialized among themselves, so the last snapshot taken is the last written.
      */
     public void saveTags() {
-        JSONArray jsonArr = new JSONArray(tags);
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            writer.write(jsonArr.toString(4));
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, () -> "Error saving tags to file: " + filePath + " - " + e.getMessage());
+        synchronized (writeLock) {
+            List<String> snapshot;
+            JournalCipher sealer;
+            synchronized (this) {
+                if (unreadable) {
+                    logger.log(Level.SEVERE, () -> "Not saving tags: " + filePath + " could not be decrypted");
+                    return;
+                }
+                snapshot = new ArrayList<>(tags);
+                sealer = cipher;
+                dirty = false;
+            }
+            JSONArray jsonArr = new JSONArray(snapshot);
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
+                if (sealer != null) {
+                    JSONObject sealed = new JSONObject();
+                    sealed.put(SEALED_KEY, sealer.seal(jsonArr.toString(), SEALED_CONTEXT));
+                    writer.write(sealed.toString(4));
+                } else {
+                    writer.write(jsonArr.toString(4));
+                }
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, () -> "Error saving tags to file: " + filePath + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes any pending tag changes to the file immediately.
+     */
+    public void flush() {
+        boolean pending;
+        synchronized (this) {
+            pending = dirty;
+        }
+        if (pending) {
+            saveTags();
+        }
+    }
+
+    /**
+     * Marks the tags dirty and, unless a write is already queued, schedules one
+     * after {@link #SAVE_DELAY_MS}.
+     */
+    private synchronized void scheduleSave() {
+        dirty = true;
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        WRITER.schedule(() -> {
+            synchronized (this) {
+                saveScheduled = false;
+            }
+            flush();
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a tag to the set and the trie, carrying over its current usage count.
+     */
+    private synchronized boolean insert(String tag) {
+        if (tag == null || tag.isEmpty() || !tags.add(tag)) {
+            return false;
+        }
+        trie.insert(tag);
+        trie.setCount(tag, usage.getOrDefault(tag, 0));
+        return true;
+    }
+
+    /**
+     * Removes a tag from the set and the trie.
+     */
+    private synchronized boolean delete(String tag) {
+        if (!tags.remove(tag)) {
+            return false;
+        }
+        trie.remove(tag);
+        return true;
+    }
+
+    /**
+     * Live set view over the tags whose mutators route through the trie-aware
+     * {@link #insert(String)} and {@link #delete(String)}.
+     */
+    private final class TagSetView extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            Iterator<String> it = tags.iterator();
+            return new Iterator<String>() {
+                private String last;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    last = it.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    synchronized (TagsManager.this) {
+                        it.remove();
+                        trie.remove(last);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return tags.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return tags.contains(o);
+        }
+
+        @Override
+        public boolean add(String tag) {
+            return insert(tag);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof String && delete((String) o);
         }
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,9 @@ import javax.swing.border.EmptyBorder;
 /**
  * The {@code ViewEntryDialog} class provides a graphical user interface (GUI) dialog
  * for viewing a journal entry. It displays the entry's metadata (title, date, location, tags)
- * and content in a scrollable text area. The dialog includes a close button to dismiss it.
+ * and content in a scrollable {@link PagedTextView}, which wraps large content in the
+ * background so the dialog opens immediately. The dialog includes a field to jump to a
+ * character offset and a close button to dismiss it.
  */
 public class ViewEntryDialog extends JDialog {
 
@@ -14,12 +16,25 @@ public class ViewEntryDialog extends JDialog {
     private static final String HTML_END = "</html>";
 
     /**
-     * Constructs a {@code ViewEntryDialog} instance.
+     * Constructs a {@code ViewEntryDialog} instance. Content in the content store
+     * is decoded page by page as it is shown.
      *
      * @param parent the parent frame of the dialog
      * @param entry  the journal entry to be displayed
      */
     public ViewEntryDialog(Frame parent, JournalEntry entry) {
+        this(parent, entry, entry.isContentStored()
+                ? entry.getContentRef().openSource() : ContentSource.of(entry.getContent()));
+    }
+
+    /**
+     * Constructs a {@code ViewEntryDialog} that reads the content from a source.
+     *
+     * @param parent  the parent frame of the dialog
+     * @param entry   the journal entry to be displayed
+     * @param content the entry's content
+     */
+    public ViewEntryDialog(Frame parent, JournalEntry entry, ContentSource content) {
         super(parent, "View Entry", true);
 
         // Set a reasonable size (adjust as needed)
@@ -42,19 +57,39 @@ public class ViewEntryDialog extends JDialog {
 
         mainPanel.add(metaPanel, BorderLayout.NORTH);
 
-        // Center panel: scrollable text area for the content
-        JTextArea contentArea = new JTextArea(entry.getContent());
-        contentArea.setLineWrap(true);
-        contentArea.setWrapStyleWord(true);
-        contentArea.setEditable(false);
-        JScrollPane contentScroll = new JScrollPane(contentArea);
+        // Center panel: paged view of the content, wrapped in the background
+        PagedTextView contentView = new PagedTextView(content);
+        JScrollPane contentScroll = new JScrollPane(contentView);
         mainPanel.add(contentScroll, BorderLayout.CENTER);
 
-        // Bottom panel: Close button
+        // Bottom panel: jump to offset, layout progress, and Close button
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        JPanel jumpPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JSpinner offsetSpinner = new JSpinner(new SpinnerNumberModel(0, 0, Math.max(0, content.length()), 1000));
+        JButton goButton = new JButton("Go");
+        goButton.addActionListener(e -> contentView.scrollToOffset((Integer) offsetSpinner.getValue()));
+        JLabel progressLabel = new JLabel();
+        contentView.setProgressListener(() -> updateProgress(progressLabel, contentView));
+        updateProgress(progressLabel, contentView);
+        jumpPanel.add(new JLabel("Go to character:"));
+        jumpPanel.add(offsetSpinner);
+        jumpPanel.add(goButton);
+        jumpPanel.add(progressLabel);
+        bottomPanel.add(jumpPanel, BorderLayout.WEST);
+
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton closeButton = new JButton("Close");
         closeButton.addActionListener(e -> dispose());
         buttonPanel.add(closeButton);
-        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+        mainPanel.add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Shows how much of the content has been laid out, or nothing once it all has.
+     */
+    private static void updateProgress(JLabel label, PagedTextView view) {
+        label.setText(view.isLayoutComplete() ? ""
+                : String.format("Loading %d%%", (int) (view.getLayoutProgress() * 100)));
     }
 }
\ No newline at end of file
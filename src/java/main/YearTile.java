@@ -0,0 +1,175 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+
+/**
+ * The {@code YearTile} class is the pre-rendered heatmap image of one calendar
+ * year. Weeks run left to right and days of the week top to bottom, starting on
+ * Sunday, matching the layout of {@link JournalGraphPanel}.
+ * <p>
+ * A tile remembers the values it was drawn from, the {@link DayIndex} stamp they
+ * belong to, and the {@link HeatmapScale} that colored them.
+ * {@link #update(int[], long, HeatmapScale)} brings it up to date by redrawing only
+ * the cells whose value changed, or every cell if the scale changed.
+ */
+public class YearTile {
+    /** Week columns needed for a year starting late in the week. */
+    public static final int WEEK_COLUMNS = 54;
+
+    private final int year;
+    private final int cellSize;
+    private final int padding;
+    private final int firstWeekday;
+    private final int days;
+    private final BufferedImage image;
+    private final int[] drawnValues = new int[DayIndex.DAYS_PER_YEAR];
+    private long stamp;
+    private HeatmapScale scale;
+
+    /**
+     * Renders a tile for a year.
+     *
+     * @param year     the calendar year
+     * @param values   per-day values indexed by day of year minus one; only read
+     * @param stamp    the {@link DayIndex} stamp the values belong to
+     * @param scale    the color scale
+     * @param cellSize the side of one day cell in pixels
+     * @param padding  the gap between cells in pixels
+     */
+    public YearTile(int year, int[] values, long stamp, HeatmapScale scale, int cellSize, int padding) {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        this.year = year;
+        this.cellSize = cellSize;
+        this.padding = padding;
+        this.firstWeekday = first.getDayOfWeek().getValue() % 7;
+        this.days = first.lengthOfYear();
+        this.image = new BufferedImage(width(cellSize, padding), height(cellSize, padding),
+                BufferedImage.TYPE_INT_ARGB);
+        this.stamp = stamp;
+        this.scale = scale;
+        Graphics2D g2d = image.createGraphics();
+        try {
+            for (int day = 0; day < days; day++) {
+                drawnValues[day] = values[day];
+                drawCell(g2d, day, values[day]);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Returns the width of a tile for the given geometry.
+     *
+     * @param cellSize the side of one day cell in pixels
+     * @param padding  the gap between cells in pixels
+     * @return the tile width in pixels
+     */
+    public static int width(int cellSize, int padding) {
+        return WEEK_COLUMNS * (cellSize + padding);
+    }
+
+    /**
+     * Returns the height of a tile for the given geometry.
+     *
+     * @param cellSize the side of one day cell in pixels
+     * @param padding  the gap between cells in pixels
+     * @return the tile height in pixels
+     */
+    public static int height(int cellSize, int padding) {
+        return 7 * (cellSize + padding) + 1;
+    }
+
+    /**
+     * Redraws the cells whose value differs from what the tile shows, or every
+     * cell if the scale changed.
+     *
+     * @param values   the current per-day values of the tile's year
+     * @param newStamp the {@link DayIndex} stamp the values belong to
+     * @param newScale the color scale
+     */
+    public void update(int[] values, long newStamp, HeatmapScale newScale) {
+        boolean redrawAll = !newScale.equals(scale);
+        Graphics2D g2d = null;
+        try {
+            for (int day = 0; day < days; day++) {
+                if (redrawAll || drawnValues[day] != values[day]) {
+                    if (g2d == null) {
+                        g2d = image.createGraphics();
+                    }
+                    drawnValues[day] = values[day];
+                    drawCell(g2d, day, values[day]);
+                }
+            }
+        } finally {
+            if (g2d != null) {
+                g2d.dispose();
+            }
+        }
+        stamp = newStamp;
+        scale = newScale;
+    }
+
+    /**
+     * Returns the year the tile shows.
+     *
+     * @return the calendar year
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Returns the cell size the tile was rendered at.
+     *
+     * @return the cell side in pixels
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the {@link DayIndex} stamp the tile was last drawn from.
+     *
+     * @return the year stamp
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Returns the color scale the tile was last drawn with.
+     *
+     * @return the color scale
+     */
+    public HeatmapScale getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the rendered image.
+     *
+     * @return the tile image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Draws one day's cell.
+     *
+     * @param g2d   the graphics of the tile image
+     * @param day   the day of the year, starting at 0
+     * @param value the day's value
+     */
+    private void drawCell(Graphics2D g2d, int day, int value) {
+        int slot = firstWeekday + day;
+        int drawX = (slot / 7) * (cellSize + padding);
+        int drawY = (slot % 7) * (cellSize + padding);
+        g2d.setColor(scale.colorFor(value));
+        g2d.fillRect(drawX, drawY, cellSize, cellSize);
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.drawRect(drawX, drawY, cellSize, cellSize);
+    }
+}
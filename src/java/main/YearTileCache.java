@@ -0,0 +1,70 @@
+/**
+ * The {@code YearTileCache} class keeps recently used {@link YearTile}s in a
+ * bounded least-recently-used map. Tiles are held through soft references so the
+ * garbage collector may reclaim their images under memory pressure; a reclaimed
+ * tile simply reads as a miss and is rendered again.
+ * <p>
+ * Tiles count against the budget of the default {@link CacheManager} by the size
+ * of their images. They are the cheapest data to rebuild, so they are the first
+ * to go when the caches are over budget or the heap runs low.
+ */
+public class YearTileCache {
+    /** Default number of tiles kept. */
+    public static final int DEFAULT_CAPACITY = 24;
+    /** Shedding weight; tiles are re-rendered quickly from the day index. */
+    private static final int WEIGHT = 1;
+
+    private final SizedLruCache<Integer, YearTile> tiles;
+
+    /**
+     * Constructs a {@code YearTileCache} with the default capacity.
+     */
+    public YearTileCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a {@code YearTileCache} holding at most {@code capacity} tiles.
+     *
+     * @param capacity the maximum number of cached years
+     */
+    public YearTileCache(int capacity) {
+        this.tiles = new SizedLruCache<>("Heatmap tiles", capacity, WEIGHT, true,
+                tile -> 4L * tile.getImage().getWidth() * tile.getImage().getHeight());
+    }
+
+    /**
+     * Returns the cached tile for a year.
+     *
+     * @param year the calendar year
+     * @return the tile, or {@code null} if it was never cached, evicted, or reclaimed
+     */
+    public YearTile get(int year) {
+        return tiles.get(year);
+    }
+
+    /**
+     * Stores a tile, replacing any tile of the same year.
+     *
+     * @param tile the tile to cache
+     */
+    public void put(YearTile tile) {
+        tiles.put(tile.getYear(), tile);
+    }
+
+    /**
+     * Drops every tile, for example after the cell size changed.
+     */
+    public void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * Returns the number of tiles currently held, including reclaimed ones not yet noticed.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        return tiles.size();
+    }
+}
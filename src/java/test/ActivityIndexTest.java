@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ActivityIndexTest {
+
+    @Test
+    void fenwickRangeSumsMatchNaiveSums() {
+        Random random = new Random(7);
+        FenwickTree tree = new FenwickTree(200);
+        int[] naive = new int[200];
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(200);
+            int delta = random.nextInt(5) - 1;
+            tree.add(index, delta);
+            naive[index] += delta;
+        }
+        tree.rebuild(400, 100);
+        for (int from = 0; from < 200; from += 13) {
+            for (int to = from; to < 200; to += 17) {
+                int expected = 0;
+                for (int i = from; i <= to; i++) {
+                    expected += naive[i];
+                }
+                assertEquals(expected, tree.rangeSum(from + 100, to + 100));
+            }
+        }
+    }
+
+    @Test
+    void countsRangesAcrossGrowth() {
+        ActivityIndex index = new ActivityIndex();
+        LocalDate base = LocalDate.of(2020, 6, 1);
+        index.add(base);
+        index.add(base);
+        index.add(base.plusYears(10));
+        index.add(base.minusYears(30));
+
+        assertEquals(4, index.total());
+        assertEquals(2, index.count(base, base));
+        assertEquals(3, index.count(base, base.plusYears(10)));
+        assertEquals(4, index.count(LocalDate.of(1900, 1, 1), LocalDate.of(2100, 1, 1)));
+        assertEquals(0, index.count(base.plusDays(1), base.plusYears(10).minusDays(1)));
+
+        index.remove(base);
+        assertEquals(1, index.count(base, base));
+        assertTrue(index.hasEntry(base));
+        index.remove(base);
+        assertFalse(index.hasEntry(base));
+    }
+
+    @Test
+    void streaksSpanWordAndYearBoundaries() {
+        ActivityIndex index = new ActivityIndex();
+        // 100 consecutive days from mid-November across New Year.
+        LocalDate start = LocalDate.of(2023, 11, 15);
+        for (int i = 0; i < 100; i++) {
+            index.add(start.plusDays(i));
+        }
+        // A shorter streak later on.
+        LocalDate later = LocalDate.of(2024, 6, 1);
+        for (int i = 0; i < 10; i++) {
+            index.add(later.plusDays(i));
+        }
+
+        assertEquals(100, index.longestStreak());
+        assertEquals(10, index.currentStreak(later.plusDays(9)));
+        // Nothing written yet "today", but yesterday continues the streak.
+        assertEquals(10, index.currentStreak(later.plusDays(10)));
+        assertEquals(0, index.currentStreak(later.plusDays(11)));
+        assertEquals(100, index.currentStreak(start.plusDays(99)));
+
+        index.remove(start.plusDays(50));
+        assertEquals(50, index.longestStreak());
+    }
+
+    @Test
+    void managerKeepsActivityInSync() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        JournalEntry entry = new JournalEntry("a", day, "L", Collections.emptyList(), "c");
+        mgr.addEntry(entry);
+        mgr.addEntry(new JournalEntry("b", day.plusDays(1), "L", Collections.emptyList(), "c"));
+        assertEquals(2, mgr.getActivityIndex().longestStreak());
+
+        JournalEntry moved = new JournalEntry(entry.getId(), "a", day.plusDays(5), "L",
+                Collections.emptyList(), "c");
+        mgr.updateEntry(entry, moved);
+        assertEquals(0, mgr.getActivityIndex().count(day, day));
+        assertEquals(1, mgr.getActivityIndex().longestStreak());
+
+        mgr.removeEntry(moved);
+        assertEquals(1, mgr.getActivityIndex().total());
+    }
+}
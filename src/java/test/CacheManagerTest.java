@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CacheManagerTest {
+
+    /** A cache of fixed-size items, evicted oldest first. */
+    private static final class FakeCache implements ManagedCache {
+        private final String name;
+        private final List<Long> items = new ArrayList<>();
+
+        FakeCache(String name, long... sizes) {
+            this.name = name;
+            for (long size : sizes) {
+                items.add(size);
+            }
+        }
+
+        @Override
+        public String getCacheName() {
+            return name;
+        }
+
+        @Override
+        public synchronized long getEstimatedBytes() {
+            return items.stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public synchronized long shrink(long bytes) {
+            long freed = 0;
+            while (freed < bytes && !items.isEmpty()) {
+                freed += items.remove(0);
+            }
+            return freed;
+        }
+    }
+
+    @Test
+    void shedsLightestCachesFirstUntilWithinBudget() {
+        CacheManager manager = new CacheManager(1_000, Runnable::run);
+        FakeCache tiles = new FakeCache("tiles", 300, 300);
+        FakeCache results = new FakeCache("results", 400, 400);
+        manager.register(results, 3);
+        manager.register(tiles, 1);
+        assertEquals(1_400, manager.getTotalBytes());
+
+        manager.checkBudget();
+        // 400 bytes over: both tiles go before any result.
+        assertEquals(0, tiles.getEstimatedBytes());
+        assertEquals(800, results.getEstimatedBytes());
+        assertEquals(600, manager.getShedBytes());
+
+        manager.setBudget(500);
+        assertEquals(400, results.getEstimatedBytes());
+        assertEquals(Long.valueOf(400), manager.getUsage().get("results"));
+    }
+
+    @Test
+    void managedCachesTrackTheirSize() {
+        SizedLruCache<String, String> cache = new SizedLruCache<>("test strings", 2, 1, false, s -> 2L * s.length());
+        cache.put("a", "0123456789");
+        long one = cache.getEstimatedBytes();
+        assertTrue(one >= 20);
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+        assertEquals(2, cache.size());
+        assertEquals(2 * one, cache.getEstimatedBytes());
+        assertEquals(one, cache.shrink(1));
+        assertNull(cache.get("b"));
+        assertEquals(one, cache.getEstimatedBytes());
+
+        QueryCache queries = new QueryCache(4);
+        queries.put(JournalQuery.ALL, 1, new int[1000]);
+        assertTrue(queries.getEstimatedBytes() >= 4000);
+        queries.shrink(Long.MAX_VALUE);
+        assertEquals(0, queries.getEstimatedBytes());
+        assertEquals(0, queries.size());
+    }
+}
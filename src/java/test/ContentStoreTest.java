@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContentStoreTest {
+
+    @Test
+    void appendedContentReadsBackAcrossSegments(@TempDir Path tempDir) throws Exception {
+        ContentStore store = new ContentStore(tempDir.toFile(), 256);
+        List<ContentStore.Ref> refs = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Multi-byte characters, and some bodies larger than a whole segment.
+            String text = "entrée " + i + " 日記 ".repeat(i % 7 == 0 ? 40 : 1);
+            texts.add(text);
+            refs.add(store.append(text));
+        }
+        store.startGeneration();
+        for (int i = 0; i < refs.size(); i++) {
+            assertEquals(texts.get(i), refs.get(i).read());
+        }
+        assertEquals(0, store.getStoredBytes());
+    }
+
+    @Test
+    void openingAStoreKeepsLiveSegmentsAndClearsAbandonedOnes(@TempDir Path tempDir) throws Exception {
+        File abandoned = tempDir.resolve("store-exited").toFile();
+        assertTrue(abandoned.mkdirs());
+        assertTrue(new File(abandoned, "owner.lock").createNewFile());
+        assertTrue(new File(abandoned, "segment-0").createNewFile());
+
+        ContentStore first = new ContentStore(tempDir.toFile(), 64);
+        ContentStore.Ref ref = first.append("left over");
+        assertFalse(abandoned.exists());
+        assertEquals(1, tempDir.toFile().list().length);
+
+        // A second store sharing the directory must not touch the first one's segments.
+        new ContentStore(tempDir.toFile(), 64).append("other");
+        assertEquals(2, tempDir.toFile().list().length);
+        assertEquals("left over", ref.read());
+        for (File owner : tempDir.toFile().listFiles()) {
+            assertTrue(new File(owner, "segment-0").exists());
+        }
+    }
+
+    @Test
+    void sourceDecodesStoredContentPageByPage(@TempDir Path tempDir) throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() < 100_000; i++) {
+            builder.append("line ").append(i).append(" café 日記 \uD83D\uDCD3\n");
+        }
+        String text = builder.toString();
+        ContentStore store = new ContentStore(tempDir.toFile());
+        ContentStore.Ref ref = store.append(text);
+        // Drop the decoded copy, so the source has to read the segment.
+        store.startGeneration();
+
+        ContentSource source = ref.openSource();
+        assertEquals(text.length(), source.length());
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            int offset = random.nextInt(text.length());
+            int count = random.nextInt(40_000);
+            assertEquals(text.substring(offset, Math.min(text.length(), offset + count)),
+                    source.read(offset, count).toString());
+        }
+        assertEquals(text, source.read(0, text.length()).toString());
+        assertEquals("", source.read(text.length(), 10).toString());
+    }
+
+    @Test
+    void loadedEntriesKeepContentInTheStore(@TempDir Path tempDir) {
+        String path = tempDir.resolve("entries.json").toString();
+        JournalManager writer = new JournalManager(path);
+        for (int i = 0; i < 10; i++) {
+            writer.addEntry(new JournalEntry("T" + i, LocalDate.of(2024, 1, 1 + i), "L",
+                    List.of("t"), "content number " + i + " with five words"));
+        }
+        writer.saveEntries();
+
+        JournalManager mgr = new JournalManager(path);
+        File spill = tempDir.resolve("spill").toFile();
+        ContentStore store = new ContentStore(spill, 1024);
+        mgr.setContentStore(store);
+        mgr.loadEntries();
+        JournalEntry first = mgr.getEntryAt(0);
+        assertTrue(first.isContentStored());
+        assertEquals("content number 0 with five words", first.getContent());
+        assertEquals(6, first.getWordCount());
+
+        // Removing most entries leaves the store mostly garbage; a full save compacts it.
+        long before = store.getStoredBytes();
+        for (int i = 0; i < 8; i++) {
+            mgr.removeEntry(mgr.getEntryAt(0));
+        }
+        mgr.saveEntries();
+        assertTrue(store.getStoredBytes() < before / 2);
+        for (JournalEntry entry : mgr.getEntries()) {
+            assertTrue(entry.isContentStored());
+            assertTrue(entry.getContent().startsWith("content number"));
+        }
+        JournalManager reloaded = new JournalManager(path);
+        reloaded.loadEntries();
+        assertEquals(2, reloaded.getEntryCount());
+    }
+}
@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class DayIndexTest {
+
+    private static JournalEntry entry(LocalDate date, String content) {
+        return new JournalEntry("t", date, "L", Collections.emptyList(), content);
+    }
+
+    @Test
+    void collectsNonZeroValuesPerMetric() {
+        DayIndex index = new DayIndex();
+        index.add(entry(LocalDate.of(2022, 1, 1), "a b c"), 0);
+        index.add(entry(LocalDate.of(2024, 7, 1), "d"), 1);
+        index.add(entry(LocalDate.of(2024, 7, 1), ""), 2);
+
+        int[] counts = index.nonZeroValues(DayIndex.Metric.ENTRIES);
+        Arrays.sort(counts);
+        assertArrayEquals(new int[] {1, 2}, counts);
+        int[] words = index.nonZeroValues(DayIndex.Metric.WORDS);
+        Arrays.sort(words);
+        assertArrayEquals(new int[] {1, 3}, words);
+    }
+
+    @Test
+    void countsAddsAndRemoves() {
+        DayIndex index = new DayIndex();
+        LocalDate day = LocalDate.of(2024, 12, 31);
+        index.add(entry(day, "one two"), 0);
+        index.add(entry(day, "three"), 1);
+        assertEquals(2, index.count(day));
+        assertEquals(2, index.yearCounts(2024)[365]);
+        assertEquals(3, index.yearValues(2024, DayIndex.Metric.WORDS)[365]);
+
+        index.remove(entry(day, "one two"), 0);
+        index.remove(entry(day, "one two"), 0);
+        assertEquals(1, index.count(day));
+        assertEquals(1, index.yearValues(2024, DayIndex.Metric.WORDS)[365]);
+        index.remove(entry(day, "three"), 1);
+        assertEquals(0, index.count(day));
+    }
+
+    @Test
+    void bucketsTrackOrdinals() {
+        DayIndex index = new DayIndex();
+        LocalDate day = LocalDate.of(2024, 2, 29);
+        for (int i = 0; i < 5; i++) {
+            index.add(entry(day, "c"), i * 10);
+        }
+        index.remove(entry(day, "c"), 10);
+        index.move(entry(day, "c"), 40, 10);
+        int[] firstTwo = new int[2];
+        assertEquals(4, index.ordinalsOn(day, firstTwo));
+        assertArrayEquals(new int[] {0, 10}, firstTwo);
+        assertArrayEquals(new int[] {0, 10, 20, 30}, index.ordinalsOn(day));
+        assertEquals(0, index.ordinalsOn(day.plusDays(1)).length);
+    }
+
+    @Test
+    void stampChangesOnlyForTouchedYear() {
+        DayIndex index = new DayIndex();
+        index.add(entry(LocalDate.of(2023, 5, 1), "c"), 0);
+        long stamp2023 = index.yearStamp(2023);
+        long stamp = index.getStamp();
+        index.add(entry(LocalDate.of(2024, 5, 1), "c"), 1);
+        assertNotEquals(stamp, index.getStamp());
+        assertEquals(stamp2023, index.yearStamp(2023));
+        assertNotEquals(0, index.yearStamp(2024));
+        assertEquals(0, index.yearStamp(2025));
+        assertEquals(0, index.yearCounts(2025)[0]);
+        assertEquals(2023, index.firstYear(2030));
+    }
+
+    @Test
+    void managerKeepsIndexInSync() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate first = LocalDate.of(2024, 3, 1);
+        LocalDate second = LocalDate.of(2024, 3, 2);
+        JournalEntry entry = new JournalEntry("a", first, "L", Collections.emptyList(), "c");
+        mgr.addEntry(entry);
+        mgr.addEntry(new JournalEntry("b", first, "L", Collections.emptyList(), "c"));
+        assertEquals(2, mgr.getDayIndex().count(first));
+
+        JournalEntry moved = new JournalEntry(entry.getId(), "a", second, "L",
+                Collections.emptyList(), "c");
+        mgr.updateEntry(entry, moved);
+        assertEquals(1, mgr.getDayIndex().count(first));
+        assertEquals(1, mgr.getDayIndex().count(second));
+
+        mgr.removeEntry(moved);
+        assertEquals(0, mgr.getDayIndex().count(second));
+        // "b" was swapped into ordinal 0; its bucket must follow it.
+        assertEquals("b", mgr.getEntriesOn(first).get(0).getTitle());
+    }
+}
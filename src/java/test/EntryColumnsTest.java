@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EntryColumnsTest {
+
+    private static final String[] TAGS = {"a", "b", "c", "d"};
+    private static final String[] LOCATIONS = {"Home", "Work", null};
+
+    private static JournalEntry randomEntry(Random random) {
+        List<String> tags = new ArrayList<>();
+        for (String tag : TAGS) {
+            if (random.nextInt(3) == 0) {
+                tags.add(tag);
+            }
+        }
+        return new JournalEntry("T", LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400)),
+                LOCATIONS[random.nextInt(LOCATIONS.length)], tags, "c");
+    }
+
+    @Test
+    void rowsMatchLikeTheirEntriesThroughReplacementsAndRemovals() {
+        Random random = new Random(11);
+        EntryColumns columns = new EntryColumns();
+        List<JournalEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            int op = random.nextInt(4);
+            if (op < 2 || entries.isEmpty()) {
+                JournalEntry entry = randomEntry(random);
+                columns.set(entries.size(), entry);
+                entries.add(entry);
+            } else if (op == 2) {
+                int ordinal = random.nextInt(entries.size());
+                JournalEntry entry = randomEntry(random);
+                columns.set(ordinal, entry);
+                entries.set(ordinal, entry);
+            } else {
+                int ordinal = random.nextInt(entries.size());
+                columns.remove(ordinal);
+                JournalEntry last = entries.remove(entries.size() - 1);
+                if (ordinal < entries.size()) {
+                    entries.set(ordinal, last);
+                }
+            }
+        }
+        assertEquals(entries.size(), columns.size());
+        List<JournalQuery> queries = Arrays.asList(JournalQuery.ALL,
+                JournalQuery.of("b", null, null, null),
+                JournalQuery.of(null, "Work", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 9, 30)),
+                JournalQuery.of("a", "Home", null, LocalDate.of(2024, 6, 1)),
+                JournalQuery.of("unknown", null, null, null));
+        for (JournalQuery query : queries) {
+            EntryColumns.Filter filter = columns.compile(query);
+            long[] keys = new long[columns.size()];
+            int count = columns.select(filter, keys);
+            int expected = 0;
+            for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+                JournalEntry entry = entries.get(ordinal);
+                assertEquals(query.matches(entry), columns.matches(ordinal, filter), query + " @" + ordinal);
+                if (query.matches(entry)) {
+                    assertEquals(JournalManager.sortKey(entry.getDate(), ordinal), keys[expected++]);
+                }
+            }
+            assertEquals(expected, count);
+        }
+    }
+
+    @Test
+    void columnarManagerAnswersQueriesLikeThePlainOne() {
+        Random random = new Random(17);
+        JournalManager plain = new JournalManager("unused-plain.json");
+        JournalManager columnar = new JournalManager("unused-columnar.json", true);
+        for (int i = 0; i < 500; i++) {
+            if (i % 5 == 4) {
+                JournalEntry victim = plain.getEntryAt(random.nextInt(plain.getEntryCount()));
+                plain.removeEntry(victim);
+                columnar.removeEntry(victim);
+            } else {
+                JournalEntry entry = randomEntry(random);
+                plain.addEntry(entry);
+                columnar.addEntry(entry);
+            }
+        }
+        plain.removeTagFromEntries("c");
+        columnar.removeTagFromEntries("c");
+        for (JournalQuery query : Arrays.asList(JournalQuery.ALL, JournalQuery.of("a", null, null, null),
+                JournalQuery.of("c", "Home", null, null),
+                JournalQuery.of(null, "Home", LocalDate.of(2024, 2, 1), null))) {
+            assertArrayEquals(plain.query(query), columnar.query(query), query.toString());
+            assertArrayEquals(plain.query(query), drain(columnar.streamQuery(query)), query.toString());
+        }
+    }
+
+    private static int[] drain(QueryStream stream) {
+        while (stream.nextPage(50) != null) {
+            // Keep reading until the stream completes.
+        }
+        return stream.getResult();
+    }
+}
@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.jupiter.api.Test;
+
+class EntryListModelTest {
+
+    /** Records every event as "type:from-to". */
+    private static final class Recorder implements ListDataListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            events.add("added:" + e.getIndex0() + "-" + e.getIndex1());
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            events.add("removed:" + e.getIndex0() + "-" + e.getIndex1());
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            events.add("changed:" + e.getIndex0() + "-" + e.getIndex1());
+        }
+    }
+
+    private static JournalManager journalWith(int count) {
+        JournalManager mgr = new JournalManager("ignored.json");
+        for (int i = 0; i < count; i++) {
+            mgr.addEntry(new JournalEntry("e" + i, LocalDate.of(2024, 1, 1).plusDays(i),
+                    "L", Collections.emptyList(), "c"));
+        }
+        return mgr;
+    }
+
+    @Test
+    void resolvesRowsThroughOrdinals() {
+        JournalManager mgr = journalWith(3);
+        EntryListModel model = new EntryListModel(mgr);
+        model.setView(new int[] {2, 0});
+
+        assertEquals(2, model.getSize());
+        assertSame(mgr.getEntryAt(2), model.getElementAt(0));
+        assertEquals(0, model.getOrdinalAt(1));
+    }
+
+    @Test
+    void publishesOnlyTheChangedInterval() {
+        JournalManager mgr = journalWith(6);
+        EntryListModel model = new EntryListModel(mgr);
+        model.setView(new int[] {0, 1, 2, 3});
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+
+        model.setView(new int[] {0, 1, 4, 5, 3});
+
+        assertEquals(Arrays.asList("removed:2-2", "added:2-3"),
+                recorder.events);
+    }
+
+    @Test
+    void unchangedViewOfUnchangedJournalFiresNothing() {
+        JournalManager mgr = journalWith(2);
+        EntryListModel model = new EntryListModel(mgr);
+        int[] view = {1, 0};
+        model.setView(view);
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+
+        model.setView(view);
+        model.setView(new int[] {1, 0});
+
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    void journalChangeRepaintsRetainedRowsOnce() {
+        JournalManager mgr = journalWith(2);
+        EntryListModel model = new EntryListModel(mgr);
+        int[] view = {1, 0};
+        model.setView(view);
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+
+        JournalEntry first = mgr.getEntryAt(0);
+        mgr.updateEntry(first, first.withTags(Collections.singletonList("t")));
+        model.setView(view);
+
+        assertEquals(Collections.singletonList("changed:0-1"), recorder.events);
+    }
+
+    @Test
+    void appliesSingleEntryChangesAsSingleRows() {
+        JournalManager mgr = journalWith(4);
+        JournalQuery all = JournalQuery.ALL;
+        EntryListModel model = new EntryListModel(mgr);
+        model.setView(mgr.query(all));
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+        List<JournalChangeEvent> events = new ArrayList<>();
+        mgr.addChangeListener(events::addAll);
+
+        // Newest first: e3, e2, e1, e0. A new entry dated like e1 sorts after it, at row 3.
+        mgr.addEntry(new JournalEntry("mid", LocalDate.of(2024, 1, 2), "L", Collections.emptyList(), "c"));
+        JournalEntry e0 = mgr.getEntryAt(0);
+        mgr.updateEntry(e0, e0.withTags(Collections.singletonList("t")));
+        mgr.removeEntry(mgr.getEntryAt(3));
+        mgr.getEventBus().flush();
+        for (JournalChangeEvent event : events) {
+            model.apply(event, all);
+        }
+
+        int[] expected = mgr.query(all);
+        assertEquals(expected.length, model.getSize());
+        for (int row = 0; row < expected.length; row++) {
+            assertEquals(expected[row], model.getOrdinalAt(row));
+        }
+        // Removing e3 moves the new entry from ordinal 4 to 3, which re-sorts its row in place.
+        assertEquals(Arrays.asList("added:3-3", "changed:4-4", "removed:0-0", "removed:2-2", "added:2-2"),
+                recorder.events);
+    }
+
+    @Test
+    void ignoresChangesTheViewAlreadyReflects() {
+        JournalManager mgr = journalWith(2);
+        List<JournalChangeEvent> events = new ArrayList<>();
+        mgr.addChangeListener(events::addAll);
+        mgr.addEntry(new JournalEntry("new", LocalDate.of(2024, 2, 1), "L", Collections.emptyList(), "c"));
+        mgr.getEventBus().flush();
+
+        EntryListModel model = new EntryListModel(mgr);
+        model.setView(mgr.query(JournalQuery.ALL));
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+        model.apply(events.get(0), JournalQuery.ALL);
+
+        assertEquals(3, model.getSize());
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    void streamedPagesReplaceThenAppend() {
+        JournalManager mgr = journalWith(5);
+        EntryListModel model = new EntryListModel(mgr);
+        model.setView(new int[] {4, 3});
+        Recorder recorder = new Recorder();
+        model.addListDataListener(recorder);
+
+        QueryStream stream = mgr.streamQuery(JournalQuery.ALL);
+        model.showPage(stream.nextPage(2), true, stream.getVersion());
+        model.showPage(stream.nextPage(10), false, stream.getVersion());
+        assertNull(stream.nextPage(10));
+        model.finishView(stream.getKeys(), stream.getResult(), stream.getVersion());
+
+        assertEquals(5, model.getSize());
+        assertEquals(0, model.getOrdinalAt(4));
+        // The first page matched the rows already shown, so only the appended rows are new.
+        assertEquals(Collections.singletonList("added:2-4"), recorder.events);
+    }
+}
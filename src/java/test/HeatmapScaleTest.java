@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import org.junit.jupiter.api.Test;
+
+class HeatmapScaleTest {
+
+    @Test
+    void defaultScaleKeepsSmallCountsApart() {
+        HeatmapScale scale = HeatmapScale.DEFAULT;
+        assertEquals(Color.WHITE, scale.colorFor(0));
+        assertNotEquals(scale.colorFor(1), scale.colorFor(2));
+        assertNotEquals(scale.colorFor(2), scale.colorFor(3));
+        assertEquals(scale.colorFor(4), scale.colorFor(400));
+    }
+
+    @Test
+    void quartilesSpreadHeavyJournalers() {
+        int[] values = new int[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 5 + i % 6;
+        }
+        HeatmapScale scale = HeatmapScale.fromValues(values);
+        // With the default scale every value from 5 to 10 would share one color.
+        assertNotEquals(scale.colorFor(5), scale.colorFor(10));
+        assertNotEquals(Color.WHITE, scale.colorFor(5));
+        assertEquals(Color.WHITE, scale.colorFor(0));
+    }
+
+    @Test
+    void colorsAreShared() {
+        HeatmapScale scale = HeatmapScale.fromValues(new int[] {1, 2, 3, 4});
+        assertSame(scale.colorFor(3), scale.colorFor(3));
+        assertSame(HeatmapScale.DEFAULT.colorFor(1), scale.colorFor(1));
+        assertEquals(HeatmapScale.DEFAULT, HeatmapScale.fromValues(new int[0]));
+    }
+}
@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class JournalCipherTest {
+
+    @Test
+    void sealedTextRoundTripsAndHidesPlaintext() {
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        String sealed = cipher.seal("Dear diary, café ☕", "e1/body");
+
+        assertFalse(sealed.contains("diary"));
+        assertEquals("Dear diary, café ☕", cipher.open(sealed, "e1/body"));
+        // A fresh nonce makes every seal of the same text different.
+        assertNotEquals(sealed, cipher.seal("Dear diary, café ☕", "e1/body"));
+        assertEquals("", cipher.open(cipher.seal(null, "e1/body"), "e1/body"));
+    }
+
+    @Test
+    void blocksAreBoundToKeyAndContext() {
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalCipher other = new JournalCipher(JournalCipher.generateKey());
+        String sealed = cipher.seal("secret", "e1/meta");
+
+        assertThrows(JournalCipher.DecryptionException.class, () -> cipher.open(sealed, "e2/meta"));
+        assertThrows(JournalCipher.DecryptionException.class, () -> other.open(sealed, "e1/meta"));
+        byte[] tampered = Base64.getDecoder().decode(sealed);
+        tampered[tampered.length - 1] ^= 1;
+        assertThrows(JournalCipher.DecryptionException.class,
+                () -> cipher.open(Base64.getEncoder().encodeToString(tampered), "e1/meta"));
+        assertThrows(JournalCipher.DecryptionException.class, () -> cipher.open("not base64!", "e1/meta"));
+    }
+
+    @Test
+    void sealedContentDecryptsOnRead() {
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalCipher.SealedContent content = cipher.sealedContent(cipher.seal("body", "e1/body"), "e1/body");
+
+        assertEquals("body", content.read());
+        assertTrue(content.isSealedBy(cipher));
+        assertFalse(content.isSealedBy(new JournalCipher(JournalCipher.generateKey())));
+        assertNull(content.getRef());
+    }
+
+    @Test
+    void entryThatCannotBeDecryptedCountsNoWords() {
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalCipher other = new JournalCipher(JournalCipher.generateKey());
+        JSONObject metadata = new JournalEntry("T", LocalDate.of(2024, 1, 1), "L", Arrays.asList(), "").toJson();
+        JournalEntry entry = JournalEntry.fromMetadataJson(metadata,
+                other.sealedContent(cipher.seal("two words", "e1/body"), "e1/body"));
+
+        assertThrows(JournalCipher.DecryptionException.class, entry::getContent);
+        assertEquals(0, entry.getWordCount());
+    }
+}
@@ -32,4 +32,31 @@ class JournalEntryRendererTest {
         assertTrue(c instanceof JLabel);
         assertEquals("raw text", ((JLabel) c).getText());
     }
+
+    @Test
+    void reusesLabelUntilEntryIsReplaced() {
+        JournalEntryRenderer renderer = new JournalEntryRenderer();
+        JournalEntry entry = new JournalEntry("First", LocalDate.of(2024, 6, 15), "Loc",
+                Collections.emptyList(), "body");
+        JList<JournalEntry> list = new JList<>();
+
+        String first = ((JLabel) renderer.getListCellRendererComponent(list, entry, 0, false, false)).getText();
+        String again = ((JLabel) renderer.getListCellRendererComponent(list, entry, 0, true, false)).getText();
+        assertSame(first, again);
+
+        JournalEntry edited = new JournalEntry(entry.getId(), "Second", entry.getDate(), "Loc",
+                Collections.emptyList(), "body");
+        Component c = renderer.getListCellRendererComponent(list, edited, 0, false, false);
+        assertEquals("2024-06-15 - Second", ((JLabel) c).getText());
+    }
+
+    @Test
+    void installSetsFixedCellHeightOnly() {
+        JList<JournalEntry> list = new JList<>();
+        new JournalEntryRenderer().install(list);
+        assertTrue(list.getFixedCellHeight() > 0);
+        // Long titles must still widen the list.
+        assertEquals(-1, list.getFixedCellWidth());
+        assertTrue(list.getCellRenderer() instanceof JournalEntryRenderer);
+    }
 }
@@ -66,6 +66,18 @@ class JournalEntryTest {
         assertEquals(original.getLocation(), parsed.getLocation());
         assertEquals(original.getContent(), parsed.getContent());
         assertEquals(original.getTags(), parsed.getTags());
+        assertEquals(original.getId(), parsed.getId());
+    }
+
+    @Test
+    void withTagsKeepsIdentifier() {
+        JournalEntry original = new JournalEntry("Title", LocalDate.of(2024, 5, 1),
+                "Toronto", Arrays.asList("a"), "content");
+        JournalEntry retagged = original.withTags(Arrays.asList("b"));
+
+        assertEquals(original.getId(), retagged.getId());
+        assertEquals(Arrays.asList("b"), retagged.getTags());
+        assertEquals(Arrays.asList("a"), original.getTags());
     }
 
     @Test
@@ -79,4 +91,11 @@ class JournalEntryTest {
         json.put("title", "T");
         assertThrows(IllegalArgumentException.class, () -> JournalEntry.fromJson(json));
     }
+
+    @Test
+    void wordCountSplitsOnWhitespace() {
+        assertEquals(4, new JournalEntry("t", LocalDate.now(), "loc", null, "  one two\n\tthree  four ").getWordCount());
+        assertEquals(0, new JournalEntry("t", LocalDate.now(), "loc", null, "   ").getWordCount());
+        assertEquals(0, new JournalEntry("t", LocalDate.now(), "loc", null, null).getWordCount());
+    }
 }
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+class JournalEventBusTest {
+
+    private static JournalEntry entry(String title) {
+        return new JournalEntry(title, LocalDate.of(2024, 3, 1), "L", Collections.emptyList(), "c");
+    }
+
+    /** Runs mutations on the event dispatch thread, as the application does. */
+    private static void onEdt(Runnable mutations) throws Exception {
+        SwingUtilities.invokeAndWait(mutations);
+    }
+
+    /** Waits for the scheduled delivery on the event dispatch thread. */
+    private static void drain() throws Exception {
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    @Test
+    void burstIsDeliveredAsOneBatch() throws Exception {
+        JournalManager mgr = new JournalManager("ignored.json");
+        List<List<JournalChangeEvent>> batches = new ArrayList<>();
+        mgr.addChangeListener(batches::add);
+
+        JournalEntry a = entry("a");
+        onEdt(() -> {
+            mgr.addEntry(a);
+            mgr.addEntry(entry("b"));
+            mgr.updateEntry(a, a.withTags(Collections.singletonList("t")));
+        });
+        drain();
+
+        assertEquals(1, batches.size());
+        List<JournalChangeEvent> batch = batches.get(0);
+        assertEquals(Arrays.asList(JournalChangeEvent.Type.ADDED, JournalChangeEvent.Type.ADDED,
+                JournalChangeEvent.Type.UPDATED), Arrays.asList(batch.get(0).getType(),
+                batch.get(1).getType(), batch.get(2).getType()));
+        assertEquals(0, batch.get(2).getOrdinal());
+        assertSame(a, batch.get(2).getOldEntry());
+        assertEquals(mgr.getVersion(), batch.get(2).getVersion());
+    }
+
+    @Test
+    void removalReportsTheMovedEntry() throws Exception {
+        JournalManager mgr = new JournalManager("ignored.json");
+        JournalEntry a = entry("a");
+        mgr.addEntry(a);
+        mgr.addEntry(entry("b"));
+        JournalEntry c = entry("c");
+        mgr.addEntry(c);
+        List<JournalChangeEvent> events = new ArrayList<>();
+        mgr.addChangeListener(events::addAll);
+
+        mgr.removeEntry(a);
+        drain();
+
+        assertEquals(1, events.size());
+        JournalChangeEvent removed = events.get(0);
+        assertEquals(JournalChangeEvent.Type.REMOVED, removed.getType());
+        assertEquals(0, removed.getOrdinal());
+        assertSame(c, removed.getMovedEntry());
+        assertEquals(2, removed.getMovedFrom());
+    }
+
+    @Test
+    void bulkAndOversizedBatchesCollapse() throws Exception {
+        JournalManager mgr = new JournalManager("ignored.json");
+        List<JournalChangeEvent> events = new ArrayList<>();
+        mgr.addChangeListener(events::addAll);
+
+        onEdt(() -> {
+            for (int i = 0; i <= JournalEventBus.MAX_BATCH; i++) {
+                mgr.addEntry(entry("e" + i));
+            }
+        });
+        drain();
+        assertEquals(1, events.size());
+        assertEquals(JournalChangeEvent.Type.BULK, events.get(0).getType());
+        assertEquals(mgr.getVersion(), events.get(0).getVersion());
+
+        events.clear();
+        onEdt(() -> {
+            mgr.addEntry(entry("x"));
+            mgr.getEventBus().publish(JournalChangeEvent.bulk(mgr.getVersion()));
+        });
+        drain();
+        assertEquals(1, events.size());
+        assertEquals(JournalChangeEvent.Type.BULK, events.get(0).getType());
+    }
+
+    @Test
+    void renamePublishesTagEvent() throws Exception {
+        JournalManager mgr = new JournalManager("ignored.json");
+        mgr.addEntry(new JournalEntry("a", LocalDate.of(2024, 3, 1), "L",
+                Collections.singletonList("Work"), "c"));
+        List<JournalChangeEvent> events = new ArrayList<>();
+        mgr.addChangeListener(events::addAll);
+
+        onEdt(() -> mgr.renameTag("Work", "work"));
+        drain();
+
+        assertEquals(2, events.size());
+        assertEquals(JournalChangeEvent.Type.UPDATED, events.get(0).getType());
+        JournalChangeEvent renamed = events.get(1);
+        assertEquals(JournalChangeEvent.Type.TAG_RENAMED, renamed.getType());
+        assertEquals(Collections.singleton("Work"), renamed.getSourceTags());
+        assertEquals("work", renamed.getTargetTag());
+    }
+}
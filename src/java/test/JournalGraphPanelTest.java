@@ -1,8 +1,16 @@
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class JournalGraphPanelTest {
@@ -32,4 +40,146 @@ class JournalGraphPanelTest {
         // Should not throw while iterating through every day of the year.
         assertDoesNotThrow(() -> panel.paint(img.getGraphics()));
     }
+
+    @Test
+    void repaintPicksUpNewEntries() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+        panel.setSize(1000, 200);
+        LocalDate today = LocalDate.now();
+        Rectangle cell = panel.cellBounds(today);
+        int x = cell.x + cell.width / 2;
+        int y = cell.y + cell.height / 2;
+
+        BufferedImage img = new BufferedImage(1000, 200, BufferedImage.TYPE_INT_ARGB);
+        panel.paint(img.getGraphics());
+        int before = img.getRGB(x, y);
+
+        mgr.addEntry(new JournalEntry("a", today, "L", Arrays.asList(), "c"));
+        panel.paint(img.getGraphics());
+        assertNotEquals(before, img.getRGB(x, y));
+    }
+
+    @Test
+    void showsEveryYearSinceFirstEntry() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+        int oneYear = panel.getPreferredSize().height;
+        LocalDate old = LocalDate.now().minusYears(20);
+        mgr.addEntry(new JournalEntry("old", old, "L", Arrays.asList(), "c"));
+
+        assertEquals(21 * oneYear, panel.getPreferredSize().height);
+        Rectangle cell = panel.cellBounds(old);
+        assertNotNull(cell);
+        assertTrue(cell.y >= 20 * oneYear);
+        assertNull(panel.cellBounds(old.minusYears(1)));
+    }
+
+    @Test
+    void paintsOldYearTileInPlace() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate old = LocalDate.now().minusYears(5);
+        mgr.addEntry(new JournalEntry("old", old, "L", Arrays.asList(), "c"));
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+        Dimension size = panel.getPreferredSize();
+        panel.setSize(size);
+
+        BufferedImage img = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+        panel.paint(img.getGraphics());
+        Rectangle cell = panel.cellBounds(old);
+        Rectangle emptyCell = panel.cellBounds(old.plusDays(1).getYear() == old.getYear()
+                ? old.plusDays(1) : old.minusDays(1));
+        assertNotEquals(img.getRGB(emptyCell.x + 3, emptyCell.y + 3), img.getRGB(cell.x + 3, cell.y + 3));
+    }
+
+    @Test
+    void zoomIsClampedAndResizesPanel() {
+        JournalGraphPanel panel = new JournalGraphPanel(new JournalManager("ignored.json"));
+        int width = panel.getPreferredSize().width;
+        panel.setCellSize(1000);
+        assertTrue(panel.getCellSize() < 1000);
+        assertTrue(panel.getPreferredSize().width > width);
+        panel.setCellSize(0);
+        assertTrue(panel.getCellSize() > 0);
+    }
+
+    @Test
+    void hitTestInvertsCellLayout() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate old = LocalDate.now().minusYears(3).withDayOfYear(1);
+        mgr.addEntry(new JournalEntry("old", old, "L", Arrays.asList(), "c"));
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+
+        for (LocalDate day = old; day.getYear() < old.getYear() + 2; day = day.plusDays(5)) {
+            Rectangle cell = panel.cellBounds(day);
+            assertEquals(day.toEpochDay(), panel.epochDayAt(cell.x, cell.y));
+            assertEquals(day.toEpochDay(), panel.epochDayAt(cell.x + cell.width - 1, cell.y + cell.height - 1));
+            assertEquals(Long.MIN_VALUE, panel.epochDayAt(cell.x + cell.width, cell.y));
+        }
+        assertEquals(Long.MIN_VALUE, panel.epochDayAt(0, 0));
+    }
+
+    @Test
+    void tooltipListsDayTitles() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate day = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            mgr.addEntry(new JournalEntry("Title <" + i + ">", day, "L", Arrays.asList(), "c"));
+        }
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+        Rectangle cell = panel.cellBounds(day);
+        MouseEvent move = new MouseEvent(panel, MouseEvent.MOUSE_MOVED, 0, 0, cell.x + 1, cell.y + 1, 0, false);
+
+        String text = panel.getToolTipText(move);
+        assertTrue(text.contains("5 entries"));
+        assertTrue(text.contains("Title &lt;0&gt;"));
+        assertFalse(text.contains("Title &lt;3&gt;"));
+        assertTrue(text.contains("2 more"));
+        assertSame(text, panel.getToolTipText(move));
+    }
+
+    @Test
+    void clickReportsDayOrWeek() {
+        JournalGraphPanel panel = new JournalGraphPanel(new JournalManager("ignored.json"));
+        List<LocalDate> range = new ArrayList<>();
+        panel.setDateRangeListener((from, to) -> {
+            range.add(from);
+            range.add(to);
+        });
+        LocalDate day = LocalDate.now();
+        Rectangle cell = panel.cellBounds(day);
+        for (MouseListener listener : panel.getMouseListeners()) {
+            listener.mouseClicked(new MouseEvent(panel, MouseEvent.MOUSE_CLICKED, 0, 0,
+                    cell.x + 1, cell.y + 1, 1, false));
+            listener.mouseClicked(new MouseEvent(panel, MouseEvent.MOUSE_CLICKED, 0,
+                    InputEvent.SHIFT_DOWN_MASK, cell.x + 1, cell.y + 1, 1, false));
+        }
+        assertEquals(Arrays.asList(day, day), range.subList(0, 2));
+        assertEquals(DayOfWeek.SUNDAY, range.get(2).getDayOfWeek());
+        assertEquals(6, range.get(3).toEpochDay() - range.get(2).toEpochDay());
+        assertFalse(day.isBefore(range.get(2)) || day.isAfter(range.get(3)));
+    }
+
+    @Test
+    void wordMetricColorsByWordsWritten() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        LocalDate day = LocalDate.now();
+        LocalDate other = day.getDayOfYear() > 1 ? day.minusDays(1) : day.plusDays(1);
+        mgr.addEntry(new JournalEntry("short", day, "L", Arrays.asList(), "one"));
+        mgr.addEntry(new JournalEntry("long", other, "L", Arrays.asList(),
+                "one two three four five six seven eight"));
+        JournalGraphPanel panel = new JournalGraphPanel(mgr);
+        Dimension size = panel.getPreferredSize();
+        panel.setSize(size);
+        BufferedImage img = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+        Rectangle dayCell = panel.cellBounds(day);
+        Rectangle otherCell = panel.cellBounds(other);
+
+        panel.paint(img.getGraphics());
+        assertEquals(img.getRGB(dayCell.x + 3, dayCell.y + 3), img.getRGB(otherCell.x + 3, otherCell.y + 3));
+
+        panel.setMetric(DayIndex.Metric.WORDS);
+        panel.paint(img.getGraphics());
+        assertNotEquals(img.getRGB(dayCell.x + 3, dayCell.y + 3), img.getRGB(otherCell.x + 3, otherCell.y + 3));
+    }
 }
@@ -1,10 +1,13 @@
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -67,4 +70,384 @@ class JournalManagerTest {
 
         assertTrue(mgr.getEntries().isEmpty());
     }
+
+    @Test
+    void updateAndRemoveEntryKeepPostingsCurrent(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry original = new JournalEntry("T", LocalDate.of(2024, 1, 1),
+                "L", Arrays.asList("a", "b"), "c");
+        mgr.addEntry(original);
+        JournalEntry edited = new JournalEntry("T2", LocalDate.of(2024, 1, 1),
+                "L", Arrays.asList("b"), "c");
+
+        assertTrue(mgr.updateEntry(original, edited));
+        assertSame(edited, mgr.getEntries().get(0));
+        assertEquals(0, mgr.getTagUsageCount("a"));
+        assertEquals(1, mgr.getTagUsageCount("b"));
+
+        assertTrue(mgr.removeEntry(edited));
+        assertFalse(mgr.removeEntry(edited));
+        assertTrue(mgr.getEntries().isEmpty());
+        assertEquals(0, mgr.getTagUsageCount("b"));
+    }
+
+    @Test
+    void removeTagFromEntriesOnlyTouchesPostingList(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry tagged = new JournalEntry("T", LocalDate.of(2024, 1, 1),
+                "L", Arrays.asList("x", "y"), "c");
+        JournalEntry untagged = new JournalEntry("U", LocalDate.of(2024, 1, 2),
+                "L", Arrays.asList("y"), "c");
+        mgr.addEntry(tagged);
+        mgr.addEntry(untagged);
+
+        assertEquals(0, mgr.removeTagFromEntries("unused"));
+        assertEquals(1, mgr.removeTagFromEntries("x"));
+        assertEquals(Arrays.asList("y"), mgr.getEntry(tagged.getId()).getTags());
+        // Entries are replaced, not mutated in place.
+        assertEquals(Arrays.asList("x", "y"), tagged.getTags());
+        assertEquals(2, mgr.getEntriesWithTag("y").size());
+    }
+
+    @Test
+    void entriesListIsReadOnly(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        assertThrows(UnsupportedOperationException.class, () -> mgr.getEntries().clear());
+    }
+
+    @Test
+    void snapshotsAreUnaffectedByLaterMutations(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry first = new JournalEntry("A", LocalDate.of(2024, 1, 1), "L", Arrays.asList("x"), "c");
+        mgr.addEntry(first);
+        JournalSnapshot before = mgr.getSnapshot();
+        List<JournalEntry> listed = mgr.getEntries();
+
+        mgr.addEntry(new JournalEntry("B", LocalDate.of(2024, 1, 2), "L", Arrays.asList("x"), "c"));
+        mgr.renameTag("x", "y");
+        mgr.removeEntry(mgr.getEntryAt(0));
+
+        assertEquals(1, before.size());
+        assertSame(first, before.getEntryAt(0));
+        assertEquals(1, listed.size());
+        assertEquals(mgr.getVersion(), mgr.getSnapshot().getVersion());
+        assertTrue(before.getVersion() < mgr.getVersion());
+        assertEquals(Arrays.asList("y"), mgr.getEntryAt(0).getTags());
+    }
+
+    @Test
+    void readersSeeOnlyCompletedRenames(@TempDir Path tempDir) throws Exception {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        for (int i = 0; i < 200; i++) {
+            mgr.addEntry(new JournalEntry("E" + i, LocalDate.of(2024, 1, 1), "L", Arrays.asList("t0"), "c"));
+        }
+        AtomicBoolean mixed = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                List<JournalEntry> entries = mgr.getEntries();
+                String tag = entries.get(0).getTags().get(0);
+                for (JournalEntry entry : entries) {
+                    if (!entry.getTags().get(0).equals(tag)) {
+                        mixed.set(true);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 50; i++) {
+            mgr.renameTag("t" + (i - 1), "t" + i);
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(mixed.get(), "a reader saw a half-applied rename");
+    }
+
+    @Test
+    void mergeTagsRewritesOnlyAffectedEntries(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry both = new JournalEntry("A", LocalDate.of(2024, 1, 1),
+                "L", Arrays.asList("Work", "job", "x"), "c");
+        JournalEntry one = new JournalEntry("B", LocalDate.of(2024, 1, 2),
+                "L", Arrays.asList("job"), "c");
+        JournalEntry other = new JournalEntry("C", LocalDate.of(2024, 1, 3),
+                "L", Arrays.asList("home"), "c");
+        mgr.addEntry(both);
+        mgr.addEntry(one);
+        mgr.addEntry(other);
+        mgr.saveEntries();
+
+        assertEquals(2, mgr.mergeTags(Arrays.asList("work", "Work", "job"), "work"));
+        assertEquals(Arrays.asList("work", "x"), mgr.getEntry(both.getId()).getTags());
+        assertEquals(Arrays.asList("work"), mgr.getEntry(one.getId()).getTags());
+        assertSame(other, mgr.getEntry(other.getId()));
+        assertEquals(2, mgr.getTagUsageCount("work"));
+        assertEquals(0, mgr.getTagUsageCount("job"));
+        assertEquals(2, mgr.getPendingChangeCount());
+    }
+
+    @Test
+    void saveChangesAppendsToLogAndReplaysOnLoad(@TempDir Path tempDir) {
+        File file = tempDir.resolve("entries.json").toFile();
+        JournalManager mgr = new JournalManager(file.getAbsolutePath());
+        JournalEntry kept = new JournalEntry("Kept", LocalDate.of(2024, 1, 1),
+                "L", Arrays.asList("old"), "c");
+        JournalEntry dropped = new JournalEntry("Dropped", LocalDate.of(2024, 1, 2),
+                "L", Arrays.asList(), "c");
+        mgr.addEntry(kept);
+        mgr.addEntry(dropped);
+        mgr.saveChanges();
+        long baseSize = file.length();
+
+        mgr.renameTag("old", "new");
+        mgr.removeEntry(dropped);
+        mgr.addEntry(new JournalEntry("Added", LocalDate.of(2024, 1, 3), "L", Arrays.asList(), "c"));
+        mgr.saveChanges();
+
+        assertEquals(baseSize, file.length());
+        assertTrue(new File(file.getAbsolutePath() + ".log").exists());
+
+        JournalManager reloaded = new JournalManager(file.getAbsolutePath());
+        reloaded.loadEntries();
+        assertEquals(2, reloaded.getEntries().size());
+        assertEquals(Arrays.asList("new"), reloaded.getEntry(kept.getId()).getTags());
+        assertNull(reloaded.getEntry(dropped.getId()));
+
+        reloaded.saveEntries();
+        assertFalse(new File(file.getAbsolutePath() + ".log").exists());
+    }
+
+    @Test
+    void queryReturnsNewestFirstAndFiltersByTag(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry older = new JournalEntry("Old", LocalDate.of(2024, 1, 1), "L", Arrays.asList("t"), "c");
+        JournalEntry newer = new JournalEntry("New", LocalDate.of(2024, 6, 1), "L", Arrays.asList("t"), "c");
+        JournalEntry untagged = new JournalEntry("U", LocalDate.of(2024, 3, 1), "L", Arrays.asList(), "c");
+        mgr.addEntry(older);
+        mgr.addEntry(newer);
+        mgr.addEntry(untagged);
+
+        int[] all = mgr.query(JournalQuery.ALL);
+        assertSame(newer, mgr.getEntryAt(all[0]));
+        assertSame(untagged, mgr.getEntryAt(all[1]));
+        assertSame(older, mgr.getEntryAt(all[2]));
+
+        int[] tagged = mgr.query(JournalQuery.of("t", null, null, null));
+        assertEquals(2, tagged.length);
+        assertSame(newer, mgr.getEntryAt(tagged[0]));
+    }
+
+    @Test
+    void queryCacheSurvivesUnrelatedMutations(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        mgr.addEntry(new JournalEntry("Jan", LocalDate.of(2024, 1, 5), "L", Arrays.asList(), "c"));
+        JournalEntry june = new JournalEntry("Jun", LocalDate.of(2024, 6, 5), "L", Arrays.asList(), "c");
+        mgr.addEntry(june);
+        JournalQuery january = JournalQuery.of(null, null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+        QueryCache cache = mgr.getQueryCache();
+
+        int[] first = mgr.query(january);
+        assertSame(first, mgr.query(january));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        long before = mgr.getVersion();
+        mgr.updateEntry(june, new JournalEntry(june.getId(), "Jun*", june.getDate(), "L", Arrays.asList(), "c"));
+        assertTrue(mgr.getVersion() > before);
+        assertSame(first, mgr.query(january));
+        assertEquals(2, cache.getHitCount());
+
+        mgr.addEntry(new JournalEntry("Jan2", LocalDate.of(2024, 1, 20), "L", Arrays.asList(), "c"));
+        assertEquals(2, mgr.query(january).length);
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void undoAndRedoDeleteAndEdit(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        JournalEntry first = new JournalEntry("A", LocalDate.of(2024, 1, 1), "L", Arrays.asList("x"), "c");
+        JournalEntry second = new JournalEntry("B", LocalDate.of(2024, 1, 2), "L", Arrays.asList("x"), "c");
+        mgr.addEntry(first);
+        mgr.addEntry(second);
+        JournalEntry edited = new JournalEntry(second.getId(), "B2", second.getDate(), "L", Arrays.asList(), "c");
+        mgr.updateEntry(second, edited);
+        mgr.removeEntry(first);
+        assertFalse(mgr.canRedo());
+
+        assertTrue(mgr.undo());
+        assertSame(first, mgr.getEntry(first.getId()));
+        assertEquals(2, mgr.getEntryCount());
+        assertEquals(1, mgr.getTagUsageCount("x"));
+        assertTrue(mgr.undo());
+        assertSame(second, mgr.getEntry(second.getId()));
+        assertEquals(2, mgr.getTagUsageCount("x"));
+        assertEquals(2, mgr.query(JournalQuery.of("x", null, null, null)).length);
+
+        assertTrue(mgr.redo());
+        assertSame(edited, mgr.getEntry(second.getId()));
+        assertTrue(mgr.redo());
+        assertNull(mgr.getEntry(first.getId()));
+        assertFalse(mgr.redo());
+        assertEquals(1, mgr.getEntryCount());
+
+        // A new mutation after an undo discards what could have been redone.
+        mgr.undo();
+        mgr.addEntry(new JournalEntry("C", LocalDate.of(2024, 1, 3), "L", Arrays.asList(), "c"));
+        assertFalse(mgr.canRedo());
+    }
+
+    @Test
+    void undoTagDeletionRestoresEntriesAndGlobalTag(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        TagsManager tags = new TagsManager(tempDir.resolve("tags.json").toString());
+        mgr.setTagsManager(tags);
+        tags.addTag("x");
+        JournalEntry tagged = new JournalEntry("A", LocalDate.of(2024, 1, 1), "L", Arrays.asList("x"), "c");
+        mgr.addEntry(tagged);
+
+        tags.removeTag("x");
+        assertEquals(1, mgr.removeTagFromEntries("x"));
+        assertEquals(0, mgr.getTagUsageCount("x"));
+
+        assertTrue(mgr.undo());
+        assertSame(tagged, mgr.getEntry(tagged.getId()));
+        assertEquals(1, mgr.getTagUsageCount("x"));
+        assertTrue(tags.getTags().contains("x"));
+        assertEquals(1, tags.getUsageCount("x"));
+        // Write now, so no delayed save outlives the temporary directory.
+        tags.flush();
+    }
+
+    @Test
+    void reloadClearsHistory(@TempDir Path tempDir) {
+        JournalManager mgr = new JournalManager(tempDir.resolve("entries.json").toString());
+        mgr.addEntry(new JournalEntry("A", LocalDate.of(2024, 1, 1), "L", Arrays.asList(), "c"));
+        assertTrue(mgr.canUndo());
+        mgr.loadEntries();
+        assertFalse(mgr.canUndo());
+        assertFalse(mgr.undo());
+    }
+
+    @Test
+    void encryptedJournalKeepsPlaintextOffDisk(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("entries.json").toFile();
+        File segments = tempDir.resolve("content").toFile();
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalManager mgr = new JournalManager(file.getAbsolutePath());
+        mgr.setCipher(cipher);
+        JournalEntry entry = new JournalEntry("Secret title", LocalDate.of(2024, 1, 1),
+                "Toronto", Arrays.asList("private"), "three secret words");
+        mgr.addEntry(entry);
+        mgr.saveEntries();
+
+        String stored = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertFalse(stored.contains("Secret"));
+        assertFalse(stored.contains("Toronto"));
+        assertFalse(stored.contains("private"));
+
+        JournalManager reloaded = new JournalManager(file.getAbsolutePath());
+        reloaded.setCipher(cipher);
+        reloaded.setContentStore(new ContentStore(segments));
+        reloaded.loadEntries();
+        JournalEntry loaded = reloaded.getEntry(entry.getId());
+        assertTrue(loaded.isContentSealed());
+        assertNotNull(loaded.getSealedContent().getRef());
+        assertEquals(3, loaded.getWordCount());
+        assertEquals("Secret title", loaded.getTitle());
+        assertEquals(Arrays.asList("private"), loaded.getTags());
+        assertEquals("three secret words", loaded.getContent());
+        for (File owner : segments.listFiles()) {
+            for (File segment : owner.listFiles()) {
+                assertFalse(new String(Files.readAllBytes(segment.toPath()), StandardCharsets.UTF_8).contains("secret"));
+            }
+        }
+    }
+
+    @Test
+    void encryptedSavesReuseSealedContentOfUnchangedEntries(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("entries.json").toFile();
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalManager mgr = new JournalManager(file.getAbsolutePath());
+        mgr.setCipher(cipher);
+        JournalEntry kept = new JournalEntry("Kept", LocalDate.of(2024, 1, 1), "L", Arrays.asList(), "kept body");
+        JournalEntry edited = new JournalEntry("Edited", LocalDate.of(2024, 1, 2), "L", Arrays.asList(), "old body");
+        mgr.addEntry(kept);
+        mgr.addEntry(edited);
+        mgr.saveEntries();
+        String keptBody = new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .getJSONObject(0).getString("body");
+
+        JournalManager reloaded = new JournalManager(file.getAbsolutePath());
+        reloaded.setCipher(cipher);
+        reloaded.loadEntries();
+        reloaded.updateEntry(reloaded.getEntry(edited.getId()), new JournalEntry(edited.getId(), "Edited",
+                LocalDate.of(2024, 1, 2), "L", Arrays.asList(), "new body"));
+        reloaded.saveChanges();
+        List<String> log = Files.readAllLines(new File(file.getAbsolutePath() + ".log").toPath());
+        assertEquals(1, log.size());
+        assertFalse(log.get(0).contains("new body"));
+
+        reloaded.saveEntries();
+        JSONArray rewritten = new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        assertEquals(keptBody, rewritten.getJSONObject(0).getString("body"));
+
+        JournalManager again = new JournalManager(file.getAbsolutePath());
+        again.setCipher(cipher);
+        again.loadEntries();
+        assertEquals("new body", again.getEntry(edited.getId()).getContent());
+    }
+
+    @Test
+    void plaintextJournalIsSealedOnNextSaveAndWrongKeyNeverOverwrites(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("entries.json").toFile();
+        JournalManager plain = new JournalManager(file.getAbsolutePath());
+        plain.addEntry(new JournalEntry("Plain", LocalDate.of(2024, 1, 1), "L", Arrays.asList(), "plain body"));
+        plain.saveEntries();
+
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalManager mgr = new JournalManager(file.getAbsolutePath());
+        mgr.setCipher(cipher);
+        mgr.loadEntries();
+        assertTrue(mgr.isFullSaveRequired());
+        mgr.saveChanges();
+        byte[] sealed = Files.readAllBytes(file.toPath());
+        assertFalse(new String(sealed, StandardCharsets.UTF_8).contains("plain body"));
+
+        JournalManager wrongKey = new JournalManager(file.getAbsolutePath());
+        wrongKey.setCipher(new JournalCipher(JournalCipher.generateKey()));
+        wrongKey.loadEntries();
+        assertEquals(0, wrongKey.getEntryCount());
+        wrongKey.addEntry(new JournalEntry("New", LocalDate.of(2024, 1, 2), "L", Arrays.asList(), "c"));
+        wrongKey.saveEntries();
+        assertArrayEquals(sealed, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    void filteringEncryptedJournalNeverDecryptsContent(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("entries.json").toFile();
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        JournalManager mgr = new JournalManager(file.getAbsolutePath(), true);
+        mgr.setCipher(cipher);
+        mgr.addEntry(new JournalEntry("A", LocalDate.of(2024, 1, 1), "Home", Arrays.asList("work"), "one"));
+        mgr.addEntry(new JournalEntry("B", LocalDate.of(2024, 2, 1), "Office", Arrays.asList("work"), "two words"));
+        mgr.addEntry(new JournalEntry("C", LocalDate.of(2024, 3, 1), "Office", Arrays.asList("play"), "three"));
+        mgr.saveEntries();
+
+        // Replace every content block with one that cannot be opened.
+        JSONArray records = new JSONArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        for (int i = 0; i < records.length(); i++) {
+            records.getJSONObject(i).put("body", cipher.seal("unused", "elsewhere"));
+        }
+        Files.write(file.toPath(), records.toString(4).getBytes(StandardCharsets.UTF_8));
+
+        JournalManager reloaded = new JournalManager(file.getAbsolutePath(), true);
+        reloaded.setCipher(cipher);
+        reloaded.loadEntries();
+        assertEquals(1, reloaded.query(JournalQuery.of("work", "Office", null, null)).length);
+        assertEquals(2, reloaded.query(JournalQuery.of(null, "Office", null, null)).length);
+        assertEquals(2, reloaded.query(JournalQuery.of(null, null,
+                LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 31))).length);
+        assertEquals(2, reloaded.getEntries().get(1).getWordCount());
+        assertThrows(JournalCipher.DecryptionException.class, () -> reloaded.getEntries().get(1).getContent());
+    }
 }
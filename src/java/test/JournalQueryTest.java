@@ -0,0 +1,33 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class JournalQueryTest {
+
+    @Test
+    void blankFiltersNormalizeToAll() {
+        assertEquals(JournalQuery.ALL, JournalQuery.of("", "  ", null, null));
+        assertEquals(JournalQuery.ALL.hashCode(), JournalQuery.of(null, "", null, null).hashCode());
+    }
+
+    @Test
+    void reversedDateRangeIsSwapped() {
+        LocalDate a = LocalDate.of(2024, 1, 1);
+        LocalDate b = LocalDate.of(2024, 2, 1);
+        assertEquals(JournalQuery.of(null, null, a, b), JournalQuery.of(null, null, b, a));
+    }
+
+    @Test
+    void matchesAppliesEveryFilter() {
+        JournalEntry entry = new JournalEntry("T", LocalDate.of(2024, 3, 10),
+                "Toronto", Arrays.asList("work"), "c");
+
+        assertTrue(JournalQuery.ALL.matches(entry));
+        assertTrue(JournalQuery.of("work", "Toronto", LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 10)).matches(entry));
+        assertFalse(JournalQuery.of("home", null, null, null).matches(entry));
+        assertFalse(JournalQuery.of(null, "Ottawa", null, null).matches(entry));
+        assertFalse(JournalQuery.of(null, null, LocalDate.of(2024, 3, 11), null).matches(entry));
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Canvas;
+import java.awt.Font;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.FontMetrics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.TransferHandler;
+import org.junit.jupiter.api.Test;
+
+class PagedTextViewTest {
+
+    private static final FontMetrics METRICS =
+            new Canvas().getFontMetrics(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+    /** Wraps text in the given piece sizes and returns every line start. */
+    private static List<Integer> wrap(String text, int columns, int pieceSize) {
+        PagedTextView.Wrapper wrapper = new PagedTextView.Wrapper(METRICS, columns * METRICS.charWidth('x'));
+        List<Integer> starts = new ArrayList<>();
+        for (int offset = 0; offset < text.length() || offset == 0; offset += pieceSize) {
+            int end = Math.min(text.length(), offset + pieceSize);
+            for (int start : wrapper.wrap(text.substring(offset, end), offset, end == text.length())) {
+                starts.add(start);
+            }
+            if (end == text.length()) {
+                break;
+            }
+        }
+        return starts;
+    }
+
+    @Test
+    void wrapsAtSpacesNewlinesAndLongWords() {
+        String text = "aaa bbb ccc\nddddddddddddd\n";
+        assertEquals(Arrays.asList(0, 8, 12, 20, 26), wrap(text, 8, 1000));
+    }
+
+    @Test
+    void wrappingDoesNotDependOnPieceSize() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("word").append(i).append(i % 17 == 0 ? "\n" : " ");
+        }
+        List<Integer> whole = wrap(text.toString(), 30, 100000);
+        assertEquals(whole, wrap(text.toString(), 30, 7));
+        assertEquals(whole, wrap(text.toString(), 30, 64));
+    }
+
+    @Test
+    void opensLargeContentWithoutWrappingItAll() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2_000_000) {
+            text.append("The quick brown fox jumps over the lazy dog. ");
+        }
+        PagedTextView view = new PagedTextView(ContentSource.of(text.toString()));
+        SwingUtilities.invokeAndWait(() -> view.setBounds(0, 0, 400, 300));
+        assertFalse(view.isLayoutComplete());
+        assertTrue(view.getLineCount() > 0);
+        assertEquals(-1, view.lineOfOffset(1_500_000));
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!view.isLayoutComplete() && System.currentTimeMillis() < deadline) {
+            SwingUtilities.invokeAndWait(() -> { });
+            Thread.sleep(10);
+        }
+        assertTrue(view.isLayoutComplete());
+        int line = view.lineOfOffset(1_500_000);
+        assertTrue(line > 0);
+        assertEquals(view.getLineCount() - 1, view.lineOfOffset(text.length() - 1));
+
+        BufferedImage img = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        SwingUtilities.invokeAndWait(() -> view.paint(img.getGraphics()));
+    }
+
+    @Test
+    void copiesTheSelectedRange() throws Exception {
+        PagedTextView view = new PagedTextView(ContentSource.of("first line\nsecond line\n"));
+        assertNull(view.getSelectedText());
+
+        view.select(17, 6);
+        assertEquals(6, view.getSelectionStart());
+        assertEquals(17, view.getSelectionEnd());
+        Clipboard clipboard = new Clipboard("test");
+        view.getTransferHandler().exportToClipboard(view, clipboard, TransferHandler.COPY);
+        assertEquals("line\nsecond", clipboard.getData(DataFlavor.stringFlavor));
+
+        view.select(5, 500);
+        assertEquals(" line\nsecond line\n", view.getSelectedText());
+    }
+}
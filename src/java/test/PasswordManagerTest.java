@@ -6,6 +6,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -89,6 +92,102 @@ class PasswordManagerTest {
         assertTrue(new PasswordManager(file.getAbsolutePath()).verifyPassword("legacypw"));
     }
 
+    @Test
+    void newPasswordUsesCalibratedWorkFactor(@TempDir Path tempDir) {
+        File file = tempDir.resolve("password.json").toFile();
+        PasswordManager mgr = new PasswordManager(file.getAbsolutePath(), 100);
+        mgr.setPassword("pw");
+
+        int calibrated = PasswordManager.calibratedIterations(100);
+        assertEquals(calibrated, mgr.getIterations());
+        assertTrue(calibrated >= PasswordManager.MIN_ITERATIONS);
+        assertTrue(calibrated <= PasswordManager.MAX_ITERATIONS);
+        // A target too short for any reasonable cost is held at the floor.
+        assertEquals(PasswordManager.MIN_ITERATIONS, PasswordManager.calibrate(0));
+    }
+
+    @Test
+    void cheapCredentialIsRehashedAfterLogin(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("password.json").toFile();
+        writeKdfHash(file, "pw", 1_000);
+
+        // A target long enough that the calibrated cost is well above the floor.
+        PasswordManager mgr = new PasswordManager(file.getAbsolutePath(), 1000);
+        assertEquals(1_000, mgr.getIterations());
+        // A failed login must not touch the credential.
+        assertFalse(mgr.verifyPassword("wrong"));
+        assertEquals(1_000, mgr.getIterations());
+
+        // Login only moves the credential to the split-key format, at the floor.
+        assertTrue(mgr.verifyPassword("pw"));
+        assertEquals(PasswordManager.MIN_ITERATIONS, mgr.getIterations());
+
+        int calibrated = PasswordManager.calibratedIterations(1000);
+        assertTrue(mgr.rehashIfNeeded("pw"));
+        assertEquals(calibrated, mgr.getIterations());
+        assertFalse(mgr.rehashIfNeeded("pw"));
+        PasswordManager reloaded = new PasswordManager(file.getAbsolutePath(), 1000);
+        assertEquals(calibrated, reloaded.getIterations());
+        assertTrue(reloaded.verifyPassword("pw"));
+    }
+
+    @Test
+    void loginNeverLowersTheWorkFactor(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("password.json").toFile();
+        int costly = PasswordManager.calibratedIterations(100) * 3;
+        writeKdfHash(file, "pw", costly);
+
+        PasswordManager mgr = new PasswordManager(file.getAbsolutePath(), 100);
+        assertTrue(mgr.verifyPassword("pw"));
+        // Upgraded to the split-key format, but at the stored cost.
+        assertEquals(costly, mgr.getIterations());
+        assertFalse(mgr.rehashIfNeeded("pw"));
+        assertEquals(costly, mgr.getIterations());
+        assertTrue(new PasswordManager(file.getAbsolutePath(), 100).verifyPassword("pw"));
+        assertEquals(costly, new PasswordManager(file.getAbsolutePath(), 100).getIterations());
+
+        // Changing the password is what brings it back to the calibrated cost.
+        mgr.setPassword("pw");
+        assertEquals(PasswordManager.calibratedIterations(100), mgr.getIterations());
+    }
+
+    @Test
+    void dataKeyIsUnwrappedOnLoginAndSurvivesPasswordChange(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("password.json").toFile();
+        PasswordManager setup = new PasswordManager(file.getAbsolutePath());
+        setup.setPassword("first");
+        byte[] key = setup.getDataKey().getEncoded();
+
+        String stored = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(stored.contains("wrappedKey"));
+        assertFalse(stored.contains(Base64.getEncoder().encodeToString(key)));
+
+        PasswordManager login = new PasswordManager(file.getAbsolutePath());
+        assertNull(login.getDataKey());
+        assertFalse(login.verifyPassword("wrong"));
+        assertNull(login.getDataKey());
+        assertTrue(login.verifyPassword("first"));
+        assertArrayEquals(key, login.getDataKey().getEncoded());
+
+        login.setPassword("second");
+        PasswordManager relogin = new PasswordManager(file.getAbsolutePath());
+        assertTrue(relogin.verifyPassword("second"));
+        assertArrayEquals(key, relogin.getDataKey().getEncoded());
+    }
+
+    private static void writeKdfHash(File file, String password, int iterations) throws Exception {
+        byte[] salt = new byte[16];
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 256);
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        JSONObject json = new JSONObject();
+        json.put("salt", Base64.getEncoder().encodeToString(salt));
+        json.put("iterations", iterations);
+        json.put("hash", Base64.getEncoder().encodeToString(hash));
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.write(json.toString(4));
+        }
+    }
+
     private static void writeLegacyHash(File file, String password) throws Exception {
         JSONObject json = new JSONObject();
         json.put("passwordHash", sha256Hex(password));
@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentHashMapTest {
+
+    /** A key whose hash is chosen by the test, to force collisions. */
+    private static final class Key {
+        private final int id;
+        private final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        Random random = new Random(5);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 50_000; i++) {
+            int id = random.nextInt(5_000);
+            // Few distinct hashes, some sharing low bits, so both deep paths and collision nodes occur.
+            Key key = new Key(id, (id % 700) * 0x01010101);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int id = 0; id < 5_000; id++) {
+            Key key = new Key(id, (id % 700) * 0x01010101);
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        for (Key key : expected.keySet()) {
+            map = map.minus(key);
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void updatesLeaveEarlierVersionsUnchanged() {
+        PersistentHashMap<String, Integer> original = PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        PersistentHashMap<String, Integer> changed = original.plus("a", 10).minus("b").plus("c", 3);
+        assertEquals(Integer.valueOf(1), original.get("a"));
+        assertEquals(Integer.valueOf(2), original.get("b"));
+        assertNull(original.get("c"));
+        assertEquals(Integer.valueOf(10), changed.get("a"));
+        assertFalse(changed.containsKey("b"));
+        assertEquals(2, changed.size());
+        assertSame(changed, changed.minus("missing"));
+    }
+}
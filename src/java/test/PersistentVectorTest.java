@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentVectorTest {
+
+    @Test
+    void randomOperationsMatchArrayList() {
+        Random random = new Random(3);
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        // Grow well past 32 * 32 elements so the tree gains levels, then shrink again.
+        for (int i = 0; i < 60_000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                expected.add(i);
+                vector = vector.append(i);
+            } else if (op < 9) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, -i);
+                vector = vector.update(index, -i);
+            } else {
+                expected.remove(expected.size() - 1);
+                vector = vector.removeLast();
+            }
+        }
+        assertEquals(expected, vector);
+        while (!expected.isEmpty()) {
+            expected.remove(expected.size() - 1);
+            vector = vector.removeLast();
+            if (expected.size() % 997 == 0) {
+                assertEquals(expected, vector);
+            }
+        }
+        assertTrue(vector.isEmpty());
+    }
+
+    @Test
+    void updatesLeaveEarlierVersionsUnchanged() {
+        PersistentVector<String> original = PersistentVector.of(Arrays.asList("a", "b", "c"));
+        PersistentVector<String> changed = original.update(1, "B").append("d").removeLast().removeLast();
+        assertEquals(Arrays.asList("a", "b", "c"), original);
+        assertEquals(Arrays.asList("a", "B"), changed);
+    }
+
+    @Test
+    void listMutatorsAreRejected() {
+        PersistentVector<String> vector = PersistentVector.of(Arrays.asList("a"));
+        assertThrows(UnsupportedOperationException.class, () -> vector.add("b"));
+        assertThrows(UnsupportedOperationException.class, () -> vector.set(0, "b"));
+        assertThrows(UnsupportedOperationException.class, () -> PersistentVector.empty().clear());
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(1));
+    }
+}
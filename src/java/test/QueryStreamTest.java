@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class QueryStreamTest {
+
+    private static JournalManager randomJournal(int count) {
+        Random random = new Random(7);
+        JournalManager mgr = new JournalManager("ignored.json");
+        for (int i = 0; i < count; i++) {
+            LocalDate date = LocalDate.of(2019, 1, 1).plusDays(random.nextInt(2000));
+            String tag = random.nextBoolean() ? "a" : "b";
+            mgr.addEntry(new JournalEntry("e" + i, date, i % 3 == 0 ? "Home" : "Work",
+                    Collections.singletonList(tag), "c"));
+        }
+        // Removals move entries and reorder day buckets.
+        for (int i = 0; i < count / 10; i++) {
+            mgr.removeEntry(mgr.getEntryAt(random.nextInt(mgr.getEntryCount())));
+        }
+        return mgr;
+    }
+
+    /** Reads a stream to the end in pages of the given size. */
+    private static int[] drain(QueryStream stream, int pageSize) {
+        int pages = 0;
+        while (stream.nextPage(pageSize) != null) {
+            pages++;
+        }
+        assertTrue(pages > 0);
+        return stream.getResult();
+    }
+
+    @Test
+    void producesTheSameOrderAsQuery() {
+        JournalManager mgr = randomJournal(3000);
+        JournalQuery[] queries = {
+            JournalQuery.ALL,
+            JournalQuery.of("a", null, null, null),
+            JournalQuery.of(null, "Home", LocalDate.of(2020, 3, 1), LocalDate.of(2021, 6, 30)),
+        };
+        for (JournalQuery query : queries) {
+            int[] streamed = drain(mgr.streamQuery(query), 50);
+            mgr.getQueryCache().invalidateAll(mgr.getVersion());
+            assertArrayEquals(mgr.query(query), streamed);
+        }
+    }
+
+    @Test
+    void pagesEndOnDayBoundariesAndKeysCarryOrdinals() {
+        JournalManager mgr = randomJournal(500);
+        QueryStream stream = mgr.streamQuery(JournalQuery.ALL);
+        long[] first = stream.nextPage(10);
+        assertTrue(first.length >= 10);
+        long lastKey = first[first.length - 1];
+        long[] second = stream.nextPage(10);
+        // Keys are ascending across pages, and a day never spans two pages.
+        assertTrue(second[0] > lastKey);
+        assertNotEquals(second[0] >>> 32, lastKey >>> 32);
+        assertEquals((int) first[0], stream.getResult()[0]);
+    }
+
+    @Test
+    void completedStreamFillsTheCacheAndChangesMakeItStale() {
+        JournalManager mgr = randomJournal(200);
+        JournalQuery query = JournalQuery.of("b", null, null, null);
+        int[] result = drain(mgr.streamQuery(query), 1000);
+        assertArrayEquals(result, mgr.getQueryCache().get(query, mgr.getVersion()));
+
+        QueryStream stream = mgr.streamQuery(JournalQuery.ALL);
+        stream.nextPage(5);
+        mgr.addEntry(new JournalEntry("late", LocalDate.of(2019, 5, 5), "L", Collections.emptyList(), "c"));
+        assertNull(stream.nextPage(5));
+        assertTrue(stream.isStale());
+    }
+
+    @Test
+    void emptyJournalStreamsNothing() {
+        JournalManager mgr = new JournalManager("ignored.json");
+        QueryStream stream = mgr.streamQuery(JournalQuery.ALL);
+        long[] page;
+        int rows = 0;
+        while ((page = stream.nextPage(100)) != null) {
+            rows += page.length;
+        }
+        assertEquals(0, rows);
+        assertEquals(0, stream.getResult().length);
+        assertFalse(stream.isStale());
+        assertEquals(0, Arrays.stream(stream.getKeys()).count());
+    }
+}
@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.StringContent;
+import javax.swing.undo.UndoManager;
+import org.junit.jupiter.api.Test;
+
+class RopeTest {
+
+    /** Builds text long enough to span many leaves. */
+    private static String text(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void randomEditsMatchStringBuilder() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder(text(5000));
+        Rope rope = Rope.of(expected);
+        for (int i = 0; i < 2000; i++) {
+            int at = random.nextInt(expected.length() + 1);
+            if (random.nextBoolean() || expected.length() == 0) {
+                String inserted = text(1 + random.nextInt(40));
+                expected.insert(at, inserted);
+                rope = rope.insert(at, inserted);
+            } else {
+                int end = Math.min(expected.length(), at + random.nextInt(60));
+                expected.delete(at, end);
+                rope = rope.delete(at, end);
+            }
+        }
+        assertEquals(expected.toString(), rope.toString());
+        assertEquals(expected.length(), rope.length());
+        for (int i = 0; i < expected.length(); i += 97) {
+            assertEquals(expected.charAt(i), rope.charAt(i));
+        }
+    }
+
+    @Test
+    void staysBalancedUnderAppends() {
+        Rope rope = Rope.EMPTY;
+        for (int i = 0; i < 10000; i++) {
+            rope = rope.insert(rope.length(), text(300));
+        }
+        assertEquals(3_000_000, rope.length());
+        // A height-balanced tree over about 3000 leaves is at most 1.44 * log2(3000) deep.
+        assertTrue(rope.height() <= 17, "height " + rope.height());
+    }
+
+    @Test
+    void editsLeaveEarlierRopesUnchanged() {
+        String original = text(4000);
+        Rope rope = Rope.of(original);
+        Rope edited = rope.insert(2000, "XYZ").delete(0, 100);
+        assertEquals(original, rope.toString());
+        assertEquals(original.substring(100, 2000) + "XYZ" + original.substring(2000), edited.toString());
+    }
+
+    @Test
+    void slicesTrimsAndStreams() throws Exception {
+        String original = "  " + text(3000) + "\n ";
+        Rope rope = Rope.of(original);
+        assertEquals(original.substring(500, 2500), rope.subSequence(500, 2500).toString());
+        assertEquals(original.trim(), rope.trim().toString());
+        StringWriter out = new StringWriter();
+        rope.writeTo(out);
+        assertEquals(original, out.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.delete(10, original.length() + 1));
+    }
+
+    @Test
+    void documentEditsPositionsAndUndo() throws BadLocationException {
+        RopeContent content = new RopeContent();
+        PlainDocument document = new PlainDocument(content);
+        UndoManager undo = new UndoManager();
+        document.addUndoableEditListener(undo);
+
+        document.insertString(0, "hello world", null);
+        Position world = document.createPosition(6);
+        document.insertString(5, ",", null);
+        assertEquals(7, world.getOffset());
+        document.remove(0, 3);
+        assertEquals("lo, world", content.snapshot().toString());
+        assertEquals(4, world.getOffset());
+
+        undo.undo();
+        assertEquals("hello, world", document.getText(0, document.getLength()));
+        undo.undo();
+        assertEquals("hello world", content.snapshot().toString());
+        undo.redo();
+        assertEquals("hello, world", content.snapshot().toString());
+    }
+
+    @Test
+    void positionsMoveLikeStringContent() throws BadLocationException {
+        RopeContent content = new RopeContent();
+        StringContent reference = new StringContent();
+        List<Position> positions = new ArrayList<>();
+        List<Position> expected = new ArrayList<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 2000; step++) {
+            int length = reference.length();
+            int choice = random.nextInt(4);
+            if (choice == 0) {
+                int offset = random.nextInt(length + 1);
+                positions.add(content.createPosition(offset));
+                expected.add(reference.createPosition(offset));
+            } else if (choice == 1 && length > 1) {
+                int where = random.nextInt(length - 1);
+                int count = random.nextInt(Math.min(8, length - 1 - where) + 1);
+                content.remove(where, count);
+                reference.remove(where, count);
+            } else {
+                int where = random.nextInt(length);
+                String text = "ab\n".substring(random.nextInt(3));
+                content.insertString(where, text);
+                reference.insertString(where, text);
+            }
+            for (int i = 0; i < positions.size(); i++) {
+                assertEquals(expected.get(i).getOffset(), positions.get(i).getOffset());
+            }
+        }
+        assertEquals(reference.getString(0, reference.length()), content.getString(0, content.length()));
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterEdits() throws BadLocationException {
+        RopeContent content = new RopeContent();
+        PlainDocument document = new PlainDocument(content);
+        document.insertString(0, text(5000), null);
+        Rope snapshot = content.snapshot();
+        document.remove(0, 4000);
+        assertEquals(text(5000), snapshot.toString());
+        assertEquals(1000, document.getLength());
+
+        Segment segment = new Segment();
+        segment.setPartialReturn(true);
+        document.getText(0, 1000, segment);
+        assertTrue(segment.count > 0 && segment.count <= 1000);
+        assertEquals(text(5000).substring(4000, 4000 + segment.count), segment.toString());
+    }
+}
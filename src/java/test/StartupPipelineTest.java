@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StartupPipelineTest {
+
+    @Test
+    void opensPlaintextJournalWithoutKey(@TempDir Path tempDir) throws Exception {
+        String journalFile = tempDir.resolve("entries.json").toString();
+        String tagsFile = tempDir.resolve("tags.json").toString();
+        String passwordFile = tempDir.resolve("password.json").toString();
+        JournalManager seed = new JournalManager(journalFile);
+        seed.addEntry(new JournalEntry("First", LocalDate.of(2024, 1, 1), "L1", Arrays.asList("work"), "c1"));
+        seed.addEntry(new JournalEntry("Second", LocalDate.of(2024, 1, 2), "L2", Arrays.asList("work"), "c2"));
+        seed.saveEntries();
+        TagsManager tagSeed = new TagsManager(tagsFile);
+        tagSeed.addTag("work");
+        tagSeed.flush();
+        new PasswordManager(passwordFile).setPassword("pw");
+
+        StartupPipeline pipeline = new StartupPipeline(journalFile, tagsFile, passwordFile,
+                new File(tempDir.toFile(), "content")).start();
+        assertTrue(pipeline.getPasswordManager().get(10, TimeUnit.SECONDS).verifyPassword("pw"));
+
+        JournalManager journal = pipeline.open(null).get(10, TimeUnit.SECONDS);
+        TagsManager tags = pipeline.getTagsManager().get(10, TimeUnit.SECONDS);
+        assertEquals(2, journal.getEntryCount());
+        assertEquals("c2", journal.getEntries().get(1).getContent());
+        assertNotNull(journal.getColumns());
+        // The tags manager is attached, so usage counts reflect the loaded entries.
+        assertEquals(2, tags.getUsageCount("work"));
+    }
+
+    @Test
+    void openingWithKeySealsPlaintextFiles(@TempDir Path tempDir) throws Exception {
+        String journalFile = tempDir.resolve("entries.json").toString();
+        String tagsFile = tempDir.resolve("tags.json").toString();
+        JournalManager seed = new JournalManager(journalFile);
+        seed.addEntry(new JournalEntry("First", LocalDate.of(2024, 1, 1), "L1", Arrays.asList("work"), "secret text"));
+        seed.saveEntries();
+        TagsManager tagSeed = new TagsManager(tagsFile);
+        tagSeed.addTag("work");
+        tagSeed.flush();
+        SecretKey key = JournalCipher.generateKey();
+
+        StartupPipeline pipeline = new StartupPipeline(journalFile, tagsFile,
+                tempDir.resolve("password.json").toString(), null).start();
+        JournalManager journal = pipeline.open(key).get(10, TimeUnit.SECONDS);
+        pipeline.getTagsManager().get(10, TimeUnit.SECONDS);
+
+        assertEquals("secret text", journal.getEntries().get(0).getContent());
+        assertFalse(new String(Files.readAllBytes(Paths.get(journalFile)), StandardCharsets.UTF_8).contains("secret"));
+        assertFalse(new String(Files.readAllBytes(Paths.get(tagsFile)), StandardCharsets.UTF_8).contains("work"));
+    }
+
+    @Test
+    void futuresRequireStartAndOpen(@TempDir Path tempDir) {
+        StartupPipeline pipeline = new StartupPipeline(tempDir.resolve("entries.json").toString(),
+                tempDir.resolve("tags.json").toString(), tempDir.resolve("password.json").toString(), null);
+        assertThrows(IllegalStateException.class, pipeline::getPasswordManager);
+        pipeline.start();
+        assertThrows(IllegalStateException.class, pipeline::getJournalManager);
+        assertSame(pipeline.open(null), pipeline.open(null));
+    }
+}
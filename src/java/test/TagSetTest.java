@@ -0,0 +1,48 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TagSetTest {
+
+    @Test
+    void equalTagListsShareOneInstance() {
+        TagSet first = TagSet.of(new ArrayList<>(Arrays.asList("personal", "health")));
+        TagSet second = TagSet.of(Arrays.asList("personal", "health", "personal"));
+        assertSame(first, second);
+        assertEquals(Arrays.asList("personal", "health"), first);
+        assertNotSame(first, TagSet.of(Arrays.asList("health", "personal")));
+        assertSame(TagSet.EMPTY, TagSet.of(null));
+        assertSame(TagSet.EMPTY, TagSet.of(Arrays.asList((String) null)));
+    }
+
+    @Test
+    void containsWorksForSmallAndLargeIds() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            many.add("tagset-test-" + i);
+        }
+        TagSet large = TagSet.of(many);
+        for (String tag : many) {
+            assertTrue(large.contains(tag));
+        }
+        assertFalse(large.contains("tagset-test-missing"));
+        assertFalse(large.contains(null));
+
+        TagSet small = TagSet.of(Arrays.asList("tagset-test-3", "work"));
+        assertTrue(small.contains("work"));
+        assertFalse(small.contains("tagset-test-4"));
+    }
+
+    @Test
+    void setsAreReadOnly() {
+        TagSet tags = TagSet.of(Arrays.asList("a", "b"));
+        assertThrows(UnsupportedOperationException.class, () -> tags.add("c"));
+        assertThrows(UnsupportedOperationException.class, () -> tags.remove("a"));
+        JournalEntry entry = new JournalEntry("T", LocalDate.of(2024, 1, 1), "L", Arrays.asList("a"), "c");
+        assertThrows(UnsupportedOperationException.class, () -> entry.getTags().clear());
+    }
+}
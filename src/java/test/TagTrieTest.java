@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class TagTrieTest {
+
+    @Test
+    void insertContainsAndRemove() {
+        TagTrie trie = new TagTrie();
+        assertTrue(trie.insert("work"));
+        assertTrue(trie.insert("workout"));
+        assertTrue(trie.insert("world"));
+        assertFalse(trie.insert("work"));
+
+        assertEquals(3, trie.size());
+        assertTrue(trie.contains("work"));
+        assertFalse(trie.contains("wor"));
+        assertFalse(trie.contains("workouts"));
+
+        assertTrue(trie.remove("work"));
+        assertFalse(trie.remove("work"));
+        assertFalse(trie.contains("work"));
+        assertTrue(trie.contains("workout"));
+        assertTrue(trie.contains("world"));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void suggestRanksByUsageThenAlphabetically() {
+        TagTrie trie = new TagTrie();
+        for (String tag : Arrays.asList("work", "workout", "world", "writing", "health")) {
+            trie.insert(tag);
+        }
+        trie.setCount("workout", 5);
+        trie.setCount("world", 2);
+        trie.setCount("writing", 9);
+
+        assertEquals(Arrays.asList("writing", "workout", "world", "work"), trie.suggest("w", 10));
+        assertEquals(Arrays.asList("workout", "world"), trie.suggest("wor", 2));
+        // A prefix ending part-way along a compressed edge still matches.
+        assertEquals(Arrays.asList("workout"), trie.suggest("worko", 10));
+        assertEquals(Collections.emptyList(), trie.suggest("x", 10));
+    }
+
+    @Test
+    void removingTagDropsItsCountFromRanking() {
+        TagTrie trie = new TagTrie();
+        trie.insert("alpha");
+        trie.insert("alps");
+        trie.setCount("alpha", 10);
+        trie.setCount("alps", 1);
+        trie.remove("alpha");
+
+        assertEquals(Arrays.asList("alps"), trie.suggest("al", 5));
+        assertEquals(0, trie.getCount("alpha"));
+    }
+
+    @Test
+    void suggestScalesToManyTags() {
+        TagTrie trie = new TagTrie();
+        for (int i = 0; i < 100_000; i++) {
+            String tag = "tag" + i;
+            trie.insert(tag);
+            trie.setCount(tag, i % 1000);
+        }
+        assertEquals(100_000, trie.size());
+        assertEquals(3, trie.suggest("tag9", 3).size());
+        assertEquals(999, trie.getCount(trie.suggest("tag", 1).get(0)));
+    }
+}
@@ -1,7 +1,11 @@
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -19,6 +23,7 @@ class TagsManagerTest {
         assertEquals(2, mgr.getTags().size());
         assertTrue(mgr.getTags().contains("work"));
         assertTrue(mgr.getTags().contains("ideas"));
+        mgr.flush();
     }
 
     @Test
@@ -27,6 +32,7 @@ class TagsManagerTest {
         TagsManager mgr = new TagsManager(file.getAbsolutePath());
         mgr.addTag("alpha");
         mgr.addTag("beta");
+        mgr.flush();
 
         TagsManager reload = new TagsManager(file.getAbsolutePath());
         reload.loadTags();
@@ -49,6 +55,7 @@ class TagsManagerTest {
         File file = tempDir.resolve("tags.json").toFile();
         TagsManager seeder = new TagsManager(file.getAbsolutePath());
         seeder.addTag("kept");
+        seeder.flush();
 
         TagsManager mgr2 = new TagsManager(file.getAbsolutePath());
         // Seed in-memory tags directly via getTags() to avoid overwriting the file.
@@ -60,4 +67,91 @@ class TagsManagerTest {
         assertTrue(mgr2.getTags().contains("kept"));
         assertFalse(mgr2.getTags().contains("transient1"));
     }
+
+    @Test
+    void suggestTagsUsesRecountedUsage(@TempDir Path tempDir) {
+        File file = tempDir.resolve("tags.json").toFile();
+        TagsManager mgr = new TagsManager(file.getAbsolutePath());
+        mgr.addTag("walk");
+        mgr.addTag("work");
+        mgr.addTag("home");
+        mgr.recountUsage(Arrays.asList(
+                new JournalEntry("a", LocalDate.of(2024, 1, 1), "L", Arrays.asList("work"), "c"),
+                new JournalEntry("b", LocalDate.of(2024, 1, 2), "L", Arrays.asList("work", "home"), "c")));
+
+        assertEquals(2, mgr.getUsageCount("work"));
+        assertEquals(Arrays.asList("work", "walk"), mgr.suggestTags("w", 5));
+        mgr.flush();
+    }
+
+    @Test
+    void removeTagDropsItFromSuggestions(@TempDir Path tempDir) {
+        File file = tempDir.resolve("tags.json").toFile();
+        TagsManager mgr = new TagsManager(file.getAbsolutePath());
+        mgr.addTag("alpha");
+        mgr.addTag("alps");
+
+        assertTrue(mgr.removeTag("alpha"));
+        assertFalse(mgr.getTags().contains("alpha"));
+        assertEquals(Arrays.asList("alps"), mgr.suggestTags("al", 5));
+        mgr.flush();
+    }
+
+    @Test
+    void addTagBatchesWritesUntilFlush(@TempDir Path tempDir) {
+        File file = tempDir.resolve("tags.json").toFile();
+        TagsManager mgr = new TagsManager(file.getAbsolutePath());
+        mgr.addTag("one");
+        mgr.addTag("two");
+        assertFalse(file.exists());
+
+        mgr.flush();
+        assertTrue(file.exists());
+    }
+
+    @Test
+    void journalMutationsMaintainUsageCounts(@TempDir Path tempDir) {
+        TagsManager mgr = new TagsManager(tempDir.resolve("tags.json").toString());
+        mgr.addTag("work");
+        JournalManager journal = new JournalManager(tempDir.resolve("entries.json").toString());
+        journal.setTagsManager(mgr);
+
+        JournalEntry first = new JournalEntry("a", LocalDate.of(2024, 1, 1), "L", Arrays.asList("work"), "c");
+        journal.addEntry(first);
+        journal.addEntry(new JournalEntry("b", LocalDate.of(2024, 1, 2), "L", Arrays.asList("work", "home"), "c"));
+        assertEquals(2, mgr.getUsageCount("work"));
+        assertEquals(1, mgr.getUsageCount("home"));
+
+        journal.updateEntry(first, new JournalEntry("a", LocalDate.of(2024, 1, 1), "L", Arrays.asList("home"), "c"));
+        assertEquals(1, mgr.getUsageCount("work"));
+        assertEquals(2, mgr.getUsageCount("home"));
+
+        journal.removeTagFromEntries("home");
+        assertEquals(0, mgr.getUsageCount("home"));
+        mgr.flush();
+    }
+
+    @Test
+    void sealedTagsRoundTripAndWrongKeyNeverOverwrites(@TempDir Path tempDir) throws Exception {
+        File file = tempDir.resolve("tags.json").toFile();
+        JournalCipher cipher = new JournalCipher(JournalCipher.generateKey());
+        TagsManager mgr = new TagsManager(file.getAbsolutePath());
+        mgr.setCipher(cipher);
+        mgr.addTag("private");
+        mgr.flush();
+        byte[] sealed = Files.readAllBytes(file.toPath());
+        assertFalse(new String(sealed, StandardCharsets.UTF_8).contains("private"));
+
+        TagsManager reload = new TagsManager(file.getAbsolutePath());
+        reload.setCipher(cipher);
+        reload.loadTags();
+        assertTrue(reload.getTags().contains("private"));
+
+        TagsManager wrongKey = new TagsManager(file.getAbsolutePath());
+        wrongKey.setCipher(new JournalCipher(JournalCipher.generateKey()));
+        wrongKey.loadTags();
+        assertTrue(wrongKey.getTags().isEmpty());
+        wrongKey.saveTags();
+        assertArrayEquals(sealed, Files.readAllBytes(file.toPath()));
+    }
 }
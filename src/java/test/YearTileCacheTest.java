@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class YearTileCacheTest {
+
+    private static YearTile tile(int year) {
+        return new YearTile(year, new int[DayIndex.DAYS_PER_YEAR], 0, HeatmapScale.DEFAULT, 6, 1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedYear() {
+        YearTileCache cache = new YearTileCache(2);
+        cache.put(tile(2020));
+        cache.put(tile(2021));
+        assertNotNull(cache.get(2020));
+        cache.put(tile(2022));
+
+        assertNotNull(cache.get(2020));
+        assertNull(cache.get(2021));
+        assertNotNull(cache.get(2022));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void updateRedrawsChangedCellsAndRestamps() {
+        int[] counts = new int[DayIndex.DAYS_PER_YEAR];
+        YearTile tile = new YearTile(2024, counts, 1, HeatmapScale.DEFAULT, 10, 2);
+        // 2024-01-01 is a Monday, so day 0 sits in column 0, row 1.
+        int before = tile.getImage().getRGB(5, 12 + 5);
+        counts[0] = 3;
+        tile.update(counts, 2, HeatmapScale.DEFAULT);
+        assertEquals(2, tile.getStamp());
+        assertNotEquals(before, tile.getImage().getRGB(5, 12 + 5));
+    }
+}